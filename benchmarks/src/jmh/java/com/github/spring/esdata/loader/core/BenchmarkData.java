@@ -0,0 +1,109 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates (once, then reuses across forks and runs) the data files loaded by the benchmarks.
+ * <br>
+ * Files are written in the temporary directory and contain <code>nbDocuments</code> documents of {@link BenchmarkEsEntity},
+ * in {@link EsDataFormat#DUMP} or {@link EsDataFormat#MANUAL} format, possibly gzipped (in one member, or in BGZF blocks).
+ * Content is random but reproducible.
+ *
+ * @author tinesoft
+ */
+final class BenchmarkData {
+
+  private static final Path DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "spring-esdata-loader-benchmarks");
+
+  private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit",
+    "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "\\\"quoted\\\"",
+    "{braces}", "[brackets]"};
+
+  /**
+   * Compression of the data files.
+   */
+  public enum Compression {
+    NONE, GZIP, BGZF
+  }
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Returns the path to the file containing the requested data, generating it if it does not exist yet.
+   *
+   * @param format      format of the data (either {@link EsDataFormat#DUMP} or {@link EsDataFormat#MANUAL})
+   * @param nbDocuments number of documents in the file
+   * @param compression the compression of the file
+   * @return the path to the file
+   * @throws IOException if the file could not be generated
+   */
+  static synchronized Path get(final EsDataFormat format, final int nbDocuments, final Compression compression) throws IOException {
+    String suffix = compression == Compression.NONE ? "" : compression == Compression.GZIP ? ".gz" : ".bgzf.gz";
+    Path file = DIRECTORY.resolve(format.name().toLowerCase() + "-" + nbDocuments + ".json" + suffix);
+    if (Files.exists(file))
+      return file;
+
+    if (compression == Compression.BGZF) {
+      BgzfRepack.repack(get(format, nbDocuments, Compression.GZIP), file);
+      return file;
+    }
+    boolean gzipped = compression == Compression.GZIP;
+
+    Files.createDirectories(DIRECTORY);
+    Path tmpFile = Files.createTempFile(DIRECTORY, file.getFileName().toString(), ".tmp");
+    try (OutputStream os = Files.newOutputStream(tmpFile);
+         Writer writer = new BufferedWriter(new OutputStreamWriter(gzipped ? new GZIPOutputStream(os, 64 * 1024) : os,
+           StandardCharsets.UTF_8), 64 * 1024)) {
+      write(writer, format, nbDocuments);
+    }
+    return Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void write(final Writer writer, final EsDataFormat format, final int nbDocuments) throws IOException {
+    Random random = new Random(nbDocuments);
+    StringBuilder sb = new StringBuilder(512);
+
+    if (format == EsDataFormat.MANUAL)
+      writer.write("[\n");
+
+    for (int i = 0; i < nbDocuments; i++) {
+      sb.setLength(0);
+      if (format == EsDataFormat.DUMP) {
+        sb.append("{\"_index\":\"benchmark\",\"_type\":\"doc\",\"_id\":\"").append(i).append("\",\"_score\":1,\"_source\":");
+        appendSource(sb, random, i);
+        sb.append("}\n");
+      } else {
+        appendSource(sb, random, i);
+        sb.append(i < nbDocuments - 1 ? ",\n" : "\n");
+      }
+      writer.append(sb);
+    }
+
+    if (format == EsDataFormat.MANUAL)
+      writer.write("]\n");
+  }
+
+  private static void appendSource(final StringBuilder sb, final Random random, final int i) {
+    sb.append("{\"id\":\"").append(i).append("\",\"name\":\"");
+    appendWords(sb, random, 3);
+    sb.append("\",\"description\":\"");
+    appendWords(sb, random, 10 + random.nextInt(30));
+    sb.append("\",\"count\":").append(random.nextInt(100_000))
+      .append(",\"active\":").append(random.nextBoolean())
+      .append(",\"createdAt\":\"2019-0").append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10))
+      .append("T12:00:00Z\"}");
+  }
+
+  private static void appendWords(final StringBuilder sb, final Random random, final int nbWords) {
+    for (int w = 0; w < nbWords; w++) {
+      if (w > 0)
+        sb.append(' ');
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+  }
+}
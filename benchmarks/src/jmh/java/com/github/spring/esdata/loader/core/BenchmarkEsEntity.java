@@ -0,0 +1,21 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+
+/**
+ * Entity the generated benchmark documents are loaded into.
+ *
+ * @author tinesoft
+ */
+@Document(indexName = "benchmark", type = "doc")
+public class BenchmarkEsEntity {
+
+  @Id
+  private String id;
+  private String name;
+  private String description;
+  private long count;
+  private boolean active;
+  private String createdAt;
+}
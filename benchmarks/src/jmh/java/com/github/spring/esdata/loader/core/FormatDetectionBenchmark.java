@@ -0,0 +1,42 @@
+package com.github.spring.esdata.loader.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the auto-detection of the format of a data file (see {@link SpringEsDataLoader#getEsDataFormat(BufferedInputStream, EsDataFormat)}),
+ * done at the beginning of every load that does not specify its format.
+ *
+ * @author tinesoft
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormatDetectionBenchmark {
+
+  private static final int HEAD_SIZE = 16 * 1024;
+
+  @Param({"DUMP", "MANUAL"})
+  EsDataFormat format;
+
+  private byte[] head;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    try (InputStream is = new FileInputStream(BenchmarkData.get(this.format, 10_000, BenchmarkData.Compression.NONE).toFile())) {
+      byte[] buffer = new byte[HEAD_SIZE];
+      int length = 0;
+      for (int n; length < HEAD_SIZE && (n = is.read(buffer, length, HEAD_SIZE - length)) != -1; )
+        length += n;
+      this.head = Arrays.copyOf(buffer, length);
+    }
+  }
+
+  @Benchmark
+  public EsDataFormat detect() throws IOException {
+    return SpringEsDataLoader.getEsDataFormat(new BufferedInputStream(new ByteArrayInputStream(this.head)), EsDataFormat.UNKNOWN);
+  }
+}
@@ -0,0 +1,58 @@
+package com.github.spring.esdata.loader.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of loading a window of documents (via <code>nbSkipItems</code> / <code>nbMaxItems</code>) taken at the
+ * beginning, the middle or the end of a large data file, i.e how cheap it is to go through the skipped documents
+ * and to stop once the window has been read.
+ *
+ * @author tinesoft
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SkipLimitBenchmark {
+
+  /**
+   * Position of the window of documents to load in the file.
+   */
+  public enum Window {
+    HEAD, MIDDLE, TAIL
+  }
+
+  @Param({"1000000"})
+  int nbDocuments;
+
+  @Param({"1000"})
+  int windowSize;
+
+  @Param({"HEAD", "MIDDLE", "TAIL"})
+  Window window;
+
+  @Param({"DUMP", "MANUAL"})
+  EsDataFormat format;
+
+  private StubEsOperations esOperations;
+  private SpringEsDataLoader loader;
+  private IndexData data;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    long nbSkipItems = this.window == Window.HEAD ? 0 : this.window == Window.MIDDLE ? this.nbDocuments / 2 : this.nbDocuments - this.windowSize;
+
+    this.esOperations = new StubEsOperations();
+    this.loader = new SpringEsDataLoader(this.esOperations.get(), LoadReportListener.NONE);
+    this.data = new IndexData(BenchmarkEsEntity.class, BenchmarkData.get(this.format, this.nbDocuments, BenchmarkData.Compression.NONE).toUri().toString(),
+      false, (long) this.windowSize, nbSkipItems, this.format);
+  }
+
+  @Benchmark
+  public long load() {
+    this.loader.load(this.data);
+    return this.esOperations.reset();
+  }
+}
@@ -0,0 +1,48 @@
+package com.github.spring.esdata.loader.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time (and allocations, with the <code>gc</code> profiler) taken by {@link SpringEsDataLoader#load(IndexData)}
+ * to read, parse and prepare the bulk requests of a whole data file, for every supported format, gzipped (in one member
+ * or in BGZF blocks, inflated in parallel) or not.
+ * <br>
+ * Elasticsearch is stubbed out (see {@link StubEsOperations}), so only the loader's own work is measured.
+ *
+ * @author tinesoft
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SpringEsDataLoaderBenchmark {
+
+  @Param({"10000", "100000", "1000000", "10000000"})
+  int nbDocuments;
+
+  @Param({"DUMP", "MANUAL"})
+  EsDataFormat format;
+
+  @Param({"NONE", "GZIP", "BGZF"})
+  BenchmarkData.Compression compression;
+
+  private StubEsOperations esOperations;
+  private SpringEsDataLoader loader;
+  private IndexData data;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    this.esOperations = new StubEsOperations();
+    this.loader = new SpringEsDataLoader(this.esOperations.get(), LoadReportListener.NONE);
+    this.data = new IndexData(BenchmarkEsEntity.class, BenchmarkData.get(this.format, this.nbDocuments, this.compression).toUri().toString(),
+      this.compression != BenchmarkData.Compression.NONE, Long.MAX_VALUE, 0L, this.format);
+  }
+
+  @Benchmark
+  public long load() {
+    this.loader.load(this.data);
+    return this.esOperations.reset();
+  }
+}
@@ -0,0 +1,73 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link ElasticsearchOperations} that accepts every call without reaching any cluster, so that benchmarks
+ * only measure the work done by the loader itself.
+ * <br>
+ * Documents sent through bulk requests are simply counted.
+ *
+ * @author tinesoft
+ */
+final class StubEsOperations {
+
+  private static final SimpleElasticsearchMappingContext MAPPING_CONTEXT = new SimpleElasticsearchMappingContext();
+
+  private final AtomicLong nbIndexed = new AtomicLong();
+  private final ElasticsearchOperations esOperations;
+
+  StubEsOperations() {
+    this.esOperations = (ElasticsearchOperations) Proxy.newProxyInstance(ElasticsearchOperations.class.getClassLoader(),
+      new Class<?>[]{ElasticsearchOperations.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getPersistentEntityFor":
+            return getPersistentEntity((Class<?>) args[0]);
+          case "bulkIndex":
+            this.bulkIndex((List<?>) args[0]);
+            return null;
+          case "getMapping":
+          case "getSetting":
+            return Collections.emptyMap();
+          case "indexExists":
+            return false;
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "equals":
+            return proxy == args[0];
+          case "toString":
+            return StubEsOperations.class.getSimpleName();
+          default:
+            return method.getReturnType() == boolean.class ? Boolean.TRUE : null;
+        }
+      });
+  }
+
+  ElasticsearchOperations get() {
+    return this.esOperations;
+  }
+
+  /**
+   * @return the number of documents received through bulk requests, and resets it
+   */
+  long reset() {
+    return this.nbIndexed.getAndSet(0);
+  }
+
+  private void bulkIndex(final List<?> queries) {
+    this.nbIndexed.addAndGet(queries.size());
+  }
+
+  private static ElasticsearchPersistentEntity<?> getPersistentEntity(final Class<?> esEntityClass) {
+    synchronized (MAPPING_CONTEXT) {
+      return MAPPING_CONTEXT.getRequiredPersistentEntity(esEntityClass);
+    }
+  }
+}
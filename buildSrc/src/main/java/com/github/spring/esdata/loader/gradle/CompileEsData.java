@@ -0,0 +1,99 @@
+package com.github.spring.esdata.loader.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gradle task that compiles data files (in <code>DUMP</code> or <code>MANUAL</code> format, gzipped or not) into files in
+ * <code>COMPILED</code> format, with the <code>EsDataCompiler</code> of spring-esdata-loader-core.
+ * <br>
+ * The documents are validated at build time, and the compiled files are loaded faster (without any text parsing).
+ * <br><br>
+ * Usage (e.g to compile the test data of a project, next to the original ones):
+ * <pre>
+ * task compileEsData(type: com.github.spring.esdata.loader.gradle.CompileEsData) {
+ *   source = fileTree('src/test/resources/data') { include '*.json' }
+ *   destinationDir = file("$buildDir/esdata/data")
+ *   compilerClasspath = configurations.testRuntimeClasspath
+ * }
+ * processTestResources {
+ *   from(compileEsData) { into 'data' }
+ * }
+ * </pre>
+ *
+ * @author tinesoft
+ */
+public class CompileEsData extends DefaultTask {
+
+  private static final String COMPILER_CLASS = "com.github.spring.esdata.loader.core.EsDataCompiler";
+
+  private FileTree source;
+  private File destinationDir;
+  private FileCollection compilerClasspath;
+
+  /**
+   * @return the data files to compile
+   */
+  @InputFiles
+  @SkipWhenEmpty
+  @PathSensitive(PathSensitivity.NAME_ONLY)
+  public FileTree getSource() {
+    return this.source;
+  }
+
+  public void setSource(final FileTree source) {
+    this.source = source;
+  }
+
+  /**
+   * @return the directory to write the compiled files into
+   */
+  @OutputDirectory
+  public File getDestinationDir() {
+    return this.destinationDir;
+  }
+
+  public void setDestinationDir(final File destinationDir) {
+    this.destinationDir = destinationDir;
+  }
+
+  /**
+   * @return the classpath to run the <code>EsDataCompiler</code> with (must contain spring-esdata-loader-core and its dependencies)
+   */
+  @Classpath
+  public FileCollection getCompilerClasspath() {
+    return this.compilerClasspath;
+  }
+
+  public void setCompilerClasspath(final FileCollection compilerClasspath) {
+    this.compilerClasspath = compilerClasspath;
+  }
+
+  @TaskAction
+  public void compile() {
+    getProject().delete(this.destinationDir);// no stale compiled files
+
+    List<String> args = new ArrayList<>();
+    args.add(this.destinationDir.getAbsolutePath());
+    for (File file : this.source.getFiles())
+      args.add(file.getAbsolutePath());
+
+    getProject().javaexec(spec -> {
+      spec.setClasspath(this.compilerClasspath);
+      spec.setMain(COMPILER_CLASS);
+      spec.setArgs(args);
+    });
+  }
+}
@@ -0,0 +1,107 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Command line utility to re-pack a data file (gzipped or not) into a gzip file in the BGZF layout, whose blocks can be
+ * inflated in parallel when the data are loaded.
+ * <br>
+ * The re-packed file remains a valid gzip file (that any gzip tool can decompress), usually slightly bigger than the original.
+ * <br><br>
+ * Usage: <code>java -cp spring-esdata-loader-core.jar com.github.spring.esdata.loader.core.BgzfRepack &lt;source&gt; [&lt;target&gt;]</code>
+ * (the source file is replaced if no target is given).
+ *
+ * @author tinesoft
+ */
+public final class BgzfRepack {
+
+  private BgzfRepack() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: BgzfRepack <source> [<target>]");
+      System.exit(1);
+    }
+    Path source = Paths.get(args[0]);
+    repack(source, args.length > 1 ? Paths.get(args[1]) : source);
+  }
+
+  /**
+   * Re-packs the given file (gzipped or not) into a gzip file in the BGZF layout.
+   *
+   * @param source the file to re-pack
+   * @param target the re-packed file (can be the same as the source)
+   * @throws IOException if the file could not be re-packed
+   */
+  public static void repack(final Path source, final Path target) throws IOException {
+    Path absoluteTarget = target.toAbsolutePath();
+    Path tmpFile = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName().toString(), ".tmp");
+    try {
+      try (InputStream is = open(source); //
+           OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmpFile), 1024 * 1024)) {
+        repack(is, os);
+      }
+      Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  /**
+   * Compresses the given (uncompressed) content into BGZF blocks.
+   *
+   * @param is the content to compress
+   * @param os the stream to write the blocks to
+   * @throws IOException if the content could not be compressed
+   */
+  static void repack(final InputStream is, final OutputStream os) throws IOException {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    byte[] data = new byte[GzipBlocks.MAX_BLOCK_DATA_SIZE];
+    byte[] block = new byte[0x10000];
+    try {
+      int length;
+      while ((length = readFully(is, data)) > 0)
+        os.write(block, 0, GzipBlocks.deflate(data, length, deflater, block));
+      os.write(GzipBlocks.eofBlock());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Opens the given file, gunzipping its content if it is gzipped.
+   *
+   * @param source the file
+   * @return the (uncompressed) content of the file
+   * @throws IOException if the file could not be opened
+   */
+  static BufferedInputStream open(final Path source) throws IOException {
+    BufferedInputStream is = new BufferedInputStream(Files.newInputStream(source), 64 * 1024);
+    is.mark(2);
+    boolean gzipped = is.read() == 31 && is.read() == 139;
+    is.reset();
+    return gzipped ? new BufferedInputStream(new GZIPInputStream(is, 64 * 1024), 64 * 1024) : is;
+  }
+
+  private static int readFully(final InputStream is, final byte[] b) throws IOException {
+    int n = 0;
+    while (n < b.length) {
+      int read = is.read(b, n, b.length - n);
+      if (read == -1)
+        break;
+      n += read;
+    }
+    return n;
+  }
+}
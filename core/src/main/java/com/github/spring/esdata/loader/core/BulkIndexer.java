@@ -0,0 +1,283 @@
+package com.github.spring.esdata.loader.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Accumulates {@link IndexQuery} into batches that are sent to Elasticsearch (via {@link ElasticsearchOperations#bulkIndex(List)})
+ * as soon as either the max number of documents or the max size (in bytes) of a batch is reached.
+ * <br>
+ * This allows to stream data of any size into Elasticsearch while keeping the memory footprint bounded.
+ * <br><br>
+ * Batches are sent asynchronously by up to <code>concurrency</code> workers, so that reading and parsing the data go on
+ * while bulk requests are processed by the cluster. At most <code>2 x concurrency</code> batches can be pending at the same
+ * time: once this limit is reached, {@link #add(IndexQuery)} blocks until a bulk request completes, which naturally slows
+ * the parsing down when the cluster falls behind.
+ * <br>
+ * Since concurrent bulk requests may reach the cluster in any order, a batch holding a document whose id is also part of
+ * a pending batch is only sent once the pending batches complete (so that the last version of a document wins), and
+ * requests given to {@link #send(int, Runnable)} are sent one after another, in the order they are given.
+ * <br><br>
+ * Documents indexed (or not) and time spent waiting for the cluster are recorded into the given {@link LoadStatistics}.
+ *
+ * @author tinesoft
+ */
+class BulkIndexer implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkIndexer.class);
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private final ElasticsearchOperations esOperations;
+  private final int bulkSize;
+  private final long bulkMaxBytes;
+  private final int maxPendingBatches;
+
+  private final ExecutorService executor;
+  private final Semaphore pendingBatches;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final LoadStatistics statistics;
+  private final Map<String, Integer> pendingIds = new HashMap<>();// ids of the documents of the pending batches
+
+  private List<IndexQuery> batch;
+  private long batchBytes;
+  private CompletableFuture<Void> lastSent = CompletableFuture.completedFuture(null);// the last request given to send()
+
+  /**
+   * @param esOperations the {@link ElasticsearchOperations} used to send bulk requests
+   * @param bulkSize     maximum number of documents per bulk request
+   * @param bulkMaxBytes maximum size (in bytes) of the documents per bulk request
+   * @param concurrency  maximum number of bulk requests sent concurrently
+   * @param statistics   statistics to record the outcome of the bulk requests into
+   */
+  BulkIndexer(final ElasticsearchOperations esOperations, final int bulkSize, final long bulkMaxBytes, final int concurrency,
+              final LoadStatistics statistics) {
+    this.esOperations = esOperations;
+    this.statistics = statistics;
+    this.bulkSize = bulkSize;
+    this.bulkMaxBytes = bulkMaxBytes;
+    this.maxPendingBatches = 2 * concurrency;// the batches being sent + as many ready to be sent
+    this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+      Thread t = new Thread(r, "esdata-bulk-" + THREAD_COUNTER.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    this.pendingBatches = new Semaphore(this.maxPendingBatches);
+    this.batch = new ArrayList<>(bulkSize);
+  }
+
+  /**
+   * Adds the given query to the current batch, flushing it first if it is already full.
+   *
+   * @param indexQuery the query to add
+   */
+  synchronized void add(final IndexQuery indexQuery) {
+    long querySize = sizeOf(indexQuery);
+
+    // flush first if the query would overflow the current batch (a single big document still gets its own batch)
+    if (!this.batch.isEmpty() && this.batchBytes + querySize > this.bulkMaxBytes)
+      this.flush();
+
+    this.batch.add(indexQuery);
+    this.batchBytes += querySize;
+
+    if (this.batch.size() >= this.bulkSize || this.batchBytes >= this.bulkMaxBytes)
+      this.flush();
+  }
+
+  /**
+   * Hands the current batch (if not empty) over to the workers, waiting for a free slot if too many batches are pending.
+   */
+  synchronized void flush() {
+    this.checkFailure();
+    if (this.batch.isEmpty())
+      return;
+
+    final List<IndexQuery> queries = this.batch;
+    this.batch = new ArrayList<>(this.bulkSize);
+    this.batchBytes = 0;
+
+    final Set<String> ids = new HashSet<>();
+    queries.forEach(q -> {
+      if (q.getId() != null)
+        ids.add(q.getId());
+    });
+    if (this.addPendingIds(ids))
+      this.awaitPending();// a previous version of one of the documents is being sent: it must not overtake this one
+
+    this.acquire();
+    this.executor.execute(this.task(queries.size(), () -> {
+      try {
+        this.esOperations.bulkIndex(queries);
+      } finally {
+        this.removePendingIds(ids);
+      }
+    }));
+  }
+
+  /**
+   * Hands the given bulk request over to the workers, waiting for a free slot if too many batches are pending.
+   * <br>
+   * Requests given to this method (e.g the chunks of a file in {@link EsDataFormat#BULK} format, whose actions may update
+   * or delete the documents of the previous ones) are sent one after another, in the order they are given.
+   *
+   * @param nbDocuments number of documents sent by the request
+   * @param bulkRequest the request
+   */
+  synchronized void send(final int nbDocuments, final Runnable bulkRequest) {
+    this.checkFailure();
+    this.acquire();
+    this.lastSent = this.lastSent.thenRunAsync(this.task(nbDocuments, bulkRequest), this.executor);
+  }
+
+  /**
+   * Sends the remaining documents and waits for all the pending bulk requests to complete.
+   *
+   * @throws RuntimeException if any of the bulk requests failed
+   */
+  void await() {
+    this.flush();
+    this.awaitPending();
+    this.checkFailure();
+  }
+
+  /**
+   * Releases the workers. Pending bulk requests, if any, are given a chance to complete.
+   */
+  @Override
+  public void close() {
+    this.executor.shutdown();
+    try {
+      this.executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for a free slot, i.e until less than <code>2 x concurrency</code> batches are pending.
+   */
+  private void acquire() {
+    long start = System.nanoTime();
+    try {
+      this.pendingBatches.acquire();// back-pressure: wait for the cluster to catch up
+      this.statistics.record(LoadPhase.BULK, start);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to send a bulk request", e);
+    }
+  }
+
+  /**
+   * Waits for all the pending bulk requests to complete.
+   */
+  private void awaitPending() {
+    long start = System.nanoTime();
+    try {
+      this.pendingBatches.acquire(this.maxPendingBatches);
+      this.pendingBatches.release(this.maxPendingBatches);
+      this.statistics.record(LoadPhase.BULK, start);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for bulk requests to complete", e);
+    }
+  }
+
+  /**
+   * Creates the task sending the given bulk request (unless a previous one failed), and releasing its slot once done.
+   *
+   * @param nbDocuments number of documents sent by the request
+   * @param bulkRequest the request
+   * @return the task
+   */
+  private Runnable task(final int nbDocuments, final Runnable bulkRequest) {
+    return () -> {
+      try {
+        if (this.failure.get() == null) {
+          LOGGER.debug("Sending bulk request of {} documents", nbDocuments);
+          bulkRequest.run();
+          this.statistics.addIndexed(nbDocuments);
+        } else {
+          this.statistics.addFailed(nbDocuments);// not sent
+        }
+      } catch (Throwable t) {
+        long nbFailed = t instanceof ElasticsearchException && ((ElasticsearchException) t).getFailedDocuments() != null
+          ? ((ElasticsearchException) t).getFailedDocuments().size() : nbDocuments;
+        this.statistics.addFailed(nbFailed);
+        this.statistics.addIndexed(nbDocuments - nbFailed);
+        this.failure.compareAndSet(null, t);
+      } finally {
+        this.pendingBatches.release();
+      }
+    };
+  }
+
+  /**
+   * Registers the given ids as the ones of a pending batch.
+   *
+   * @param ids the ids of the documents of the batch
+   * @return {@code true} if any of them is already part of a pending batch
+   */
+  private boolean addPendingIds(final Set<String> ids) {
+    boolean pending = false;
+    synchronized (this.pendingIds) {
+      for (String id : ids)
+        pending |= this.pendingIds.merge(id, 1, Integer::sum) > 1;
+    }
+    return pending;
+  }
+
+  /**
+   * Unregisters the given ids, once their batch is sent.
+   *
+   * @param ids the ids of the documents of the batch
+   */
+  private void removePendingIds(final Set<String> ids) {
+    synchronized (this.pendingIds) {
+      for (String id : ids)
+        this.pendingIds.computeIfPresent(id, (k, n) -> n > 1 ? n - 1 : null);
+    }
+  }
+
+  /**
+   * Rethrows the failure of a previous bulk request, if any.
+   */
+  private void checkFailure() {
+    Throwable t = this.failure.get();
+    if (t instanceof RuntimeException)
+      throw (RuntimeException) t;
+    if (t instanceof Error)
+      throw (Error) t;
+    if (t != null)
+      throw new IllegalStateException("Failed to send bulk request", t);
+  }
+
+  /**
+   * Estimates the size (in bytes) of the given query once serialized into the bulk request.
+   *
+   * @param indexQuery the query
+   * @return the estimated size
+   */
+  private static long sizeOf(final IndexQuery indexQuery) {
+    String source = indexQuery.getSource();
+    String id = indexQuery.getId();
+    return (source != null ? source.length() : 0) + (id != null ? id.length() : 0);
+  }
+}
@@ -0,0 +1,336 @@
+package com.github.spring.esdata.loader.core;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JVM-wide cache of the bulk payloads prepared from data files (i.e the bulk actions, as sent to Elasticsearch), so that data
+ * loaded again (e.g by another test class, or before each test) are sent without being read nor parsed again.
+ * <br>
+ * Payloads are kept by location, format, skip/limit and bulk sizes of the data, as well as last modification time of their
+ * file. The cache is bounded by the total size of the payloads, the least recently used ones being evicted first.
+ * <br>
+ * The cache is disabled by default: it is enabled by setting its maximum size with the {@value #MAX_BYTES_PROPERTY} system
+ * property (read once, when the cache is first used). While data are loaded, their payload is recorded until it gets larger
+ * than a {@value #MAX_PAYLOAD_FRACTION}th of that size, so that concurrent loads only buffer a bounded amount of memory.
+ *
+ * @author tinesoft
+ */
+public final class BulkPayloadCache {
+
+  /**
+   * System property holding the maximum number of bytes of the payloads in cache ({@code 0}, the default, disabling it).
+   */
+  public static final String MAX_BYTES_PROPERTY = "spring.esdata.loader.cache.max-bytes";
+
+  /**
+   * Ratio of the maximum size of the cache to the maximum size of a single payload.
+   */
+  static final int MAX_PAYLOAD_FRACTION = 4;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkPayloadCache.class);
+
+  private static final BulkPayloadCache INSTANCE = new BulkPayloadCache(Long.getLong(MAX_BYTES_PROPERTY, 0L));
+
+  private final long maxBytes;
+  private final Map<Key, Payload> payloads = new LinkedHashMap<>(16, 0.75f, true);// in access order
+  private long bytes;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param maxBytes the maximum number of bytes of the payloads in cache ({@code 0} disabling it)
+   */
+  BulkPayloadCache(final long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return the JVM-wide cache
+   */
+  public static BulkPayloadCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the number of loads whose payload was found in cache
+   */
+  public synchronized long getHitCount() {
+    return this.hitCount;
+  }
+
+  /**
+   * @return the number of loads whose payload was not found in cache
+   */
+  public synchronized long getMissCount() {
+    return this.missCount;
+  }
+
+  /**
+   * @return the number of payloads evicted from the cache to make room for others
+   */
+  public synchronized long getEvictionCount() {
+    return this.evictionCount;
+  }
+
+  /**
+   * @return the number of bytes of the payloads in cache
+   */
+  public synchronized long getSizeInBytes() {
+    return this.bytes;
+  }
+
+  /**
+   * @return the maximum number of bytes of the payloads in cache ({@code 0} if disabled)
+   */
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  /**
+   * Removes all the payloads from the cache (statistics are kept).
+   */
+  public synchronized void clear() {
+    this.payloads.clear();
+    this.bytes = 0;
+  }
+
+  /**
+   * Gets the key of the payload of the given data.
+   *
+   * @param d the data
+   * @return the key, or {@code null} if the data cannot be cached (cache disabled, or last modification time of their file unknown)
+   */
+  Key keyOf(final IndexData d) {
+    if (this.maxBytes <= 0)
+      return null;
+    try {
+      return new Key(d, EsDataResource.resolve(d.location).lastModified());
+    } catch (IOException e) {
+      LOGGER.debug("Data at '{}' cannot be cached: {}", d.location, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Gets the payload with the given key (made the most recently used one).
+   *
+   * @param key the key of the payload
+   * @return the payload, or {@code null} if not in cache
+   */
+  synchronized Payload get(final Key key) {
+    Payload payload = this.payloads.get(key);
+    if (payload != null)
+      this.hitCount++;
+    else
+      this.missCount++;
+    return payload;
+  }
+
+  /**
+   * Puts the given payload in cache, evicting the least recently used ones if needed.
+   *
+   * @param key     the key of the payload
+   * @param payload the payload
+   */
+  synchronized void put(final Key key, final Payload payload) {
+    Payload previous = this.payloads.put(key, payload);
+    this.bytes += payload.bytes - (previous != null ? previous.bytes : 0);
+    Iterator<Payload> eldest = this.payloads.values().iterator();
+    while (this.bytes > this.maxBytes && eldest.hasNext()) {
+      this.bytes -= eldest.next().bytes;
+      eldest.remove();
+      this.evictionCount++;
+    }
+  }
+
+  /**
+   * Creates a recorder of the payload of the given data, while they are loaded.
+   *
+   * @param d the data
+   * @return the recorder
+   */
+  Recorder record(final IndexData d) {
+    return new Recorder(d.bulkSize, d.bulkMaxBytes, this.maxBytes / MAX_PAYLOAD_FRACTION);
+  }
+
+  /**
+   * Key of a payload.
+   */
+  static final class Key {
+
+    private final String location;
+    private final EsDataFormat format;
+    private final long nbSkipItems;
+    private final long nbMaxItems;
+    private final int bulkSize;
+    private final long bulkMaxBytes;
+    private final long lastModified;
+
+    private Key(final IndexData d, final long lastModified) {
+      this.location = d.location;
+      this.format = d.format;
+      this.nbSkipItems = d.nbSkipItems;
+      this.nbMaxItems = d.nbMaxItems;
+      this.bulkSize = d.bulkSize;
+      this.bulkMaxBytes = d.bulkMaxBytes;
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof Key))
+        return false;
+      Key key = (Key) o;
+      return this.nbSkipItems == key.nbSkipItems && this.nbMaxItems == key.nbMaxItems && this.bulkSize == key.bulkSize
+        && this.bulkMaxBytes == key.bulkMaxBytes && this.lastModified == key.lastModified
+        && this.location.equals(key.location) && this.format == key.format;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.location, this.format, this.nbSkipItems, this.nbMaxItems, this.bulkSize, this.bulkMaxBytes, this.lastModified);
+    }
+  }
+
+  /**
+   * Payload of some data: chunks of bulk actions, each one being sent in a single bulk request.
+   */
+  static final class Payload {
+
+    private final List<Chunk> chunks;
+    private final long nbDocuments;
+    private final long bytes;
+
+    private Payload(final List<Chunk> chunks) {
+      this.chunks = Collections.unmodifiableList(chunks);
+      this.nbDocuments = chunks.stream().mapToLong(c -> c.nbActions).sum();
+      this.bytes = chunks.stream().mapToLong(c -> c.data.length).sum();
+    }
+
+    /**
+     * Sends the chunks of the payload.
+     *
+     * @param consumer the consumer sending each chunk
+     */
+    void forEach(final EsDocumentReader.BulkChunkConsumer consumer) {
+      this.chunks.forEach(c -> consumer.accept(c.data, c.data.length, c.nbActions));
+    }
+
+    long getNbDocuments() {
+      return this.nbDocuments;
+    }
+  }
+
+  private static final class Chunk {
+
+    private final byte[] data;
+    private final int nbActions;
+
+    private Chunk(final byte[] data, final int nbActions) {
+      this.data = data;
+      this.nbActions = nbActions;
+    }
+  }
+
+  /**
+   * Records the payload of some data while they are loaded (documents being possibly added from several threads), until
+   * it gets too large to be cached.
+   */
+  static final class Recorder {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final int bulkSize;
+    private final long bulkMaxBytes;
+    private final long maxBytes;
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    private final JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+    private List<Chunk> chunks = new ArrayList<>();
+    private int nbActions;
+    private long bytes;
+
+    private Recorder(final int bulkSize, final long bulkMaxBytes, final long maxBytes) {
+      this.bulkSize = bulkSize;
+      this.bulkMaxBytes = bulkMaxBytes;
+      this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Records the index action of the given document.
+     *
+     * @param document the document
+     */
+    synchronized void add(final EsDocument document) {
+      if (this.chunks == null)
+        return;
+      byte[] action = document.getId() != null //
+        ? ("{\"index\":{\"_id\":\"" + new String(this.encoder.quoteAsString(document.getId())) + "\"}}\n").getBytes(StandardCharsets.UTF_8) //
+        : "{\"index\":{}}\n".getBytes(StandardCharsets.UTF_8);
+      // line breaks can only be whitespaces outside of strings: the source is written on a single line, as expected by the bulk API
+      byte[] source = document.getSource().replace('\n', ' ').replace('\r', ' ').getBytes(StandardCharsets.UTF_8);
+      if (this.nbActions > 0 && (this.nbActions >= this.bulkSize || this.chunk.size() + action.length + source.length + 1 > this.bulkMaxBytes))
+        this.flush();
+      this.chunk.write(action, 0, action.length);
+      this.chunk.write(source, 0, source.length);
+      this.chunk.write(NEW_LINE, 0, 1);
+      this.nbActions++;
+      this.checkSize(action.length + source.length + 1);
+    }
+
+    /**
+     * Records the given chunk of bulk actions (read as is, in {@link EsDataFormat#BULK} format).
+     *
+     * @param data      the buffer holding the chunk
+     * @param length    the number of bytes of the chunk
+     * @param nbActions the number of actions in the chunk
+     */
+    synchronized void add(final byte[] data, final int length, final int nbActions) {
+      if (this.chunks == null)
+        return;
+      this.chunks.add(new Chunk(Arrays.copyOf(data, length), nbActions));
+      this.checkSize(length);
+    }
+
+    /**
+     * @return the recorded payload, or {@code null} if too large to be cached
+     */
+    synchronized Payload toPayload() {
+      if (this.chunks == null)
+        return null;
+      if (this.nbActions > 0)
+        this.flush();
+      return new Payload(this.chunks);
+    }
+
+    private void flush() {
+      this.chunks.add(new Chunk(this.chunk.toByteArray(), this.nbActions));
+      this.chunk.reset();
+      this.nbActions = 0;
+    }
+
+    private void checkSize(final int length) {
+      this.bytes += length;
+      if (this.bytes > this.maxBytes) {
+        this.chunks = null;// would not fit in cache anyway: no need to keep recording
+        this.chunk.reset();
+      }
+    }
+  }
+}
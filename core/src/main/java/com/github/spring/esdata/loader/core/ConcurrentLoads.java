@@ -0,0 +1,137 @@
+package com.github.spring.esdata.loader.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class to load several {@link IndexData} concurrently (with {@link EsDataLoader#loadAsync(IndexData, Executor)}),
+ * on a bounded executor.
+ *
+ * @author tinesoft
+ */
+final class ConcurrentLoads {
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private ConcurrentLoads() {
+  }
+
+  /**
+   * Loads the given data concurrently, using up to <code>concurrency</code> threads. Data targeting the same mapping class
+   * (and thus the same index) are not independent: they are loaded one after another, in the given order.
+   * <br>
+   * All the data are loaded even if some of the loads fail: failures are then reported all together.
+   *
+   * @param loader      the loader to load data with
+   * @param data        the data to load
+   * @param concurrency maximum number of data loaded concurrently
+   * @return the reports of the loads, in the order of the given data
+   * @throws RuntimeException the failure of the load if only one failed, or an {@link IllegalStateException} with the
+   *                          failures of all the loads as suppressed exceptions otherwise
+   */
+  static List<LoadReport> loadAll(final EsDataLoader loader, final Collection<IndexData> data, final int concurrency) {
+    // groups are made of the positions of the data, so that reports can be returned in the order of the data
+    List<IndexData> dataList = new ArrayList<>(data);
+    Map<Class<?>, List<Integer>> dataByEntityClass = new LinkedHashMap<>();
+    for (int i = 0; i < dataList.size(); i++)
+      dataByEntityClass.computeIfAbsent(dataList.get(i).getEsEntityClass(), c -> new ArrayList<>()).add(i);
+
+    LoadReport[] reports = new LoadReport[dataList.size()];
+
+    List<Throwable> failures = new ArrayList<>();
+    if (concurrency <= 1 || dataByEntityClass.size() <= 1) {
+      dataByEntityClass.values().forEach(group -> loadGroup(loader, dataList, group, reports, failures));
+    } else {
+      ExecutorService pool = Executors.newFixedThreadPool(Math.min(concurrency, dataByEntityClass.size()),
+        daemonThreadFactory("esdata-load-"));
+      Executor executor = EsIndexNamespace.wrap(pool);// the next loads of a group are started from the threads of the pool
+      try {
+        // the loads of a group are chained: each one starts once the previous one succeeded
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (List<Integer> group : dataByEntityClass.values()) {
+          CompletableFuture<?> chain = CompletableFuture.completedFuture(null);
+          for (int i : group)
+            chain = chain.thenCompose(previous -> loader.loadAsync(dataList.get(i), executor).thenAccept(r -> reports[i] = r));
+          futures.add(chain);
+        }
+
+        for (CompletableFuture<?> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            failures.add(e.getCause());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.add(e);
+            break;
+          }
+        }
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+
+    rethrow(failures, data.size());
+    return Arrays.asList(reports);
+  }
+
+  /**
+   * Gets the executor used by default to run asynchronous loads (see {@link EsDataLoader#getAsyncExecutor()}): a shared,
+   * unbounded pool of daemon threads, created on demand (and released when idle).
+   *
+   * @return the default executor
+   */
+  static Executor defaultAsyncExecutor() {
+    return DefaultAsyncExecutorHolder.EXECUTOR;
+  }
+
+  private static ThreadFactory daemonThreadFactory(final String namePrefix) {
+    return r -> {
+      Thread t = new Thread(r, namePrefix + THREAD_COUNTER.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  private static final class DefaultAsyncExecutorHolder {
+    static final Executor EXECUTOR = Executors.newCachedThreadPool(daemonThreadFactory("esdata-async-"));
+  }
+
+  private static void loadGroup(final EsDataLoader loader, final List<IndexData> data, final List<Integer> group,
+                                final LoadReport[] reports, final List<Throwable> failures) {
+    try {
+      group.forEach(i -> reports[i] = loader.load(data.get(i)));
+    } catch (RuntimeException e) {
+      failures.add(e);
+    }
+  }
+
+  private static void rethrow(final List<Throwable> failures, final int nbData) {
+    if (failures.isEmpty())
+      return;
+
+    if (failures.size() == 1) {
+      Throwable t = failures.get(0);
+      if (t instanceof RuntimeException)
+        throw (RuntimeException) t;
+      if (t instanceof Error)
+        throw (Error) t;
+    }
+
+    IllegalStateException e = new IllegalStateException(
+      String.format("Failed to load %d out of %d data. See suppressed exceptions for details", failures.size(), nbData));
+    failures.forEach(e::addSuppressed);
+    throw e;
+  }
+}
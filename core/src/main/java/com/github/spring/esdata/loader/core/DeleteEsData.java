@@ -30,4 +30,12 @@ public @interface DeleteEsData {
   @AliasFor("esEntityClasses")
   Class<?>[] value() default {};
 
+  /**
+   * Strategy used to delete the data. By default, the indices are dropped and recreated.
+   *
+   * @return strategy used to delete the data
+   * @see DeleteStrategy
+   */
+  DeleteStrategy strategy() default DeleteStrategy.RECREATE;
+
 }
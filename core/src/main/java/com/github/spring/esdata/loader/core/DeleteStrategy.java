@@ -0,0 +1,27 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Enum defining the strategies supported by the tool to delete data from an Elasticsearch index.
+ */
+public enum DeleteStrategy {
+  /**
+   * The index is dropped and recreated, along with its mapping (<i>default</i>).
+   */
+  RECREATE,
+  /**
+   * The index and its mapping are kept, only the documents are removed (with a sliced <code>_delete_by_query</code>).
+   * This avoids the cluster state updates (and thus the round trips to the master node) implied by recreating the index.
+   */
+  TRUNCATE,
+  /**
+   * Picks the cheapest strategy: {@link #TRUNCATE} when the index already exists with a mapping that is unchanged by the
+   * mapping class, {@link #RECREATE} otherwise.
+   * <br>
+   * <b>Note:</b> only the mapping is checked, changes made to the settings of the index (like analyzers) require {@link #RECREATE}.
+   */
+  AUTO,
+  /**
+   * The index is dropped, and not recreated (e.g to clean isolated indices up, see {@link IsolateEsData}).
+   */
+  DROP
+}
@@ -0,0 +1,195 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} over the (non empty) lines of a range of a local file, read through memory-mapped regions of a
+ * {@link FileChannel}.
+ * <br>
+ * Unlike {@link java.io.BufferedReader#lines()}, it splits well: the range of bytes is cut in halves, at line boundaries,
+ * so that a parallel stream of the lines of a {@link EsDataFormat#DUMP} file gets balanced chunks to parse on each core.
+ * The number of lines is estimated from the average length of the first lines.
+ *
+ * @author tinesoft
+ */
+final class DumpLineSpliterator implements Spliterator<String> {
+
+  /**
+   * Ranges smaller than this are not split anymore.
+   */
+  private static final long MIN_SPLIT_SIZE = 1024 * 1024;
+
+  /**
+   * Number of bytes looked at to find a line boundary, or to estimate the average length of the lines.
+   */
+  private static final int PROBE_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final long windowSize;
+  private final long averageLineLength;
+  private long start;
+  private final long end;
+
+  private MappedByteBuffer window;
+  private long windowStart;
+  private int position;
+  private byte[] lineBuffer = new byte[1024];
+
+  /**
+   * @param channel    the channel of the file
+   * @param start      the start of the range of bytes (must be the start of a line)
+   * @param end        the end of the range of bytes (must be the end of a line, or of the file)
+   * @param windowSize size of the regions of the file that are mapped at once (must be bigger than any line)
+   * @throws IOException if the file could not be read
+   */
+  DumpLineSpliterator(final FileChannel channel, final long start, final long end, final long windowSize) throws IOException {
+    this(channel, start, end, windowSize, averageLineLength(channel, start, end));
+  }
+
+  private DumpLineSpliterator(final FileChannel channel, final long start, final long end, final long windowSize,
+                              final long averageLineLength) {
+    this.channel = channel;
+    this.start = start;
+    this.end = end;
+    this.windowSize = windowSize;
+    this.averageLineLength = averageLineLength;
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super String> action) {
+    String line;
+    do {
+      line = this.nextLine();
+      if (line == null)
+        return false;
+    } while (line.isEmpty());
+    action.accept(line);
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(final Consumer<? super String> action) {
+    String line;
+    while ((line = this.nextLine()) != null) {
+      if (!line.isEmpty())
+        action.accept(line);
+    }
+  }
+
+  /**
+   * Splits off the first half of the remaining range (at a line boundary), as long as the traversal has not started.
+   */
+  @Override
+  public Spliterator<String> trySplit() {
+    if (this.window != null || this.end - this.start < 2 * MIN_SPLIT_SIZE)
+      return null;
+
+    long middle;
+    try {
+      middle = this.nextLineStart(this.start + (this.end - this.start) / 2);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (middle >= this.end)
+      return null;
+
+    DumpLineSpliterator prefix = new DumpLineSpliterator(this.channel, this.start, middle, this.windowSize, this.averageLineLength);
+    this.start = middle;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    long remaining = this.window == null ? this.end - this.start : this.end - this.windowStart - this.position;
+    return Math.max(1, remaining / this.averageLineLength);
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL | IMMUTABLE;
+  }
+
+  /**
+   * @return the next line (that may be empty), or {@code null} if the end of the range is reached
+   */
+  private String nextLine() {
+    try {
+      while (true) {
+        if (this.window == null || this.position == this.window.limit()) {
+          long next = this.window == null ? this.start : this.windowStart + this.window.limit();
+          if (next >= this.end)
+            return null;
+          this.map(next);
+        }
+
+        int lineStart = this.position;
+        int limit = this.window.limit();
+        int i = lineStart;
+        while (i < limit && this.window.get(i) != '\n')
+          i++;
+
+        if (i < limit || this.windowStart + limit == this.end) {
+          this.position = Math.min(i + 1, limit);
+          return this.decode(lineStart, i);
+        }
+
+        // the line goes on in the next region: map again, from the start of the line
+        if (lineStart == 0)
+          throw new IllegalStateException("Line longer than " + this.windowSize + " bytes, at offset " + this.windowStart);
+        this.map(this.windowStart + lineStart);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String decode(final int from, int to) {
+    if (to > from && this.window.get(to - 1) == '\r')
+      to--;
+    int length = to - from;
+    if (length > this.lineBuffer.length)
+      this.lineBuffer = new byte[Math.max(length, 2 * this.lineBuffer.length)];
+    for (int i = 0; i < length; i++)
+      this.lineBuffer[i] = this.window.get(from + i);
+    return new String(this.lineBuffer, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private void map(final long position) throws IOException {
+    this.windowStart = position;
+    this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(this.windowSize, this.end - position));
+    this.position = 0;
+  }
+
+  /**
+   * @return the position of the start of the first line that begins after the given position (or the end of the range)
+   */
+  private long nextLineStart(long position) throws IOException {
+    while (position < this.end) {
+      MappedByteBuffer probe = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(PROBE_SIZE, this.end - position));
+      for (int i = 0; i < probe.limit(); i++) {
+        if (probe.get(i) == '\n')
+          return position + i + 1;
+      }
+      position += probe.limit();
+    }
+    return this.end;
+  }
+
+  private static long averageLineLength(final FileChannel channel, final long start, final long end) throws IOException {
+    if (end <= start)
+      return 1;
+    MappedByteBuffer probe = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(PROBE_SIZE, end - start));
+    int nbLines = 0;
+    for (int i = 0; i < probe.limit(); i++) {
+      if (probe.get(i) == '\n')
+        nbLines++;
+    }
+    return Math.max(1, probe.limit() / Math.max(1, nbLines));
+  }
+}
@@ -0,0 +1,132 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gives access to the Elasticsearch operations that are not exposed by Spring Data's {@link ElasticsearchOperations}
+ * (like server-side reindexing), by using the underlying client (either a {@code TransportClient} or a {@code RestHighLevelClient}).
+ *
+ * @author tinesoft
+ */
+abstract class EsAdminClient {
+
+  private static final String TRANSPORT_CLIENT_CLASS = "org.elasticsearch.client.Client";
+  private static final String REST_HIGH_LEVEL_CLIENT_CLASS = "org.elasticsearch.client.RestHighLevelClient";
+
+  /**
+   * Maximum number of documents searched by id in a single request.
+   */
+  static final int IDS_PER_REQUEST = 1000;
+
+  /**
+   * Tells whether the client used by the given {@link ElasticsearchOperations} is supported.
+   *
+   * @param esOperations the {@link ElasticsearchOperations}
+   * @return {@code true} if {@link #of(ElasticsearchOperations)} can wrap its client, {@code false} otherwise
+   */
+  static boolean supports(final ElasticsearchOperations esOperations) {
+    Object client = esOperations.getClient();
+    ClassLoader classLoader = EsAdminClient.class.getClassLoader();
+    return ClassUtils.isPresent(TRANSPORT_CLIENT_CLASS, classLoader) && TransportEsAdminClient.supports(client)
+      || ClassUtils.isPresent(REST_HIGH_LEVEL_CLIENT_CLASS, classLoader) && RestEsAdminClient.supports(client);
+  }
+
+  /**
+   * Returns the {@link EsAdminClient} that wraps the client used by the given {@link ElasticsearchOperations}.
+   *
+   * @param esOperations the {@link ElasticsearchOperations}
+   * @return the {@link EsAdminClient}
+   * @throws UnsupportedOperationException if the underlying client is not supported
+   */
+  static EsAdminClient of(final ElasticsearchOperations esOperations) {
+    Object client = esOperations.getClient();
+    ClassLoader classLoader = EsAdminClient.class.getClassLoader();
+
+    // client classes are only referenced by the implementations, once they are known to be present
+    if (ClassUtils.isPresent(TRANSPORT_CLIENT_CLASS, classLoader) && TransportEsAdminClient.supports(client))
+      return new TransportEsAdminClient(client);
+    if (ClassUtils.isPresent(REST_HIGH_LEVEL_CLIENT_CLASS, classLoader) && RestEsAdminClient.supports(client))
+      return new RestEsAdminClient(client);
+
+    throw new UnsupportedOperationException("Unsupported Elasticsearch client: " + (client != null ? client.getClass().getName() : null));
+  }
+
+  /**
+   * Copies (server-side) all the documents of the source index into the destination index, then refreshes the latter.
+   *
+   * @param sourceIndex the index to copy documents from
+   * @param destIndex   the index to copy documents to
+   */
+  abstract void reindex(String sourceIndex, String destIndex);
+
+  /**
+   * Deletes (server-side) all the documents of the given index, with as many slices as shards, then refreshes the index.
+   *
+   * @param index the index to delete documents from
+   */
+  abstract void deleteAll(String index);
+
+  /**
+   * Updates the (dynamic) settings of the given index.
+   *
+   * @param index    the index to update
+   * @param settings the settings to update, with their full name (e.g <code>index.refresh_interval</code>). A {@code null}
+   *                 value resets the setting to its default value
+   */
+  abstract void updateSettings(String index, Map<String, Object> settings);
+
+  /**
+   * Sends the given chunk of a file in {@link EsDataFormat#BULK} format as is, in a single bulk request.
+   *
+   * @param defaultIndex the index of the actions that do not define their <code>_index</code>
+   * @param defaultType  the type of the actions that do not define their <code>_type</code>
+   * @param data         the buffer holding the actions (and their sources), as newline delimited JSON
+   * @param length       the number of bytes of the buffer to send
+   * @throws IllegalStateException if any of the actions failed
+   */
+  abstract void bulk(String defaultIndex, String defaultType, byte[] data, int length);
+
+  /**
+   * Gets the maximum sequence number of each primary shard of the given index. As every write operation (index, update
+   * or delete) increments the sequence number of its shard, these numbers change as soon as the content of the index does.
+   *
+   * @param index the index
+   * @return the maximum sequence number of each primary shard (<code>-1</code> for a shard that was never written to),
+   * by shard number
+   */
+  abstract long[] maxSeqNos(String index);
+
+  /**
+   * Finds the documents written (i.e created or updated) after the given watermark, i.e whose sequence number is greater than
+   * the max sequence number of their shard in the watermark.
+   *
+   * @param index     the index (already refreshed)
+   * @param watermark the max sequence number of each primary shard of the index, by shard number (see {@link #maxSeqNos(String)})
+   * @param max       maximum number of ids to return
+   * @return the ids of the documents written after the watermark (at most <code>max</code>)
+   */
+  abstract List<String> findIdsWrittenAfter(String index, long[] watermark, int max);
+
+  /**
+   * Finds which of the given documents exist in the given index.
+   *
+   * @param index the index (already refreshed)
+   * @param ids   the ids of the documents to look for
+   * @return the ids of the documents that exist
+   */
+  abstract Set<String> findExistingIds(String index, Collection<String> ids);
+
+  /**
+   * Counts the documents of the given index.
+   *
+   * @param index the index (already refreshed)
+   * @return the number of documents in the index
+   */
+  abstract long count(String index);
+}
@@ -0,0 +1,31 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Content of an index at a given time, recorded by {@link EsDataLoader#checkpoint(Class)}, that the index can be
+ * {@linkplain EsDataLoader#rollback(EsDataCheckpoint) rolled back} to.
+ *
+ * @author tinesoft
+ */
+public final class EsDataCheckpoint {
+
+  private final Class<?> esEntityClass;
+  final IndexContent content;
+
+  /**
+   * @param esEntityClass the mapping class of the index
+   * @param content       the content of the index (along with its watermark)
+   */
+  EsDataCheckpoint(final Class<?> esEntityClass, final IndexContent content) {
+    this.esEntityClass = esEntityClass;
+    this.content = content;
+  }
+
+  public Class<?> getEsEntityClass() {
+    return this.esEntityClass;
+  }
+
+  @Override
+  public String toString() {
+    return "EsDataCheckpoint{esEntityClass=" + this.esEntityClass.getSimpleName() + "}";
+  }
+}
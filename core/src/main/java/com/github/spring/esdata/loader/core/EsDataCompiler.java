@@ -0,0 +1,188 @@
+package com.github.spring.esdata.loader.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Command line utility to compile data files (in {@link EsDataFormat#DUMP} or {@link EsDataFormat#MANUAL} format,
+ * gzipped or not) into files in {@link EsDataFormat#COMPILED} format, that are loaded without any text parsing.
+ * <br>
+ * The documents are validated once (at build time), and stored as <a href="https://github.com/FasterXML/smile-format-specification">Smile</a>
+ * (binary JSON) documents, along with their ids and an index of their offsets:
+ * <pre>
+ * magic      : 'E' 'S' 'D' 'C' (4 bytes)
+ * version    : 1 (1 byte)
+ * nbDocuments: int
+ * offsets    : nbDocuments x long (offset of each document, from the end of the offsets)
+ * documents  : nbDocuments x [hasId: boolean] [id: UTF (if hasId)] [length: int] [Smile document: length bytes]
+ * </pre>
+ * Usage: <code>java -cp spring-esdata-loader-core.jar com.github.spring.esdata.loader.core.EsDataCompiler &lt;targetDir&gt; &lt;source&gt;...</code>
+ * (each source, like <code>authors.json</code> or <code>authors.json.gz</code>, is compiled into <code>&lt;targetDir&gt;/authors.esdata</code>:
+ * sources that would be compiled into the same file are rejected).
+ *
+ * @author tinesoft
+ */
+public final class EsDataCompiler {
+
+  static final byte[] MAGIC = {'E', 'S', 'D', 'C'};
+  static final byte VERSION = 1;
+
+  /**
+   * Extension of the compiled files.
+   */
+  public static final String EXTENSION = ".esdata";
+
+  static final SmileFactory SMILE_FACTORY = new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private EsDataCompiler() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: EsDataCompiler <targetDir> <source>...");
+      System.exit(1);
+    }
+    Path targetDir = Paths.get(args[0]);
+    Map<String, Path> sources = new LinkedHashMap<>();
+    for (String arg : Arrays.copyOfRange(args, 1, args.length)) {
+      Path source = Paths.get(arg);
+      Path previous = sources.put(getCompiledFileName(source.getFileName().toString()), source);
+      if (previous != null)// e.g 'authors.json' and 'authors.json.gz'
+        throw new IllegalArgumentException("Data files '" + previous + "' and '" + source + "' would be compiled into the same file: "
+          + getCompiledFileName(source.getFileName().toString()));
+    }
+    Files.createDirectories(targetDir);
+    for (Map.Entry<String, Path> source : sources.entrySet())
+      compile(source.getValue(), targetDir.resolve(source.getKey()));
+  }
+
+  /**
+   * Gets the name of the compiled file of the given data file, by replacing its extension(s) with {@link #EXTENSION}.
+   *
+   * @param fileName the name of the data file (like <code>authors.json</code> or <code>authors.json.gz</code>)
+   * @return the name of the compiled file (like <code>authors.esdata</code>)
+   */
+  public static String getCompiledFileName(final String fileName) {
+    String name = fileName.endsWith(".gz") ? fileName.substring(0, fileName.length() - 3) : fileName;
+    int dot = name.lastIndexOf('.');
+    return (dot > 0 ? name.substring(0, dot) : name) + EXTENSION;
+  }
+
+  /**
+   * Compiles the given data file (gzipped or not) into a file in {@link EsDataFormat#COMPILED} format.
+   *
+   * @param source the file to compile (in {@link EsDataFormat#DUMP} or {@link EsDataFormat#MANUAL} format)
+   * @param target the compiled file
+   * @throws IOException if the file could not be compiled
+   */
+  public static void compile(final Path source, final Path target) throws IOException {
+    Path absoluteTarget = target.toAbsolutePath();
+    Path tmpFile = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName().toString(), ".tmp");
+    try {
+      try (BufferedInputStream is = BgzfRepack.open(source); //
+           OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmpFile), 1024 * 1024)) {
+        compile(is, os, absoluteTarget.getParent());
+      }
+      Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  /**
+   * Compiles the given (uncompressed) content into the {@link EsDataFormat#COMPILED} format.
+   *
+   * @param is       the content to compile
+   * @param os       the stream to write the compiled content to
+   * @param spoolDir directory where the documents are spooled, until their offsets are all known
+   * @throws IOException if the content could not be compiled
+   */
+  static void compile(final BufferedInputStream is, final OutputStream os, final Path spoolDir) throws IOException {
+    EsDataFormat format = SpringEsDataLoader.getEsDataFormat(is, EsDataFormat.UNKNOWN);
+    if (format != EsDataFormat.DUMP && format != EsDataFormat.MANUAL)
+      throw new IllegalArgumentException("Only data in EsDataFormat.DUMP or EsDataFormat.MANUAL format can be compiled, not " + format);
+
+    LoadStatistics statistics = new LoadStatistics();
+    InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+    Path spoolFile = Files.createTempFile(spoolDir, "esdata", ".documents");
+    try {
+      long[] offsets = new long[1024];
+      int nbDocuments = 0;
+      try (Stream<EsDocument> documents = format == EsDataFormat.DUMP //
+        ? EsDocumentReader.readDump(new BufferedReader(reader), 0, Long.MAX_VALUE, statistics) //
+        : EsDocumentReader.readManual(reader, 0, Long.MAX_VALUE, statistics); //
+           DataOutputStream spool = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spoolFile), 1024 * 1024))) {
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(1024);
+        ByteArrayOutputStream smile = new ByteArrayOutputStream(1024);
+        long offset = 0;
+        for (Iterator<EsDocument> it = documents.iterator(); it.hasNext(); ) {
+          if (nbDocuments == offsets.length)
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+          offsets[nbDocuments++] = offset;
+          writeDocument(it.next(), record, smile);
+          record.writeTo(spool);
+          offset += record.size();
+        }
+      }
+
+      DataOutputStream out = new DataOutputStream(os);
+      out.write(MAGIC);
+      out.writeByte(VERSION);
+      out.writeInt(nbDocuments);
+      for (int i = 0; i < nbDocuments; i++)
+        out.writeLong(offsets[i]);
+      Files.copy(spoolFile, out);
+      out.flush();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      Files.deleteIfExists(spoolFile);
+    }
+  }
+
+  /**
+   * Writes the record of the given document: its id, then its source as a Smile document.
+   */
+  private static void writeDocument(final EsDocument document, final ByteArrayOutputStream record, final ByteArrayOutputStream smile)
+    throws IOException {
+    smile.reset();
+    try (JsonParser jsonParser = JSON_FACTORY.createParser(document.getSource()); //
+         JsonGenerator smileGenerator = SMILE_FACTORY.createGenerator(smile)) {
+      jsonParser.nextToken();
+      smileGenerator.copyCurrentStructure(jsonParser);// also validates the source
+    }
+
+    record.reset();
+    DataOutputStream out = new DataOutputStream(record);
+    out.writeBoolean(document.getId() != null);
+    if (document.getId() != null)
+      out.writeUTF(document.getId());
+    out.writeInt(smile.size());
+    smile.writeTo(out);
+  }
+}
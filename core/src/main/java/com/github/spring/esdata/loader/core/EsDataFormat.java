@@ -12,6 +12,20 @@ public enum EsDataFormat {
    * Format of data as manually created by User. Must be an array of JSON objects, each representing the actual content to put into related ES index.
    */
   MANUAL,
+  /**
+   * Format of data expected by the <code>_bulk</code> API of Elasticsearch: newline delimited JSON, made of action lines
+   * (<code>index</code>, <code>create</code>, <code>update</code> or <code>delete</code>), each followed by a source line (except for <code>delete</code>).
+   * The content is sent to Elasticsearch as is (in chunks), without parsing nor re-serializing the documents.
+   * All the actions target the index (and type) of the mapping class: the <code>_index</code> and <code>_type</code> of action lines
+   * defining their own are stripped.
+   */
+  BULK,
+  /**
+   * Binary format of data compiled (at build time) from data in {@link #DUMP} or {@link #MANUAL} format, by the {@link EsDataCompiler}:
+   * documents are stored as Smile (binary JSON), along with their ids and an index of their offsets, and are loaded without any text parsing.
+   * Skipped documents are not even read.
+   */
+  COMPILED,
 
   UNKNOWN
 }
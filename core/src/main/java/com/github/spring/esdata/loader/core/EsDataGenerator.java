@@ -0,0 +1,241 @@
+package com.github.spring.esdata.loader.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.context.MappingContext;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic documents for a mapping class, from the types of its properties (as known by the Spring Data
+ * mapping), instead of reading them from a file (see {@link GenerateEsData}).
+ * <br>
+ * Values are pseudo-random, but deterministic: the document at a given position only depends on the seed and on its
+ * position, so documents can be generated in parallel, and a given seed always gives the same data. The id of each
+ * document is its position.
+ * <br><br>
+ * Supported property types are: {@link String} (sentences for {@link FieldType#Text} fields, keywords otherwise), numbers,
+ * {@link Boolean}, enums, dates ({@link Date}, {@link Calendar} and {@link Instant} as epoch millis, {@link LocalDate} and
+ * {@link LocalDateTime} as ISO strings), collections of those, and nested entities. Properties of other types are left out.
+ *
+ * @author tinesoft
+ */
+final class EsDataGenerator {
+
+  /**
+   * Prefix of the {@linkplain IndexData#getLocation() location} of generated data, followed by their seed.
+   */
+  static final String LOCATION_PREFIX = "generated:seed=";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+    "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango",
+    "uniform", "victor", "whiskey", "xray", "yankee", "zulu", "search", "index", "shard", "node", "cluster", "query"};
+
+  private static final int KEYWORD_CARDINALITY = 1000;
+  private static final long DATE_ORIGIN = 946684800000L;// 2000-01-01T00:00:00Z
+  private static final long DATE_RANGE = 30L * 365 * 24 * 3600 * 1000;// ~30 years
+  private static final int MAX_COLLECTION_SIZE = 3;
+  private static final int MAX_DEPTH = 3;// of nested entities
+
+  private final long seed;
+  private final List<FieldGenerator> fields;
+
+  private EsDataGenerator(final long seed, final List<FieldGenerator> fields) {
+    this.seed = seed;
+    this.fields = fields;
+  }
+
+  /**
+   * @param seed the seed of the data
+   * @return the location of data generated with the given seed
+   */
+  static String locationOf(final long seed) {
+    return LOCATION_PREFIX + seed;
+  }
+
+  /**
+   * @param location the location of data
+   * @return {@code true} if the location is the one of generated data, {@code false} otherwise
+   */
+  static boolean isGenerated(final String location) {
+    return location.startsWith(LOCATION_PREFIX);
+  }
+
+  /**
+   * Creates a generator for the given entity.
+   *
+   * @param esOperations the {@link ElasticsearchOperations} (to get the mapping of the entity)
+   * @param esEntityInfo the information about the target entity
+   * @param location     the location of the data to generate (see {@link #locationOf(long)})
+   * @return the generator
+   * @throws IllegalArgumentException if the location is not a valid location of generated data
+   */
+  static EsDataGenerator of(final ElasticsearchOperations esOperations, final ElasticsearchPersistentEntity<?> esEntityInfo,
+                            final String location) {
+    long seed;
+    try {
+      seed = Long.parseLong(location.substring(LOCATION_PREFIX.length()));
+    } catch (IndexOutOfBoundsException | NumberFormatException e) {
+      throw new IllegalArgumentException("Not a valid location of generated data: '" + location + "'", e);
+    }
+    MappingContext<? extends ElasticsearchPersistentEntity<?>, ElasticsearchPersistentProperty> mappingContext =
+      esOperations.getElasticsearchConverter().getMappingContext();
+    return new EsDataGenerator(seed, fieldsOf(mappingContext, esEntityInfo, 0));
+  }
+
+  /**
+   * Generates the documents at the given positions, in parallel.
+   *
+   * @param from position of the first document (inclusive)
+   * @param to   position of the last document (exclusive)
+   * @return an unordered, parallel {@link Stream} of documents
+   */
+  Stream<EsDocument> generate(final long from, final long to) {
+    return LongStream.range(from, to).parallel().unordered().mapToObj(this::generate);
+  }
+
+  /**
+   * Generates the document at the given position.
+   *
+   * @param position the position of the document
+   * @return the document
+   */
+  EsDocument generate(final long position) {
+    SplittableRandom random = new SplittableRandom(this.seed ^ (position * 0x9E3779B97F4A7C15L));
+    StringWriter writer = new StringWriter(256);
+    try (JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(writer)) {
+      writeObject(jsonGenerator, this.fields, random, position);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new EsDocument(String.valueOf(position), writer.toString());
+  }
+
+  private static void writeObject(final JsonGenerator jsonGenerator, final List<FieldGenerator> fields,
+                                  final SplittableRandom random, final long position) throws IOException {
+    jsonGenerator.writeStartObject();
+    for (FieldGenerator field : fields) {
+      jsonGenerator.writeFieldName(field.name);
+      field.value.write(jsonGenerator, random, position);
+    }
+    jsonGenerator.writeEndObject();
+  }
+
+  private static List<FieldGenerator> fieldsOf(final MappingContext<? extends ElasticsearchPersistentEntity<?>, ElasticsearchPersistentProperty> mappingContext,
+                                               final ElasticsearchPersistentEntity<?> entity, final int depth) {
+    final List<FieldGenerator> fields = new ArrayList<>();
+    entity.doWithProperties((PropertyHandler<ElasticsearchPersistentProperty>) p -> {
+      ValueGenerator value = valueOf(mappingContext, p, depth);
+      if (value != null)
+        fields.add(new FieldGenerator(p.getFieldName(), value));
+    });
+    return fields;
+  }
+
+  private static ValueGenerator valueOf(final MappingContext<? extends ElasticsearchPersistentEntity<?>, ElasticsearchPersistentProperty> mappingContext,
+                                        final ElasticsearchPersistentProperty property, final int depth) {
+    Field field = property.findAnnotation(Field.class);
+    FieldType fieldType = field != null ? field.type() : FieldType.Auto;
+
+    if (property.isIdProperty()) {
+      return Number.class.isAssignableFrom(property.getType()) || property.getType().isPrimitive()
+        ? (g, r, position) -> g.writeNumber(position)//
+        : (g, r, position) -> g.writeString(String.valueOf(position));
+    }
+    if (property.isMap())
+      return null;
+
+    ValueGenerator value = valueOf(mappingContext, property.getActualType(), fieldType, property.getFieldName(), depth);
+    if (value == null || !property.isCollectionLike())
+      return value;
+
+    return (g, r, position) -> {
+      g.writeStartArray();
+      for (int i = r.nextInt(MAX_COLLECTION_SIZE + 1); i > 0; i--)
+        value.write(g, r, position);
+      g.writeEndArray();
+    };
+  }
+
+  private static ValueGenerator valueOf(final MappingContext<? extends ElasticsearchPersistentEntity<?>, ElasticsearchPersistentProperty> mappingContext,
+                                        final Class<?> type, final FieldType fieldType, final String name, final int depth) {
+    if (type == String.class) {
+      return fieldType == FieldType.Text
+        ? (g, r, position) -> g.writeString(sentence(r))//
+        : (g, r, position) -> g.writeString(name + "-" + r.nextInt(KEYWORD_CARDINALITY));
+    }
+    if (type == Integer.class || type == int.class || type == Short.class || type == short.class)
+      return (g, r, position) -> g.writeNumber(r.nextInt(Short.MAX_VALUE));
+    if (type == Long.class || type == long.class)
+      return (g, r, position) -> g.writeNumber(r.nextLong(Integer.MAX_VALUE));
+    if (type == Double.class || type == double.class || type == Float.class || type == float.class)
+      return (g, r, position) -> g.writeNumber(r.nextDouble() * 1000);
+    if (type == Boolean.class || type == boolean.class)
+      return (g, r, position) -> g.writeBoolean(r.nextBoolean());
+    if (type.isEnum()) {
+      Object[] constants = type.getEnumConstants();
+      return (g, r, position) -> g.writeString(((Enum<?>) constants[r.nextInt(constants.length)]).name());
+    }
+    if (Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type) || type == Instant.class)
+      return (g, r, position) -> g.writeNumber(DATE_ORIGIN + r.nextLong(DATE_RANGE));
+    if (type == LocalDate.class)
+      return (g, r, position) -> g.writeString(LocalDate.ofEpochDay((DATE_ORIGIN + r.nextLong(DATE_RANGE)) / 86400000L).toString());
+    if (type == LocalDateTime.class)
+      return (g, r, position) -> g.writeString(LocalDateTime.ofEpochSecond((DATE_ORIGIN + r.nextLong(DATE_RANGE)) / 1000, 0, ZoneOffset.UTC).toString());
+
+    ElasticsearchPersistentEntity<?> entity = depth < MAX_DEPTH ? mappingContext.getPersistentEntity(type) : null;
+    if (entity == null)
+      return null;// unsupported type
+    List<FieldGenerator> fields = fieldsOf(mappingContext, entity, depth + 1);
+    return (g, r, position) -> writeObject(g, fields, r, position);
+  }
+
+  private static String sentence(final SplittableRandom random) {
+    StringBuilder sb = new StringBuilder(64);
+    for (int i = 3 + random.nextInt(6); i > 0; i--) {
+      if (sb.length() > 0)
+        sb.append(' ');
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes a (random) JSON value.
+   */
+  @FunctionalInterface
+  private interface ValueGenerator {
+    void write(JsonGenerator jsonGenerator, SplittableRandom random, long position) throws IOException;
+  }
+
+  private static final class FieldGenerator {
+    final String name;
+    final ValueGenerator value;
+
+    FieldGenerator(final String name, final ValueGenerator value) {
+      this.name = name;
+      this.value = value;
+    }
+  }
+}
@@ -1,7 +1,122 @@
 package com.github.spring.esdata.loader.core;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public interface EsDataLoader {
-  void delete(Class<?> esEntityClass);
 
-  void load(IndexData d);
+  /**
+   * Default maximum number of {@link IndexData} loaded concurrently by {@link #loadAll(Collection, int)}.
+   */
+  int DEFAULT_CONCURRENCY = 4;
+
+  LoadReport delete(Class<?> esEntityClass);
+
+  /**
+   * Deletes data from Elasticsearch using provided class to retrieve related index, and the given strategy.
+   * Implementations that do not support strategies simply {@linkplain #delete(Class) delete} the data.
+   *
+   * @param esEntityClass the mapping class of the data to delete
+   * @param strategy      the strategy used to delete the data
+   * @return the report of the deletion
+   */
+  default LoadReport delete(Class<?> esEntityClass, DeleteStrategy strategy) {
+    return this.delete(esEntityClass);
+  }
+
+  LoadReport load(IndexData d);
+
+  /**
+   * Gets the executor that runs the asynchronous loads (and deletions) by default.
+   * Unless overridden, it is a shared pool of daemon threads, created on demand.
+   *
+   * @return the executor of the asynchronous loads
+   */
+  default Executor getAsyncExecutor() {
+    return ConcurrentLoads.defaultAsyncExecutor();
+  }
+
+  /**
+   * Loads the given data asynchronously, on the {@linkplain #getAsyncExecutor() default executor}.
+   *
+   * @param d the data to load
+   * @return a future completed with the report of the load (or with its failure)
+   */
+  default CompletableFuture<LoadReport> loadAsync(IndexData d) {
+    return this.loadAsync(d, this.getAsyncExecutor());
+  }
+
+  /**
+   * Loads the given data asynchronously, on the given executor. The {@linkplain EsIndexNamespace index namespace} of the
+   * calling thread is used.
+   *
+   * @param d        the data to load
+   * @param executor the executor to run the load on
+   * @return a future completed with the report of the load (or with its failure)
+   */
+  default CompletableFuture<LoadReport> loadAsync(IndexData d, Executor executor) {
+    return CompletableFuture.supplyAsync(EsIndexNamespace.wrap(() -> this.load(d)), executor);
+  }
+
+  /**
+   * Deletes data asynchronously (see {@link #delete(Class)}), on the {@linkplain #getAsyncExecutor() default executor}.
+   *
+   * @param esEntityClass the mapping class of the data to delete
+   * @return a future completed with the report of the deletion (or with its failure)
+   */
+  default CompletableFuture<LoadReport> deleteAsync(Class<?> esEntityClass) {
+    return CompletableFuture.supplyAsync(EsIndexNamespace.wrap(() -> this.delete(esEntityClass)), this.getAsyncExecutor());
+  }
+
+  /**
+   * Deletes data asynchronously (see {@link #delete(Class, DeleteStrategy)}), on the given executor.
+   *
+   * @param esEntityClass the mapping class of the data to delete
+   * @param strategy      the strategy used to delete the data
+   * @param executor      the executor to run the deletion on
+   * @return a future completed with the report of the deletion (or with its failure)
+   */
+  default CompletableFuture<LoadReport> deleteAsync(Class<?> esEntityClass, DeleteStrategy strategy, Executor executor) {
+    return CompletableFuture.supplyAsync(EsIndexNamespace.wrap(() -> this.delete(esEntityClass, strategy)), executor);
+  }
+
+  /**
+   * Records the current content of the index of the given class, to {@linkplain #rollback(EsDataCheckpoint) roll it back} to later.
+   * Unless overridden, rollbacks are not supported.
+   *
+   * @param esEntityClass the mapping class of the index
+   * @return the checkpoint
+   * @throws UnsupportedOperationException if rollbacks are not supported
+   */
+  default EsDataCheckpoint checkpoint(Class<?> esEntityClass) {
+    throw new UnsupportedOperationException("Rollback is not supported by " + this.getClass().getName());
+  }
+
+  /**
+   * Brings the index of the given checkpoint back to its content at the time of the checkpoint, by only reverting the
+   * documents written since. Unless overridden, rollbacks are not supported.
+   *
+   * @param checkpoint the checkpoint (see {@link #checkpoint(Class)})
+   * @return the report of the rollback
+   * @throws UnsupportedOperationException if rollbacks are not supported
+   */
+  default LoadReport rollback(EsDataCheckpoint checkpoint) {
+    throw new UnsupportedOperationException("Rollback is not supported by " + this.getClass().getName());
+  }
+
+  /**
+   * Loads the given data, with up to <code>concurrency</code> of them loaded at the same time. Data targeting the same
+   * mapping class are loaded one after another, in the given order.
+   * <br>
+   * All the data are loaded even if some of the loads fail, failures are then reported all together.
+   *
+   * @param data        the data to load
+   * @param concurrency maximum number of data loaded concurrently
+   * @return the reports of the loads, in the order of the given data
+   */
+  default List<LoadReport> loadAll(Collection<IndexData> data, int concurrency) {
+    return ConcurrentLoads.loadAll(this, data, concurrency);
+  }
 }
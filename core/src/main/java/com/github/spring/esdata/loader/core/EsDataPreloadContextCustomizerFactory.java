@@ -0,0 +1,89 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.core.annotation.AnnotatedElementUtils.findMergedAnnotation;
+
+/**
+ * {@link ContextCustomizerFactory} that registers an {@link EsDataPreloader} into the test context of the classes
+ * annotated with {@link PreloadEsData}, so that their class level data start loading as soon as the
+ * {@link ElasticsearchOperations} bean is created.
+ * <br>
+ * It is registered in <code>META-INF/spring.factories</code>.
+ *
+ * @author tinesoft
+ */
+class EsDataPreloadContextCustomizerFactory implements ContextCustomizerFactory {
+
+  @Override
+  public ContextCustomizer createContextCustomizer(final Class<?> testClass,
+                                                   final List<ContextConfigurationAttributes> configAttributes) {
+    PreloadEsData preloadEsData = findMergedAnnotation(testClass, PreloadEsData.class);
+    if (preloadEsData == null)
+      return null;
+
+    return new EsDataPreloadContextCustomizer(SpringUtils.getPreloadedAnnotations(testClass), preloadEsData.concurrency());
+  }
+
+  /**
+   * Registers the {@link EsDataPreloader}, and starts it once the {@link ElasticsearchOperations} bean is initialized.
+   * <br>
+   * Customizers are part of the key of the cached test contexts: they are equal when they preload the same data.
+   */
+  private static final class EsDataPreloadContextCustomizer implements ContextCustomizer {
+
+    private final List<Annotation> annotations;// LoadEsData and GenerateEsData, compared by value
+    private final int concurrency;
+
+    EsDataPreloadContextCustomizer(final List<Annotation> annotations, final int concurrency) {
+      this.annotations = annotations;
+      this.concurrency = concurrency;
+    }
+
+    @Override
+    public void customizeContext(final ConfigurableApplicationContext context, final MergedContextConfiguration mergedConfig) {
+      List<IndexData> data = this.annotations.stream()//
+        .map(a -> a instanceof LoadEsData ? IndexData.of((LoadEsData) a) : IndexData.of((GenerateEsData) a))//
+        .collect(Collectors.toList());
+      EsDataPreloader preloader = new EsDataPreloader(data, this.concurrency);
+
+      ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+      beanFactory.registerSingleton(EsDataPreloader.BEAN_NAME, preloader);
+      beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(final Object bean, final String beanName) throws BeansException {
+          if (bean instanceof ElasticsearchOperations)
+            preloader.start((ElasticsearchOperations) bean);
+          return bean;
+        }
+      });
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o)
+        return true;
+      if (o == null || this.getClass() != o.getClass())
+        return false;
+      EsDataPreloadContextCustomizer that = (EsDataPreloadContextCustomizer) o;
+      return this.concurrency == that.concurrency && this.annotations.equals(that.annotations);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.annotations.hashCode() + this.concurrency;
+    }
+  }
+}
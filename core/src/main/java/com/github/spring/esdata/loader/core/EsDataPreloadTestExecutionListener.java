@@ -0,0 +1,36 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.TestExecutionListener;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+/**
+ * {@link TestExecutionListener} that waits, before the tests of a class annotated with {@link PreloadEsData} start, for
+ * the end of the loading of its data (started during the creation of the test context).
+ * <br>
+ * It is registered by default in <code>META-INF/spring.factories</code>, and only needs to be declared in
+ * {@code @TestExecutionListeners} when the default listeners are replaced.
+ *
+ * @author tinesoft
+ */
+public class EsDataPreloadTestExecutionListener extends AbstractTestExecutionListener {
+
+  /**
+   * Right after {@code DirtiesContextBeforeModesTestExecutionListener} (so that a context dirtied before the class is
+   * created again, and preloads its data), and before the dependencies of the test instance are injected.
+   */
+  private static final int ORDER = 1600;
+
+  @Override
+  public int getOrder() {
+    return ORDER;
+  }
+
+  @Override
+  public void beforeTestClass(final TestContext testContext) {
+    // the context is only created here for the classes that preload data
+    if (AnnotatedElementUtils.hasAnnotation(testContext.getTestClass(), PreloadEsData.class))
+      SpringUtils.awaitPreloadedData(testContext.getApplicationContext(), testContext.getTestClass());
+  }
+}
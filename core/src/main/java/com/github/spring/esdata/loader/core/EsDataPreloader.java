@@ -0,0 +1,98 @@
+package com.github.spring.esdata.loader.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Loads the data of a {@link PreloadEsData} test class in the background, from the moment the {@link ElasticsearchOperations}
+ * bean of the test context is created, and lets the tests wait for the end of the loading.
+ * <br>
+ * It is registered as a singleton of the test context by {@link EsDataPreloadContextCustomizerFactory}.
+ *
+ * @author tinesoft
+ */
+final class EsDataPreloader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EsDataPreloader.class);
+
+  /**
+   * Name of the preloader bean in the test context.
+   */
+  static final String BEAN_NAME = "esDataPreloader";
+
+  private final List<IndexData> data;
+  private final int concurrency;
+
+  private CompletableFuture<List<LoadReport>> preload;
+  private final Map<Class<?>, CompletableFuture<List<LoadReport>>> loadsByTestClass = new HashMap<>();
+
+  /**
+   * @param data        the data to preload
+   * @param concurrency maximum number of data loaded concurrently
+   */
+  EsDataPreloader(final List<IndexData> data, final int concurrency) {
+    this.data = data;
+    this.concurrency = concurrency;
+  }
+
+  /**
+   * Starts loading the data in the background, unless already started.
+   *
+   * @param esOperations the {@link ElasticsearchOperations} to load the data with
+   */
+  synchronized void start(final ElasticsearchOperations esOperations) {
+    if (this.preload != null)
+      return;
+    LOGGER.debug("Preloading {} data while the test context is being created", this.data.size());
+    this.preload = this.loadAsync(new SpringEsDataLoader(esOperations));
+  }
+
+  /**
+   * Waits for the data of the given test class to be loaded. The first test class gets the preloaded data; as a context
+   * can be reused by other test classes (that may have modified the data in the meantime), the following ones load them
+   * again.
+   * <br>
+   * Calling this method several times for the same test class (e.g. from a {@code TestExecutionListener} and from a JUnit
+   * extension) only loads the data once.
+   *
+   * @param appContext the test context
+   * @param testClass  the test class
+   * @throws RuntimeException if the data could not be loaded
+   */
+  void await(final ApplicationContext appContext, final Class<?> testClass) {
+    CompletableFuture<List<LoadReport>> load;
+    synchronized (this) {
+      load = this.loadsByTestClass.get(testClass);
+      if (load == null) {
+        load = this.loadsByTestClass.isEmpty() && this.preload != null
+          ? this.preload
+          : this.loadAsync(SpringUtils.getDataLoader(appContext));// context reused (or never saw ElasticsearchOperations)
+        this.loadsByTestClass.put(testClass, load);
+      }
+    }
+
+    try {
+      load.join();
+    } catch (CompletionException e) {
+      Throwable t = e.getCause();
+      if (t instanceof RuntimeException)
+        throw (RuntimeException) t;
+      if (t instanceof Error)
+        throw (Error) t;
+      throw new IllegalStateException("Failed to preload data", t);
+    }
+  }
+
+  private CompletableFuture<List<LoadReport>> loadAsync(final EsDataLoader loader) {
+    return CompletableFuture.supplyAsync(EsIndexNamespace.wrap(() -> loader.loadAll(this.data, this.concurrency)),
+      loader.getAsyncExecutor());
+  }
+}
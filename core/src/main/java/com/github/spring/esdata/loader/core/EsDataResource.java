@@ -0,0 +1,74 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Utility class to resolve and open the location of the data to load (see {@link IndexData#getLocation()}).
+ * <br>
+ * Locations can be given as:
+ * <ul>
+ *   <li>a Spring {@link Resource} location, like <code>classpath:data/authors.json</code> or <code>file:/path/to/authors.json</code> (or any other URL)</li>
+ *   <li>a plain path (e.g <code>/data/authors.json</code>), resolved from the classpath (<i>historical behaviour</i>)</li>
+ * </ul>
+ * Resources that are plain local files (including the ones on the classpath, when not packed into a jar) are read
+ * through memory-mapped regions of the file.
+ *
+ * @author tinesoft
+ */
+final class EsDataResource {
+
+  private static final ResourceLoader RESOURCE_LOADER = new DefaultResourceLoader(EsDataResource.class.getClassLoader());
+
+  private EsDataResource() {
+  }
+
+  /**
+   * Resolves the given location into a {@link Resource}.
+   *
+   * @param location the location of the data
+   * @return the resource (that may not exist)
+   */
+  static Resource resolve(final String location) {
+    if (location.startsWith(ResourceLoader.CLASSPATH_URL_PREFIX) || ResourceUtils.isUrl(location))
+      return RESOURCE_LOADER.getResource(location);
+    return new ClassPathResource(location, SpringEsDataLoader.class);// same as Class#getResourceAsStream()
+  }
+
+  /**
+   * Opens the given location, as stored (i.e still gzipped, if so).
+   *
+   * @param location the location of the data
+   * @return the raw content of the resource
+   * @throws IllegalArgumentException if there is no resource at the given location
+   * @throws IOException              if the resource could not be opened
+   */
+  static InputStream open(final String location) throws IOException {
+    Resource resource = resolve(location);
+    if (!resource.exists())
+      throw new IllegalArgumentException("Could not find data to load at '" + location + "'");
+
+    if (resource.isFile())
+      return new MappedInputStream(resource.getFile().toPath());
+    return resource.getInputStream();
+  }
+
+  /**
+   * Gets the local file behind the given location, if any.
+   *
+   * @param location the location of the data
+   * @return the path of the file, or {@code null} if the resource is not a plain local file (or does not exist)
+   * @throws IOException if the resource could not be resolved
+   */
+  static Path localFile(final String location) throws IOException {
+    Resource resource = resolve(location);
+    return resource.exists() && resource.isFile() ? resource.getFile().toPath() : null;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Represents a single document to be indexed into Elasticsearch, as read from the data file.
+ *
+ * @author tinesoft
+ */
+final class EsDocument {
+
+  private final String id;
+  private final String source;
+
+  /**
+   * @param id     id of the document (can be {@code null}, in which case Elasticsearch will generate it)
+   * @param source content of the document, as JSON
+   */
+  EsDocument(final String id, final String source) {
+    this.id = id;
+    this.source = source;
+  }
+
+  String getId() {
+    return this.id;
+  }
+
+  String getSource() {
+    return this.source;
+  }
+
+  @Override
+  public String toString() {
+    return "EsDocument{id='" + this.id + "', source='" + this.source + "'}";
+  }
+}
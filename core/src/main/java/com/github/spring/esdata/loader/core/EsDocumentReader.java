@@ -0,0 +1,565 @@
+package com.github.spring.esdata.loader.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the documents to index from the content of a data file, in any of the supported {@link EsDataFormat}.
+ * <br>
+ * Documents are extracted with a streaming {@link JsonParser}: their source is copied through at token level, so no
+ * intermediate JSON tree is ever built. Content in {@link EsDataFormat#BULK} format is not even parsed, and content in
+ * {@link EsDataFormat#COMPILED} format is only converted from Smile to JSON.
+ *
+ * @author tinesoft
+ */
+final class EsDocumentReader {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final String ID_FIELD = "_id";
+  private static final String SOURCE_FIELD = "_source";
+  private static final byte[] DELETE_ACTION = "delete".getBytes(StandardCharsets.US_ASCII);
+  private static final String INDEX_FIELD = "_index";
+  private static final String TYPE_FIELD = "_type";
+  private static final byte[] QUOTED_INDEX_FIELD = ('"' + INDEX_FIELD + '"').getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] QUOTED_TYPE_FIELD = ('"' + TYPE_FIELD + '"').getBytes(StandardCharsets.US_ASCII);
+
+  private EsDocumentReader() {
+  }
+
+  /**
+   * Converts the given {@link BufferedReader} (that represents lines of JSON objects in {@link EsDataFormat#DUMP} format)
+   * into a {@link Stream} of {@link EsDocument}.
+   * Skipped lines are discarded without being parsed, and reading stops as soon as <code>nbMaxItems</code> lines are read.
+   *
+   * @param reader      the reader
+   * @param nbSkipItems number of lines to skip
+   * @param nbMaxItems  maximum number of lines to read
+   * @param statistics  statistics to record the skipped lines into
+   * @return a {@link Stream} of documents
+   */
+  static Stream<EsDocument> readDump(final BufferedReader reader, final long nbSkipItems, final long nbMaxItems,
+                                     final LoadStatistics statistics) {
+    final long[] nbSkipped = {0};
+    return reader.lines()//
+      .filter(l -> !l.isEmpty())//
+      .filter(l -> {
+        if (nbSkipped[0] < nbSkipItems) {
+          nbSkipped[0]++;
+          statistics.addSkipped(1);
+          return false;
+        }
+        return true;
+      })//
+      .limit(nbMaxItems)//
+      .map(EsDocumentReader::fromDumpLine);
+  }
+
+  /**
+   * Reads the given local file (that contains lines of JSON objects in {@link EsDataFormat#DUMP} format) into a parallel
+   * {@link Stream} of {@link EsDocument}.
+   * <br>
+   * The file is split at line boundaries into balanced ranges (see {@link DumpLineSpliterator}), so that lines are parsed
+   * on all the available cores. The stream is ordered: when the file holds several versions of a document, it must be
+   * consumed with {@link Stream#forEachOrdered} for the last one to win. The returned stream must be closed to release
+   * the file.
+   *
+   * @param file the file
+   * @return a parallel {@link Stream} of documents
+   * @throws IOException if the file could not be opened
+   */
+  static Stream<EsDocument> readDump(final Path file) throws IOException {
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return StreamSupport.stream(new DumpLineSpliterator(channel, 0, channel.size(), MappedInputStream.WINDOW_SIZE), true)//
+        .onClose(() -> {
+          try {
+            channel.close();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        })//
+        .map(EsDocumentReader::fromDumpLine);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the given local file (that contains an array of JSON objects in {@link EsDataFormat#MANUAL} format) into a
+   * parallel {@link Stream} of {@link EsDocument}.
+   * <br>
+   * The boundaries of the elements of the array are first found by a (fast, sequential) structural scan of the file
+   * (see {@link JsonArrayScanner}), then the elements are parsed on all the available cores, the stream keeping their
+   * order.
+   * <br>
+   * The content of the file is read (through a {@link FileChannel}) into a heap buffer rather than mapped, since mapped
+   * buffers are only released when garbage collected: the returned stream must be closed to release it.
+   *
+   * @param file the file (whose size can not exceed {@link JsonArrayScanner#MAX_SIZE})
+   * @return a parallel {@link Stream} of documents
+   * @throws IOException if the file could not be read
+   */
+  static Stream<EsDocument> readManual(final Path file) throws IOException {
+    final AtomicReference<ByteBuffer> content = new AtomicReference<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > JsonArrayScanner.MAX_SIZE)
+        throw new IllegalStateException("Data file too large to be scanned: " + file);
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // reads until the end of the file
+      }
+      buffer.flip();
+      content.set(buffer);
+    }
+    final int[] offsets = JsonArrayScanner.scan(content.get());
+
+    return IntStream.range(0, offsets.length / 2).parallel()//
+      .mapToObj(i -> {
+        ByteBuffer buffer = content.get();
+        if (buffer == null)
+          throw new IllegalStateException("Stream already closed");
+        byte[] element = new byte[offsets[2 * i + 1] - offsets[2 * i]];
+        ((ByteBuffer) buffer.duplicate().position(offsets[2 * i])).get(element);
+        try (JsonParser jsonParser = JSON_FACTORY.createParser(element)) {
+          jsonParser.nextToken();
+          return new EsDocument(null, copyCurrentStructure(jsonParser, new CharArrayWriter(element.length)));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      })//
+      .onClose(() -> content.set(null));
+  }
+
+  /**
+   * Converts the given {@link Reader} (that represents a array of JSON objects in {@link EsDataFormat#MANUAL} format)
+   * into a {@link Stream} of {@link EsDocument}.
+   * Skipped elements are passed over with {@link JsonParser#skipChildren()} (i.e without building them), and reading
+   * stops as soon as <code>nbMaxItems</code> elements are read.
+   *
+   * @param reader      the reader
+   * @param nbSkipItems number of elements to skip
+   * @param nbMaxItems  maximum number of elements to read
+   * @param statistics  statistics to record the skipped elements into
+   * @return a {@link Stream} of documents
+   * @throws IOException if the content could not be read
+   */
+  static Stream<EsDocument> readManual(final Reader reader, final long nbSkipItems, final long nbMaxItems,
+                                       final LoadStatistics statistics) throws IOException {
+    final JsonParser jsonParser = JSON_FACTORY.createParser(reader);
+    if (jsonParser.nextToken() != JsonToken.START_ARRAY) {
+      throw new IllegalStateException("Not a valid EsDataFormat.MANUAL format. Expected an array");
+    }
+    Iterator<EsDocument> iterator = new Iterator<EsDocument>() {
+      final CharArrayWriter sourceWriter = new CharArrayWriter(256);
+      EsDocument nextDocument = null;
+      long nbSkipped = 0;
+      long nbRead = 0;
+
+      @Override
+      public boolean hasNext() {
+        if (this.nextDocument != null) {
+          return true;
+        } else {
+          try {
+            this.nextDocument = this.readDocument();
+            return (this.nextDocument != null);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }
+
+      @Override
+      public EsDocument next() {
+        if (this.nextDocument != null || this.hasNext()) {
+          EsDocument document = this.nextDocument;
+          this.nextDocument = null;
+          return document;
+        } else {
+          throw new NoSuchElementException();
+        }
+      }
+
+      EsDocument readDocument() throws IOException {
+        if (jsonParser.isClosed()) {
+          return null;
+        }
+
+        JsonToken nextToken = jsonParser.nextToken();
+        while (nextToken != null && nextToken != JsonToken.END_ARRAY && this.nbSkipped < nbSkipItems) {
+          jsonParser.skipChildren();// moves to the end of the element, without building it
+          this.nbSkipped++;
+          statistics.addSkipped(1);
+          nextToken = jsonParser.nextToken();
+        }
+
+        if (nextToken != null && nextToken != JsonToken.END_ARRAY && this.nbRead < nbMaxItems) {
+          this.nbRead++;
+          return new EsDocument(null, copyCurrentStructure(jsonParser, this.sourceWriter));
+        }
+
+        jsonParser.close();//no more objects to read, close the stream
+        return null;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+      iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Converts the given {@link InputStream} (that represents documents in {@link EsDataFormat#COMPILED} format) into a
+   * {@link Stream} of {@link EsDocument}.
+   * Skipped documents are passed over without being read, thanks to the index of their offsets, and reading stops as
+   * soon as <code>nbMaxItems</code> documents are read.
+   *
+   * @param is          the stream
+   * @param nbSkipItems number of documents to skip
+   * @param nbMaxItems  maximum number of documents to read
+   * @param statistics  statistics to record the skipped documents into
+   * @return a {@link Stream} of documents
+   * @throws IOException if the content could not be read
+   */
+  static Stream<EsDocument> readCompiled(final InputStream is, final long nbSkipItems, final long nbMaxItems,
+                                         final LoadStatistics statistics) throws IOException {
+    final DataInputStream in = new DataInputStream(is);
+    byte[] magic = new byte[EsDataCompiler.MAGIC.length];
+    in.readFully(magic);
+    if (!Arrays.equals(magic, EsDataCompiler.MAGIC) || in.readByte() != EsDataCompiler.VERSION) {
+      throw new IllegalStateException("Not a valid EsDataFormat.COMPILED format. Unknown header (or version)");
+    }
+
+    int nbDocuments = in.readInt();
+    long nbSkipped = Math.min(nbSkipItems, nbDocuments);
+    long skippedBytes = 0;
+    for (int i = 0; i < nbDocuments; i++) {
+      long offset = in.readLong();
+      if (i == nbSkipped)
+        skippedBytes = offset;
+    }
+    statistics.addSkipped(nbSkipped);
+    if (nbSkipped == nbDocuments) {
+      return Stream.empty();// nothing left to read
+    }
+    for (long n; skippedBytes > 0; skippedBytes -= n) {
+      n = in.skip(skippedBytes);
+      if (n <= 0) {
+        throw new EOFException("Unexpected end of EsDataFormat.COMPILED content");
+      }
+    }
+
+    final CharArrayWriter sourceWriter = new CharArrayWriter(256);
+    return LongStream.range(0, Math.min(nbMaxItems, nbDocuments - nbSkipped))//
+      .mapToObj(i -> {
+        try {
+          String id = in.readBoolean() ? in.readUTF() : null;
+          byte[] smile = new byte[in.readInt()];
+          in.readFully(smile);
+          try (JsonParser smileParser = EsDataCompiler.SMILE_FACTORY.createParser(smile)) {
+            smileParser.nextToken();
+            return new EsDocument(id, copyCurrentStructure(smileParser, sourceWriter));
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+  }
+
+  /**
+   * Cuts the given {@link InputStream} (that represents newline delimited actions in {@link EsDataFormat#BULK} format)
+   * into chunks of up to <code>bulkSize</code> actions (or about <code>bulkMaxBytes</code> bytes), handed over to the given consumer.
+   * <br>
+   * Lines are copied through as raw bytes: only the name of each action is looked at, to know whether a source line follows it.
+   * Action lines defining their own <code>_index</code> or <code>_type</code> are the only ones rewritten: these fields are
+   * stripped, so that all the actions target the index of the mapping class (and its namespace, see {@link EsIndexNamespace}),
+   * as documents in {@link EsDataFormat#DUMP} format do. An action and its source always end up in the same chunk. Skipped actions are discarded, and reading stops as soon
+   * as <code>nbMaxItems</code> actions are read.
+   *
+   * @param is           the input stream
+   * @param nbSkipItems  number of actions to skip
+   * @param nbMaxItems   maximum number of actions to read
+   * @param bulkSize     maximum number of actions per chunk
+   * @param bulkMaxBytes maximum size (in bytes) of a chunk (a single big action still gets its own chunk)
+   * @param statistics   statistics to record the read and skipped actions into
+   * @param consumer     the consumer of the chunks
+   * @throws IOException if the content could not be read
+   */
+  static void readBulk(final InputStream is, final long nbSkipItems, final long nbMaxItems, final int bulkSize,
+                       final long bulkMaxBytes, final LoadStatistics statistics, final BulkChunkConsumer consumer) throws IOException {
+    LineReader lineReader = new LineReader(is);
+    Chunk chunk = new Chunk();
+    int nbActions = 0;
+    long nbSkipped = 0;
+    long nbRead = 0;
+
+    while (nbRead < nbMaxItems) {
+      int start = chunk.size();
+      if (!lineReader.readLine(chunk))
+        break;
+      if (isBlank(chunk.array(), start, chunk.size())) {
+        chunk.truncate(start);
+        continue;
+      }
+
+      if (contains(chunk.array(), start, chunk.size(), QUOTED_INDEX_FIELD) || contains(chunk.array(), start, chunk.size(), QUOTED_TYPE_FIELD)) {
+        byte[] action = stripTargetFields(chunk.array(), start, chunk.size());
+        chunk.truncate(start);
+        chunk.write(action, 0, action.length);
+      }
+
+      if (!isDeleteAction(chunk.array(), start, chunk.size()) && !lineReader.readLine(chunk))
+        throw new IllegalStateException("Not a valid EsDataFormat.BULK format. Missing source line after action: "
+          + new String(chunk.array(), start, chunk.size() - start, StandardCharsets.UTF_8).trim());
+
+      if (nbSkipped < nbSkipItems) {
+        chunk.truncate(start);
+        nbSkipped++;
+        statistics.addSkipped(1);
+        continue;
+      }
+
+      nbRead++;
+      nbActions++;
+      statistics.addRead(1);
+      if (nbActions >= bulkSize || chunk.size() >= bulkMaxBytes) {
+        consumer.accept(chunk.array(), chunk.size(), nbActions);
+        chunk = new Chunk();// the consumer may still be using the previous one
+        nbActions = 0;
+      }
+    }
+
+    if (nbActions > 0)
+      consumer.accept(chunk.array(), chunk.size(), nbActions);
+  }
+
+  /**
+   * Consumer of the chunks read by {@link #readBulk(InputStream, long, long, int, long, LoadStatistics, BulkChunkConsumer)}.
+   */
+  @FunctionalInterface
+  interface BulkChunkConsumer {
+
+    /**
+     * @param data      the buffer holding the chunk (owned by the consumer from now on)
+     * @param length    the number of bytes of the chunk
+     * @param nbActions the number of actions in the chunk
+     */
+    void accept(byte[] data, int length, int nbActions);
+  }
+
+  /**
+   * Checks whether the given action line is a <code>delete</code> action (i.e whether its first field is named so).
+   */
+  private static boolean isDeleteAction(final byte[] line, final int from, final int to) {
+    int i = from;
+    while (i < to && line[i] != '"')
+      i++;
+    if (to - i <= DELETE_ACTION.length + 1 || line[i + DELETE_ACTION.length + 1] != '"')
+      return false;
+    for (int j = 0; j < DELETE_ACTION.length; j++) {
+      if (line[i + 1 + j] != DELETE_ACTION[j])
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Rewrites the given action line without the <code>_index</code> and <code>_type</code> fields of its action.
+   *
+   * @return the rewritten action line (ending with <code>\n</code>)
+   */
+  private static byte[] stripTargetFields(final byte[] line, final int from, final int to) throws IOException {
+    ByteArrayOutputStream action = new ByteArrayOutputStream(to - from);
+    try (JsonParser jsonParser = JSON_FACTORY.createParser(line, from, to - from);
+         JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(action)) {
+      if (jsonParser.nextToken() != JsonToken.START_OBJECT || jsonParser.nextToken() != JsonToken.FIELD_NAME
+        || jsonParser.nextToken() != JsonToken.START_OBJECT)
+        throw new IllegalStateException("Not a valid EsDataFormat.BULK format. Expected an action object on line: "
+          + new String(line, from, to - from, StandardCharsets.UTF_8).trim());
+
+      jsonGenerator.writeStartObject();
+      jsonGenerator.writeFieldName(jsonParser.getCurrentName());
+      jsonGenerator.writeStartObject();
+      while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = jsonParser.getCurrentName();
+        jsonParser.nextToken();
+        if (INDEX_FIELD.equals(fieldName) || TYPE_FIELD.equals(fieldName)) {
+          jsonParser.skipChildren();
+        } else {
+          jsonGenerator.writeFieldName(fieldName);
+          jsonGenerator.copyCurrentStructure(jsonParser);
+        }
+      }
+      jsonGenerator.writeEndObject();
+      jsonGenerator.writeEndObject();
+    }
+    action.write('\n');
+    return action.toByteArray();
+  }
+
+  private static boolean contains(final byte[] line, final int from, final int to, final byte[] bytes) {
+    for (int i = from; i <= to - bytes.length; i++) {
+      int j = 0;
+      while (j < bytes.length && line[i + j] == bytes[j])
+        j++;
+      if (j == bytes.length)
+        return true;
+    }
+    return false;
+  }
+
+  private static boolean isBlank(final byte[] line, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      if (line[i] != ' ' && line[i] != '\t' && line[i] != '\r' && line[i] != '\n')
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Growable buffer of bytes, that exposes its internal array.
+   */
+  private static final class Chunk extends ByteArrayOutputStream {
+
+    Chunk() {
+      super(64 * 1024);
+    }
+
+    byte[] array() {
+      return this.buf;
+    }
+
+    void truncate(final int size) {
+      this.count = size;
+    }
+  }
+
+  /**
+   * Reads lines of bytes (without decoding them) from an {@link InputStream}.
+   */
+  private static final class LineReader {
+
+    private final InputStream is;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+
+    LineReader(final InputStream is) {
+      this.is = is;
+    }
+
+    /**
+     * Appends the next line (including its terminating <code>\n</code>, added if missing) to the given chunk.
+     *
+     * @param chunk the chunk to append the line to
+     * @return false if there are no more lines to read, true otherwise
+     * @throws IOException if the line could not be read
+     */
+    boolean readLine(final Chunk chunk) throws IOException {
+      boolean read = false;
+      while (true) {
+        if (this.position == this.limit) {
+          this.limit = this.is.read(this.buffer);
+          this.position = 0;
+          if (this.limit <= 0) {
+            this.limit = 0;
+            if (read)
+              chunk.write('\n');
+            return read;
+          }
+        }
+
+        int start = this.position;
+        while (this.position < this.limit && this.buffer[this.position] != '\n')
+          this.position++;
+
+        if (this.position < this.limit) {
+          this.position++;// include the new line
+          chunk.write(this.buffer, start, this.position - start);
+          return true;
+        }
+        chunk.write(this.buffer, start, this.position - start);
+        read = true;
+      }
+    }
+  }
+
+  /**
+   * Extracts a {@link EsDocument} from a line in {@link EsDataFormat#DUMP} format.
+   * The <code>_id</code> is read with a streaming parser, while the characters of the <code>_source</code> object are
+   * copied straight through from the line.
+   *
+   * @param line the line to extract the document from
+   * @return the extracted document
+   */
+  static EsDocument fromDumpLine(final String line) {
+    try (JsonParser jsonParser = JSON_FACTORY.createParser(line)) {
+      if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalStateException("Not a valid EsDataFormat.DUMP format. Expected an object on line: " + line);
+      }
+
+      String id = null;
+      String source = null;
+      boolean idFound = false;
+
+      while (jsonParser.nextToken() == JsonToken.FIELD_NAME && (!idFound || source == null)) {
+        String fieldName = jsonParser.getCurrentName();
+        JsonToken valueToken = jsonParser.nextToken();
+
+        if (ID_FIELD.equals(fieldName)) {
+          idFound = true;
+          id = valueToken == JsonToken.VALUE_STRING ? jsonParser.getText() : null;
+        } else if (SOURCE_FIELD.equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+          int start = (int) jsonParser.getTokenLocation().getCharOffset();
+          jsonParser.skipChildren();
+          int end = (int) jsonParser.getTokenLocation().getCharOffset() + 1;
+          source = line.substring(start, end);
+        } else {
+          jsonParser.skipChildren();
+        }
+      }
+
+      if (source == null) {
+        throw new IllegalStateException("Not a valid EsDataFormat.DUMP format. Missing '_source' object on line: " + line);
+      }
+      return new EsDocument(id, source);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Copies the structure the given parser currently points to (object, array or scalar) as JSON, token by token.
+   *
+   * @param jsonParser the parser
+   * @param writer     a (reusable) writer to copy the structure into
+   * @return the copied structure, as JSON
+   * @throws IOException if the structure could not be copied
+   */
+  private static String copyCurrentStructure(final JsonParser jsonParser, final CharArrayWriter writer) throws IOException {
+    writer.reset();
+    try (JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(writer)) {
+      jsonGenerator.copyCurrentStructure(jsonParser);
+    }
+    return writer.toString();
+  }
+}
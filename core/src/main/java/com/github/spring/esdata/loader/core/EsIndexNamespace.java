@@ -0,0 +1,183 @@
+package com.github.spring.esdata.loader.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Namespace of the indices used by the current thread, that makes test classes (or test JVMs) use indices of their own
+ * (see {@link IsolateEsData}).
+ * <br>
+ * Index names are resolved through the namespace by using {@link #resolve(String)} in the index name of the mapping classes
+ * (Spring Data evaluates it each time the index name is needed, on the calling thread):
+ * <pre>
+ * &#64;Document(indexName = "#{T(com.github.spring.esdata.loader.core.EsIndexNamespace).resolve('author')}", type = "Author")
+ * </pre>
+ * The namespace is bound to the thread: it is carried over to the asynchronous loads of {@link EsDataLoader}, but threads
+ * started by the application (e.g <code>&#64;Async</code> methods) must be given it with {@link #wrap(Runnable)} or
+ * {@link #wrap(Executor)}.
+ *
+ * @author tinesoft
+ */
+public final class EsIndexNamespace {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EsIndexNamespace.class);
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  // mapping classes whose index names are not resolved through the namespace (warned about once)
+  private static final Set<Class<?>> NOT_NAMESPACED = ConcurrentHashMap.newKeySet();
+
+  private EsIndexNamespace() {
+  }
+
+  /**
+   * Resolves the given index name in the namespace of the current thread.
+   *
+   * @param indexName the (base) name of the index
+   * @return the name of the index in the current namespace (<code>&lt;indexName&gt;-&lt;namespace&gt;</code>), or the given
+   * name if there is no current namespace
+   */
+  public static String resolve(final String indexName) {
+    String namespace = CURRENT.get();
+    return namespace != null ? indexName + "-" + namespace : indexName;
+  }
+
+  /**
+   * Returns the base name of the given index name, i.e without the namespace of the current thread.
+   *
+   * @param indexName the name of the index, as resolved by {@link #resolve(String)}
+   * @return the base name of the index, or the given name if it is not resolved in the current namespace
+   */
+  static String baseNameOf(final String indexName) {
+    String namespace = CURRENT.get();
+    return namespace != null && indexName.endsWith("-" + namespace)
+      ? indexName.substring(0, indexName.length() - namespace.length() - 1) : indexName;
+  }
+
+  /**
+   * @return the namespace of the current thread, or {@code null} if none
+   */
+  public static String get() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Sets the namespace of the current thread.
+   *
+   * @param namespace the namespace (lowercase letters, digits, <code>-</code> and <code>_</code>), or {@code null} to remove it
+   * @throws IllegalArgumentException if the namespace can not be part of an index name
+   */
+  public static void set(final String namespace) {
+    if (namespace == null) {
+      CURRENT.remove();
+      return;
+    }
+    if (!namespace.matches("[a-z0-9_-]+"))
+      throw new IllegalArgumentException("Not a valid index namespace: '" + namespace + "'");
+    CURRENT.set(namespace);
+  }
+
+  /**
+   * Sets the namespace of the current thread to the one of the given test class, if annotated with {@link IsolateEsData}.
+   *
+   * @param testClass the test class
+   * @return {@code true} if the data of the test class are isolated (and the namespace set), {@code false} otherwise
+   */
+  public static boolean setFor(final Class<?> testClass) {
+    IsolateEsData isolation = AnnotatedElementUtils.findMergedAnnotation(testClass, IsolateEsData.class);
+    if (isolation == null)
+      return false;
+    set(of(isolation.value(), testClass));
+    return true;
+  }
+
+  /**
+   * Gets the namespace of the indices of the given test class, for the given scope.
+   *
+   * @param scope     the scope of the isolated indices
+   * @param testClass the test class
+   * @return the namespace
+   */
+  public static String of(final IsolationScope scope, final Class<?> testClass) {
+    String fork = "fork" + ManagementFactory.getRuntimeMXBean().getName().split("@")[0].replaceAll("[^0-9a-z]", "");
+    if (scope == IsolationScope.FORK)
+      return fork;
+    // the hash tells classes with the same simple name apart
+    String className = testClass.getSimpleName().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+    return className + "-" + Integer.toHexString(testClass.getName().hashCode()) + "-" + fork;
+  }
+
+  /**
+   * Wraps the given task so that it runs in the namespace of the current thread (i.e the one calling this method).
+   *
+   * @param task the task
+   * @return the wrapped task
+   */
+  public static Runnable wrap(final Runnable task) {
+    String namespace = CURRENT.get();
+    return () -> runIn(namespace, task);
+  }
+
+  /**
+   * Wraps the given task so that it runs in the namespace of the current thread (i.e the one calling this method).
+   *
+   * @param task the task
+   * @param <T>  the type of the result of the task
+   * @return the wrapped task
+   */
+  public static <T> Supplier<T> wrap(final Supplier<T> task) {
+    String namespace = CURRENT.get();
+    return () -> {
+      String previous = CURRENT.get();
+      set(namespace);
+      try {
+        return task.get();
+      } finally {
+        set(previous);
+      }
+    };
+  }
+
+  /**
+   * Wraps the given executor so that the tasks it runs run in the namespace of the current thread (i.e the one calling this
+   * method), whatever the thread submitting them.
+   *
+   * @param executor the executor
+   * @return the wrapped executor
+   */
+  public static Executor wrap(final Executor executor) {
+    String namespace = CURRENT.get();
+    return task -> executor.execute(() -> runIn(namespace, task));
+  }
+
+  private static void runIn(final String namespace, final Runnable task) {
+    String previous = CURRENT.get();
+    set(namespace);
+    try {
+      task.run();
+    } finally {
+      set(previous);
+    }
+  }
+
+  /**
+   * Warns (once per mapping class) if the given index name is not resolved through the namespace of the current thread.
+   *
+   * @param indexName     the index name of the mapping class
+   * @param esEntityClass the mapping class
+   */
+  static void checkApplied(final String indexName, final Class<?> esEntityClass) {
+    String namespace = CURRENT.get();
+    if (namespace != null && !indexName.endsWith("-" + namespace) && NOT_NAMESPACED.add(esEntityClass))
+      LOGGER.warn("Index name '{}' of '{}' is not resolved through EsIndexNamespace: its data are not isolated",
+        indexName, esEntityClass.getName());
+  }
+}
@@ -0,0 +1,79 @@
+package com.github.spring.esdata.loader.core;
+
+import java.lang.annotation.*;
+
+/**
+ * {@code @GenerateEsData} is a {@linkplain Repeatable repeatable} annotation
+ * that is used to fill an index with synthetic data, generated on the fly from the mapping of the given class
+ * (instead of loading them from a file, like {@link LoadEsData}).
+ * <br>
+ * Values are pseudo-random but deterministic: the same seed always gives the same data. This allows to test against
+ * big indices, without storing big data files.
+ *
+ * @author tinesoft
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Repeatable(GenerateMultipleEsData.class)
+public @interface GenerateEsData {
+
+  /**
+   * mapping class of the data to be generated into Elasticsearch
+   *
+   * @return mapping class of the data to be generated into Elasticsearch
+   */
+  Class<?> esEntityClass();
+
+  /**
+   * number of documents to generate
+   *
+   * @return number of documents to generate
+   */
+  long count();
+
+  /**
+   * Seed of the generated values. Different seeds give different data.
+   *
+   * @return seed of the generated values
+   */
+  long seed() default 0;
+
+  /**
+   * Maximum number of documents sent to Elasticsearch in a single bulk request.
+   *
+   * @return maximum number of documents per bulk request
+   */
+  int bulkSize() default IndexData.DEFAULT_BULK_SIZE;
+
+  /**
+   * Maximum size (in bytes) of the documents sent to Elasticsearch in a single bulk request.
+   *
+   * @return maximum size (in bytes) of the documents per bulk request
+   */
+  long bulkMaxBytes() default IndexData.DEFAULT_BULK_MAX_BYTES;
+
+  /**
+   * Maximum number of bulk requests sent concurrently to Elasticsearch, while the data keep being generated.
+   *
+   * @return maximum number of bulk requests sent concurrently
+   */
+  int bulkConcurrency() default IndexData.DEFAULT_BULK_CONCURRENCY;
+
+  /**
+   * Strategy used to bring the target index to the state described by the data.
+   * With {@link LoadStrategy#FINGERPRINT} or {@link LoadStrategy#GOLDEN_INDEX}, the data are only generated once, for a
+   * given count and seed (and mapping).
+   *
+   * @return strategy used to load the data
+   * @see LoadStrategy
+   */
+  LoadStrategy strategy() default LoadStrategy.RECREATE;
+
+  /**
+   * How the settings of the target index are tuned while the data are loaded.
+   *
+   * @return how the settings of the index are tuned during the load
+   * @see LoadTuning
+   */
+  LoadTuning tuning() default LoadTuning.NONE;
+}
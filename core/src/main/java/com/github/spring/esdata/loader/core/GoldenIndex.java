@@ -0,0 +1,78 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Utility class to manage the <i>golden</i> indices, i.e the server-side copies of the data initially loaded into an index.
+ *
+ * @author tinesoft
+ * @see LoadStrategy#GOLDEN_INDEX
+ */
+final class GoldenIndex {
+
+  static final String PREFIX = "esdata-golden-";
+
+  // guards the creation of each golden index, that may be wanted by concurrent loads (in different namespaces)
+  private static final Map<String, Lock> LOCKS = new ConcurrentHashMap<>();
+
+  private GoldenIndex() {
+  }
+
+  /**
+   * Returns the name of the golden index that holds a copy of the data with given fingerprint.
+   *
+   * @param indexName   the (base, i.e not namespaced) name of the target index
+   * @param fingerprint the fingerprint of the data
+   * @return the name of the golden index
+   */
+  static String nameOf(final String indexName, final String fingerprint) {
+    return PREFIX + indexName + "-" + fingerprint.substring(0, 16);
+  }
+
+  /**
+   * Returns the lock to hold while checking for, then creating, the given golden index.
+   *
+   * @param goldenIndex the name of the golden index
+   * @return the lock
+   */
+  static Lock lockOf(final String goldenIndex) {
+    return LOCKS.computeIfAbsent(goldenIndex, k -> new ReentrantLock());
+  }
+
+  /**
+   * Creates the golden index (with the same mapping than the target index) and copies the documents of the target index into it.
+   *
+   * @param esOperations the {@link ElasticsearchOperations}
+   * @param esEntityInfo the information about the target entity
+   * @param goldenIndex  the name of the golden index
+   */
+  static void create(final ElasticsearchOperations esOperations, final ElasticsearchPersistentEntity<?> esEntityInfo,
+                     final String goldenIndex) {
+    Class<?> esEntityClass = esEntityInfo.getType();
+
+    // golden indices are never searched, no need for replicas
+    esOperations.createIndex(goldenIndex, Collections.singletonMap("index.number_of_replicas", 0));
+    esOperations.putMapping(goldenIndex, esEntityInfo.getIndexType(), esOperations.getMapping(esEntityClass));
+
+    EsAdminClient.of(esOperations).reindex(esEntityInfo.getIndexName(), goldenIndex);
+  }
+
+  /**
+   * Restores the content of the target index from the golden index.
+   *
+   * @param esOperations the {@link ElasticsearchOperations}
+   * @param esEntityInfo the information about the target entity
+   * @param goldenIndex  the name of the golden index
+   */
+  static void restore(final ElasticsearchOperations esOperations, final ElasticsearchPersistentEntity<?> esEntityInfo,
+                      final String goldenIndex) {
+    EsAdminClient.of(esOperations).reindex(goldenIndex, esEntityInfo.getIndexName());
+  }
+}
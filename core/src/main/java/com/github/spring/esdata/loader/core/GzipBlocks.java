@@ -0,0 +1,252 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Utility class to read and write gzip members in the <a href="https://samtools.github.io/hts-specs/SAMv1.pdf">BGZF</a>
+ * (<i>blocked gzip</i>) layout: a gzip file made of many small members, whose header stores the compressed size of the
+ * member (in a <code>BC</code> extra subfield). Members can then be found without inflating them, and inflated independently.
+ * <br>
+ * Such files remain valid gzip files, that any gzip tool can decompress.
+ *
+ * @author tinesoft
+ */
+final class GzipBlocks {
+
+  /**
+   * Max number of (uncompressed) bytes in a block, so that its compressed size always fits in 64KB.
+   */
+  static final int MAX_BLOCK_DATA_SIZE = 0xff00;
+
+  /**
+   * Max size of a (compressed) block.
+   */
+  static final int MAX_BLOCK_SIZE = 0x10000;
+
+  private static final int HEADER_SIZE = 18;// fixed header (10) + XLEN (2) + BC subfield (6)
+  private static final int TRAILER_SIZE = 8;// CRC32 (4) + ISIZE (4)
+
+  private static final int FTEXT = 1;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private GzipBlocks() {
+  }
+
+  /**
+   * Checks whether the given stream starts with a BGZF block. The stream is left at its original position.
+   *
+   * @param is the stream
+   * @return true if the stream starts with a BGZF block, false otherwise
+   * @throws IOException if the stream could not be read
+   */
+  static boolean isBgzf(final BufferedInputStream is) throws IOException {
+    byte[] header = new byte[MAX_BLOCK_SIZE];
+    is.mark(header.length);
+    int length = readFully(is, header, 0, 12);
+    int xlen = length == 12 ? u16(header, 10) : 0;
+    if (12 + xlen > header.length) {
+      is.reset();
+      return false;// too large an extra field for a BGZF block
+    }
+    length += readFully(is, header, 12, xlen);
+    is.reset();
+
+    return length >= 12 && isGzipHeader(header) && (header[3] & FEXTRA) != 0 && findBlockSize(header, 12, 12 + xlen) > 0;
+  }
+
+  /**
+   * Reads the next BGZF block from the given stream. Its size and the size of its uncompressed data are checked to be
+   * consistent with the BGZF layout (i.e at most 64KB), so that it can safely be {@linkplain #inflate inflated}.
+   *
+   * @param is the stream
+   * @return the (still compressed) block, or {@code null} if the end of the stream is reached
+   * @throws IOException if the stream could not be read, or is not made of BGZF blocks
+   */
+  static byte[] readBlock(final InputStream is) throws IOException {
+    byte[] header = new byte[12];
+    int length = readFully(is, header, 0, header.length);
+    if (length == 0)
+      return null;
+    if (length < header.length || !isGzipHeader(header) || (header[3] & FEXTRA) == 0)
+      throw new ZipException("Not in BGZF format");
+
+    int xlen = u16(header, 10);
+    byte[] extra = new byte[xlen];
+    if (readFully(is, extra, 0, xlen) < xlen)
+      throw new ZipException("Unexpected end of BGZF block");
+    int blockSize = findBlockSize(extra, 0, xlen);
+    if (blockSize <= 0)
+      throw new ZipException("Not in BGZF format (missing BC subfield)");
+    if (blockSize < header.length + xlen + TRAILER_SIZE)
+      throw new ZipException("Not in BGZF format (block size too small: " + blockSize + ")");
+
+    byte[] block = new byte[blockSize];
+    System.arraycopy(header, 0, block, 0, header.length);
+    System.arraycopy(extra, 0, block, header.length, xlen);
+    int offset = header.length + xlen;
+    if (readFully(is, block, offset, blockSize - offset) < blockSize - offset)
+      throw new ZipException("Unexpected end of BGZF block");
+    checkDataSize(block);
+    return block;
+  }
+
+  /**
+   * Inflates the given BGZF block, checking its CRC32 and size.
+   *
+   * @param block    the block, as returned by {@link #readBlock(InputStream)}
+   * @param inflater the (reusable) inflater to use
+   * @return the uncompressed data
+   * @throws ZipException if the block is corrupted
+   */
+  static byte[] inflate(final byte[] block, final Inflater inflater) throws ZipException {
+    int flags = block[3];
+    int offset = 12 + u16(block, 10);
+    if ((flags & FNAME) != 0)
+      offset = skipZeroTerminated(block, offset);
+    if ((flags & FCOMMENT) != 0)
+      offset = skipZeroTerminated(block, offset);
+    if ((flags & FHCRC) != 0)
+      offset += 2;
+
+    int trailer = block.length - TRAILER_SIZE;
+    byte[] data = new byte[checkDataSize(block)];
+    inflater.reset();
+    inflater.setInput(block, offset, trailer - offset);
+    try {
+      int n = 0;
+      byte[] overflow = new byte[1];
+      while (!inflater.finished()) {
+        // once the data are full, only the end of the deflate stream is expected (i.e no more data)
+        int inflated = n < data.length ? inflater.inflate(data, n, data.length - n) : inflater.inflate(overflow);
+        if (inflated == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()) || n + inflated > data.length)
+          throw new ZipException("Corrupt BGZF block (bad size)");
+        n += inflated;
+      }
+      if (n != data.length)
+        throw new ZipException("Corrupt BGZF block (bad size)");
+    } catch (DataFormatException e) {
+      throw new ZipException("Corrupt BGZF block: " + e.getMessage());
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, data.length);
+    if ((int) crc.getValue() != u32(block, trailer))
+      throw new ZipException("Corrupt BGZF block (bad CRC32)");
+    return data;
+  }
+
+  /**
+   * Deflates the given data into a BGZF block.
+   *
+   * @param data     the buffer holding the data (at most {@link #MAX_BLOCK_DATA_SIZE} bytes)
+   * @param length   the number of bytes of the buffer to deflate
+   * @param deflater the (reusable) deflater to use, created with <code>nowrap</code>
+   * @param buffer   a (reusable) buffer, of at least 64KB
+   * @return the size of the block, written at the beginning of <code>buffer</code>
+   */
+  static int deflate(final byte[] data, final int length, final Deflater deflater, final byte[] buffer) {
+    deflater.reset();
+    deflater.setInput(data, 0, length);
+    deflater.finish();
+    int size = HEADER_SIZE;
+    while (!deflater.finished())
+      size += deflater.deflate(buffer, size, buffer.length - TRAILER_SIZE - size);
+
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, length);
+
+    // header: magic, CM=deflate, FLG=FEXTRA, MTIME=0, XFL=0, OS=unknown, XLEN=6, then BC subfield holding (block size - 1)
+    byte[] header = {31, (byte) 139, 8, FEXTRA, 0, 0, 0, 0, 0, (byte) 255, 6, 0, 'B', 'C', 2, 0, 0, 0};
+    System.arraycopy(header, 0, buffer, 0, HEADER_SIZE);
+    int blockSize = size + TRAILER_SIZE;
+    putU16(buffer, 16, blockSize - 1);
+    putU32(buffer, size, (int) crc.getValue());
+    putU32(buffer, size + 4, length);
+    return blockSize;
+  }
+
+  /**
+   * @return the empty block that conventionally ends a BGZF file
+   */
+  static byte[] eofBlock() {
+    byte[] buffer = new byte[64];
+    int size = deflate(new byte[0], 0, new Deflater(Deflater.DEFAULT_COMPRESSION, true), buffer);
+    byte[] block = new byte[size];
+    System.arraycopy(buffer, 0, block, 0, size);
+    return block;
+  }
+
+  /**
+   * @return the size of the uncompressed data of the given block (its <code>ISIZE</code>)
+   * @throws ZipException if the size is larger than a block can hold
+   */
+  private static int checkDataSize(final byte[] block) throws ZipException {
+    int dataSize = u32(block, block.length - 4);
+    if (dataSize < 0 || dataSize > MAX_BLOCK_SIZE)
+      throw new ZipException("Not in BGZF format (data size too large: " + (dataSize & 0xffffffffL) + ")");
+    return dataSize;
+  }
+
+  private static boolean isGzipHeader(final byte[] header) {
+    return (header[0] & 0xff) == 31 && (header[1] & 0xff) == 139 && header[2] == 8 && (header[3] & ~(FTEXT | FHCRC | FEXTRA | FNAME | FCOMMENT)) == 0;
+  }
+
+  /**
+   * @return the size of the block, as stored in the <code>BC</code> subfield of the given extra field, or -1 if not found
+   */
+  private static int findBlockSize(final byte[] extra, final int from, final int to) {
+    int i = from;
+    while (i + 4 <= to) {
+      int subfieldLength = u16(extra, i + 2);
+      if (extra[i] == 'B' && extra[i + 1] == 'C' && subfieldLength == 2 && i + 6 <= to)
+        return u16(extra, i + 4) + 1;
+      i += 4 + subfieldLength;
+    }
+    return -1;
+  }
+
+  private static int skipZeroTerminated(final byte[] block, int offset) {
+    while (block[offset] != 0)
+      offset++;
+    return offset + 1;
+  }
+
+  private static int readFully(final InputStream is, final byte[] b, final int off, final int len) throws IOException {
+    int n = 0;
+    while (n < len) {
+      int read = is.read(b, off + n, len - n);
+      if (read == -1)
+        break;
+      n += read;
+    }
+    return n;
+  }
+
+  private static int u16(final byte[] b, final int i) {
+    return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8;
+  }
+
+  private static int u32(final byte[] b, final int i) {
+    return u16(b, i) | u16(b, i + 2) << 16;
+  }
+
+  private static void putU16(final byte[] b, final int i, final int v) {
+    b[i] = (byte) v;
+    b[i + 1] = (byte) (v >>> 8);
+  }
+
+  private static void putU32(final byte[] b, final int i, final int v) {
+    putU16(b, i, v);
+    putU16(b, i + 2, v >>> 16);
+  }
+}
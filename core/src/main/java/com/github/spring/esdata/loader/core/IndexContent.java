@@ -0,0 +1,166 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content of an index (the id and a hash of the source of each of its documents), as loaded with
+ * {@link LoadStrategy#DIFFERENTIAL}, so that the next load of the index only sends the documents that changed.
+ * <br>
+ * Contents are kept in a JVM-wide registry (by client and by index), along with a watermark of the index (the maximum
+ * sequence number of each of its primary shards) taken right after the load: as long as the watermark is unchanged, nothing
+ * else wrote to the index, which still holds the registered content.
+ *
+ * @author tinesoft
+ */
+final class IndexContent {
+
+  // by client (i.e by cluster, as tests may each start their own one), then by index
+  private static final Map<Object, Map<String, IndexContent>> REGISTRY = new WeakHashMap<>();
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final IndexData data;
+  private final IndexContent base;
+  private final Set<String> dirtyIds;
+  private final Map<String, Long> hashesById = new ConcurrentHashMap<>();
+  private volatile boolean complete = true;
+  private long[] watermark;
+
+  /**
+   * @param data the data the content is loaded from
+   * @param base the content the index holds before the load, or {@code null} if the index is loaded from scratch
+   */
+  IndexContent(final IndexData data, final IndexContent base) {
+    this(data, base, Collections.emptySet());
+  }
+
+  /**
+   * @param data     the data the content is loaded from
+   * @param base     the content the index holds before the load, or {@code null} if the index is loaded from scratch
+   * @param dirtyIds the ids of the documents written to the index since the base content was loaded (e.g by a test)
+   */
+  IndexContent(final IndexData data, final IndexContent base, final Set<String> dirtyIds) {
+    this.data = data;
+    this.base = base;
+    this.dirtyIds = dirtyIds;
+  }
+
+  /**
+   * Gets the registered content of the given index.
+   *
+   * @param esOperations the {@link ElasticsearchOperations} of the cluster
+   * @param index        the index
+   * @return the content of the index, or {@code null} if not known
+   */
+  static synchronized IndexContent get(final ElasticsearchOperations esOperations, final String index) {
+    Map<String, IndexContent> contents = REGISTRY.get(esOperations.getClient());
+    return contents != null ? contents.get(index) : null;
+  }
+
+  /**
+   * Registers the given content of the given index, or forgets the content of the index.
+   *
+   * @param esOperations the {@link ElasticsearchOperations} of the cluster
+   * @param index        the index
+   * @param content      the content of the index, or {@code null} if no longer known
+   */
+  static synchronized void put(final ElasticsearchOperations esOperations, final String index, final IndexContent content) {
+    if (content != null)
+      REGISTRY.computeIfAbsent(esOperations.getClient(), c -> new HashMap<>()).put(index, content);
+    else if (REGISTRY.containsKey(esOperations.getClient()))
+      REGISTRY.get(esOperations.getClient()).remove(index);
+  }
+
+  /**
+   * Records the given document as part of the content, and tells whether it must be sent to the index.
+   *
+   * @param document the document
+   * @return {@code true} if the document is new, changed since the base content, or dirty, {@code false} if unchanged
+   */
+  boolean add(final EsDocument document) {
+    if (document.getId() == null) {
+      this.complete = false;// id generated by Elasticsearch: the document cannot be tracked
+      return true;
+    }
+    long hash = hash(document.getSource());
+    this.hashesById.put(document.getId(), hash);
+    return this.base == null || this.dirtyIds.contains(document.getId())
+      || !Long.valueOf(hash).equals(this.base.hashesById.get(document.getId()));
+  }
+
+  /**
+   * @return {@code true} if the index holds a base content (i.e only the differences are sent), {@code false} otherwise
+   */
+  boolean hasBase() {
+    return this.base != null;
+  }
+
+  /**
+   * Marks the content as not fully known (e.g when documents are sent as is, in {@link EsDataFormat#BULK} format).
+   */
+  void setIncomplete() {
+    this.complete = false;
+  }
+
+  /**
+   * @return {@code true} if all the documents of the content are known, {@code false} otherwise
+   */
+  boolean isComplete() {
+    return this.complete;
+  }
+
+  /**
+   * @return the ids of the documents of the base content (or dirty) that are not part of this content
+   */
+  List<String> getRemovedIds() {
+    return this.base == null ? Collections.emptyList() : Stream.concat(this.base.hashesById.keySet().stream(), this.dirtyIds.stream())//
+      .distinct()//
+      .filter(id -> !this.hashesById.containsKey(id))//
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * @return the data the content is loaded from
+   */
+  IndexData getData() {
+    return this.data;
+  }
+
+  /**
+   * @return the ids of the documents of the content
+   */
+  Set<String> getIds() {
+    return this.hashesById.keySet();
+  }
+
+  long[] getWatermark() {
+    return this.watermark;
+  }
+
+  void setWatermark(final long[] watermark) {
+    this.watermark = watermark;
+  }
+
+  /**
+   * 64-bit FNV-1a hash of the given source.
+   */
+  private static long hash(final String source) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < source.length(); i++) {
+      hash ^= source.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+}
@@ -6,22 +6,49 @@ package com.github.spring.esdata.loader.core;
  * Data is basically represented by:
  * <ul>
  *      <li><code>esEntityClass</code>: mapping class, used to create the corresponding index and mapping</li>
- *      <li><code>location</code>: path to the JSON file that contains the actual data to import (can be gzipped)</li>
+ *      <li><code>location</code>: path to the JSON file that contains the actual data to import (can be gzipped). Either a
+ *      Spring resource location (<code>classpath:</code>, <code>file:</code>) or a plain path in the classpath. Synthetic data
+ *      (see {@link GenerateEsData}) have a location of the form <code>generated:seed=&lt;seed&gt;</code>, and their count as <code>nbMaxItems</code></li>
  *      <li><code>nbMaxItems</code> (<i>optional</i>): how many max items to load (<code>all</code> <i>by default</i> )</li>
  *      <li><code>nbSkipItems</code> (<i>optional</i>): how many items to skip (<code>0</code> <i>by default</i> )</li>
  *      <li><code>format</code> (<i>optional</i>): format of the data to import (<code>null</code> <i>by default</i>, will be detected from JSON file content )</li>
+ *      <li><code>bulkSize</code> (<i>optional</i>): max number of documents sent per bulk request (<code>1000</code> <i>by default</i> )</li>
+ *      <li><code>bulkMaxBytes</code> (<i>optional</i>): max size (in bytes) of the documents sent per bulk request (<code>5MB</code> <i>by default</i> )</li>
+ *      <li><code>bulkConcurrency</code> (<i>optional</i>): max number of bulk requests sent concurrently (<code>2</code> <i>by default</i> )</li>
+ *      <li><code>strategy</code> (<i>optional</i>): strategy used to bring the index to the state described by the data (<code>RECREATE</code> <i>by default</i> )</li>
+ *      <li><code>tuning</code> (<i>optional</i>): how the settings of the index are tuned during the load (<code>NONE</code> <i>by default</i> )</li>
  * </ul>
  *
  * @author tinesoft
  */
 public class IndexData {
 
+  /**
+   * Default maximum number of documents sent to Elasticsearch in a single bulk request.
+   */
+  public static final int DEFAULT_BULK_SIZE = 1000;
+
+  /**
+   * Default maximum size (in bytes) of the documents sent to Elasticsearch in a single bulk request.
+   */
+  public static final long DEFAULT_BULK_MAX_BYTES = 5L * 1024 * 1024;
+
+  /**
+   * Default maximum number of bulk requests sent concurrently to Elasticsearch.
+   */
+  public static final int DEFAULT_BULK_CONCURRENCY = 2;
+
   final Class<?> esEntityClass;
   final String location;
   final boolean gzipped;
   final Long nbMaxItems;
   final Long nbSkipItems;
   final EsDataFormat format;
+  final int bulkSize;
+  final long bulkMaxBytes;
+  final int bulkConcurrency;
+  final LoadStrategy strategy;
+  final LoadTuning tuning;
 
   /**
    * @param esEntityClass mapping class of the data to be indexed in ES
@@ -33,12 +60,44 @@ public class IndexData {
    */
   public IndexData(final Class<?> esEntityClass, final String location, final boolean gzipped, final Long nbMaxItems,
                    final Long nbSkipItems, final EsDataFormat format) {
+    this(esEntityClass, location, gzipped, nbMaxItems, nbSkipItems, format, DEFAULT_BULK_SIZE, DEFAULT_BULK_MAX_BYTES,
+      DEFAULT_BULK_CONCURRENCY, LoadStrategy.RECREATE, LoadTuning.NONE);
+  }
+
+  /**
+   * @param esEntityClass mapping class of the data to be indexed in ES
+   * @param location      path to the file that contains data (as JSON) to be indexed
+   * @param gzipped       whether or not the data is gzipped (true by default)
+   * @param nbMaxItems    maximum number of items to load
+   * @param nbSkipItems   number of items to skip
+   * @param format        format of the data to load ({@code null} to detect it, like {@link EsDataFormat#UNKNOWN})
+   * @param bulkSize      maximum number of documents sent per bulk request
+   * @param bulkMaxBytes    maximum size (in bytes) of the documents sent per bulk request
+   * @param bulkConcurrency maximum number of bulk requests sent concurrently
+   * @param strategy        strategy used to bring the index to the state described by the data
+   * @param tuning          how the settings of the index are tuned during the load
+   */
+  public IndexData(final Class<?> esEntityClass, final String location, final boolean gzipped, final Long nbMaxItems,
+                   final Long nbSkipItems, final EsDataFormat format, final int bulkSize, final long bulkMaxBytes,
+                   final int bulkConcurrency, final LoadStrategy strategy, final LoadTuning tuning) {
+    if (bulkSize <= 0)
+      throw new IllegalArgumentException("bulkSize must be strictly positive, but was: " + bulkSize);
+    if (bulkMaxBytes <= 0)
+      throw new IllegalArgumentException("bulkMaxBytes must be strictly positive, but was: " + bulkMaxBytes);
+    if (bulkConcurrency <= 0)
+      throw new IllegalArgumentException("bulkConcurrency must be strictly positive, but was: " + bulkConcurrency);
+
     this.esEntityClass = esEntityClass;
     this.location = location;
     this.gzipped = gzipped;
     this.nbMaxItems = nbMaxItems;
     this.nbSkipItems = nbSkipItems;
-    this.format = format;
+    this.format = format != null ? format : EsDataFormat.UNKNOWN;
+    this.bulkSize = bulkSize;
+    this.bulkMaxBytes = bulkMaxBytes;
+    this.bulkConcurrency = bulkConcurrency;
+    this.strategy = strategy != null ? strategy : LoadStrategy.RECREATE;
+    this.tuning = tuning != null ? tuning : LoadTuning.NONE;
   }
 
   /**
@@ -76,8 +135,32 @@ public class IndexData {
    */
   public static IndexData of(final Class<?> esEntityClass, final String location, final Long nbMaxItems,
                              final Long nbSkipItems, final EsDataFormat format) {
+    return of(esEntityClass, location, nbMaxItems, nbSkipItems, format, DEFAULT_BULK_SIZE, DEFAULT_BULK_MAX_BYTES,
+      DEFAULT_BULK_CONCURRENCY, LoadStrategy.RECREATE, LoadTuning.NONE);
+  }
+
+  /**
+   * Builds a new {@link IndexData} using provided parameters.
+   *
+   * @param esEntityClass mapping class of the data to be indexed in ES
+   * @param location      path to the file that contains data (as JSON) to be indexed
+   * @param nbMaxItems    maximum number of items to load
+   * @param nbSkipItems   number of items to skip
+   * @param format        format of the data to load ({@code null} to detect it, like {@link EsDataFormat#UNKNOWN})
+   * @param bulkSize      maximum number of documents sent per bulk request
+   * @param bulkMaxBytes    maximum size (in bytes) of the documents sent per bulk request
+   * @param bulkConcurrency maximum number of bulk requests sent concurrently
+   * @param strategy        strategy used to bring the index to the state described by the data
+   * @param tuning          how the settings of the index are tuned during the load
+   * @return a new {@link IndexData}
+   */
+  public static IndexData of(final Class<?> esEntityClass, final String location, final Long nbMaxItems,
+                             final Long nbSkipItems, final EsDataFormat format, final int bulkSize,
+                             final long bulkMaxBytes, final int bulkConcurrency, final LoadStrategy strategy,
+                             final LoadTuning tuning) {
     boolean gzipped = location.toLowerCase().endsWith(".gz");
-    return new IndexData(esEntityClass, location, gzipped, nbMaxItems, nbSkipItems, format);
+    return new IndexData(esEntityClass, location, gzipped, nbMaxItems, nbSkipItems, format, bulkSize, bulkMaxBytes,
+      bulkConcurrency, strategy, tuning);
   }
 
   /**
@@ -87,7 +170,32 @@ public class IndexData {
    * @return a new {@link IndexData}
    */
   public static IndexData of(final LoadEsData a) {
-    return of(a.esEntityClass(), a.location(), a.nbMaxItems(), a.nbSkipItems(), a.format());
+    return of(a.esEntityClass(), a.location(), a.nbMaxItems(), a.nbSkipItems(), a.format(), a.bulkSize(),
+      a.bulkMaxBytes(), a.bulkConcurrency(), a.strategy(), a.tuning());
+  }
+
+  /**
+   * Builds a new {@link IndexData} describing synthetic data, generated from the mapping of the given class.
+   *
+   * @param esEntityClass mapping class of the data to be generated in ES
+   * @param count         number of documents to generate
+   * @param seed          seed of the generated values
+   * @return a new {@link IndexData}
+   * @see GenerateEsData
+   */
+  public static IndexData generated(final Class<?> esEntityClass, final long count, final long seed) {
+    return of(esEntityClass, EsDataGenerator.locationOf(seed), count, 0L, null);
+  }
+
+  /**
+   * Builds a new {@link IndexData} using provided parameter.
+   *
+   * @param a {@link GenerateEsData} to construct the data from
+   * @return a new {@link IndexData}
+   */
+  public static IndexData of(final GenerateEsData a) {
+    return of(a.esEntityClass(), EsDataGenerator.locationOf(a.seed()), a.count(), 0L, null, a.bulkSize(),
+      a.bulkMaxBytes(), a.bulkConcurrency(), a.strategy(), a.tuning());
   }
 
   public Class<?> getEsEntityClass() {
@@ -113,4 +221,24 @@ public class IndexData {
   public EsDataFormat getFormat() {
     return this.format;
   }
+
+  public int getBulkSize() {
+    return this.bulkSize;
+  }
+
+  public long getBulkMaxBytes() {
+    return this.bulkMaxBytes;
+  }
+
+  public int getBulkConcurrency() {
+    return this.bulkConcurrency;
+  }
+
+  public LoadStrategy getStrategy() {
+    return this.strategy;
+  }
+
+  public LoadTuning getTuning() {
+    return this.tuning;
+  }
 }
@@ -0,0 +1,137 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Utility class to compute the fingerprint of some {@link IndexData}, and to store/retrieve it into/from the
+ * metadata (<code>_meta</code>) of the mapping of the target index.
+ *
+ * @author tinesoft
+ * @see LoadStrategy#FINGERPRINT
+ */
+final class IndexFingerprint {
+
+  static final String META_FIELD = "_meta";
+  static final String FINGERPRINT_FIELD = "spring_esdata_loader_fingerprint";
+
+  private IndexFingerprint() {
+  }
+
+  /**
+   * Computes the fingerprint of the given data, that is a SHA-256 hash of the location, the content, the skip/limit,
+   * the format of the data, as well as the mapping of the target entity.
+   *
+   * @param d            the data
+   * @param esEntityInfo the information about the target entity
+   * @param content      the raw content (as stored) of the data file
+   * @return the fingerprint, as an hexadecimal string
+   */
+  static String compute(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo, final InputStream content) {
+    MessageDigest digest = newDigest();
+
+    update(digest, d.location);
+    update(digest, String.valueOf(d.nbSkipItems));
+    update(digest, String.valueOf(d.nbMaxItems));
+    update(digest, String.valueOf(d.format));
+    update(digest, esEntityInfo.getIndexName());
+    update(digest, esEntityInfo.getIndexType());
+    updateWithMapping(digest, d.esEntityClass);
+
+    byte[] buffer = new byte[64 * 1024];
+    try {
+      int read;
+      while ((read = content.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Reads the fingerprint stored into the index of the given entity.
+   *
+   * @param esOperations  the {@link ElasticsearchOperations}
+   * @param esEntityClass the mapping class of the index
+   * @return the fingerprint, or {@code null} if the index does not exist or was not loaded with a fingerprint
+   */
+  @SuppressWarnings("unchecked")
+  static String read(final ElasticsearchOperations esOperations, final Class<?> esEntityClass) {
+    if (!esOperations.indexExists(esEntityClass))
+      return null;
+
+    Map<String, Object> mapping = esOperations.getMapping(esEntityClass);
+    Object meta = mapping != null ? mapping.get(META_FIELD) : null;
+    if (!(meta instanceof Map))
+      return null;
+
+    Object fingerprint = ((Map<String, Object>) meta).get(FINGERPRINT_FIELD);
+    return fingerprint != null ? fingerprint.toString() : null;
+  }
+
+  /**
+   * Stores the given fingerprint into the index of the given entity (existing fields of the mapping are kept as is).
+   *
+   * @param esOperations  the {@link ElasticsearchOperations}
+   * @param esEntityClass the mapping class of the index
+   * @param fingerprint   the fingerprint to store, {@code null} to remove the existing one
+   */
+  static void write(final ElasticsearchOperations esOperations, final Class<?> esEntityClass, final String fingerprint) {
+    Map<String, Object> meta = fingerprint != null ? Collections.singletonMap(FINGERPRINT_FIELD, fingerprint) : Collections.emptyMap();
+    esOperations.putMapping(esEntityClass, Collections.singletonMap(META_FIELD, meta));
+  }
+
+  /**
+   * Updates the digest with the structure of the given entity class (fields, types and annotations), used as a proxy
+   * of the mapping that Spring Data derives from it.
+   */
+  private static void updateWithMapping(final MessageDigest digest, final Class<?> esEntityClass) {
+    for (Class<?> c = esEntityClass; c != null && c != Object.class; c = c.getSuperclass()) {
+      update(digest, c.getName());
+      update(digest, Arrays.toString(c.getDeclaredAnnotations()));
+
+      Field[] fields = c.getDeclaredFields();
+      Arrays.sort(fields, (f1, f2) -> f1.getName().compareTo(f2.getName()));// declaration order is not guaranteed
+      for (Field f : fields) {
+        update(digest, f.getName());
+        update(digest, f.getGenericType().getTypeName());
+        update(digest, Arrays.toString(f.getDeclaredAnnotations()));
+      }
+    }
+  }
+
+  private static void update(final MessageDigest digest, final String value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);// separator, so that ("ab","c") and ("a","bc") do not collide
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 algorithm is not available", e);
+    }
+  }
+
+  private static String toHex(final byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,30 @@
+package com.github.spring.esdata.loader.core;
+
+import java.lang.annotation.*;
+
+/**
+ * {@code @IsolateEsData} is an annotation that makes the data of a test class load into indices of their own (instead of the
+ * indices shared by all the tests), so that test classes using the same mapping classes can run in parallel on the same cluster.
+ * <br>
+ * While the tests of the class run, the {@linkplain EsIndexNamespace index namespace} of the test thread is set, and the
+ * isolated indices are dropped once the tests of the class have run. The index names of the mapping classes must be resolved
+ * through the namespace, for instance:
+ * <pre>
+ * &#64;Document(indexName = "#{T(com.github.spring.esdata.loader.core.EsIndexNamespace).resolve('author')}", type = "Author")
+ * </pre>
+ *
+ * @author tinesoft
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+@Documented
+public @interface IsolateEsData {
+
+  /**
+   * scope of the isolated indices
+   *
+   * @return scope of the isolated indices
+   */
+  IsolationScope value() default IsolationScope.CLASS;
+}
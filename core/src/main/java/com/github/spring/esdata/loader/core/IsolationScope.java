@@ -0,0 +1,17 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Enum defining the scopes of the isolated indices (see {@link IsolateEsData}).
+ */
+public enum IsolationScope {
+  /**
+   * Each test class gets its own indices (<i>default</i>), so that test classes can run in parallel (e.g with JUnit
+   * Platform parallel execution).
+   */
+  CLASS,
+  /**
+   * Each JVM (e.g each Gradle test fork, see <code>maxParallelForks</code>) gets its own indices, shared by the test classes
+   * it runs one after another.
+   */
+  FORK
+}
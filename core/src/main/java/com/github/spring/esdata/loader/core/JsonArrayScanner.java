@@ -0,0 +1,93 @@
+package com.github.spring.esdata.loader.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Structural scanner that finds the boundaries of the elements of a top-level JSON array (i.e content in
+ * {@link EsDataFormat#MANUAL} format), without parsing them.
+ * <br>
+ * Only the bytes that matter to the structure are looked at: brackets, braces, commas and quotes (skipping the escaped
+ * characters within strings). Since all of them are ASCII, they can never be mistaken for a part of a multi-byte UTF-8
+ * character, so no decoding is needed either. This is much faster than a real parsing, and allows the elements to be
+ * parsed afterwards, in parallel.
+ *
+ * @author tinesoft
+ */
+final class JsonArrayScanner {
+
+  /**
+   * Max size of the content that can be scanned (offsets of the elements are stored as <code>int</code>).
+   */
+  static final long MAX_SIZE = Integer.MAX_VALUE;
+
+  private JsonArrayScanner() {
+  }
+
+  /**
+   * Scans the given content (from its position to its limit) for the elements of the top-level JSON array.
+   * Whitespace around the elements is left out, and anything after the end of the array is ignored.
+   *
+   * @param content the content
+   * @return the offsets (relative to the position of the content) of the elements, as pairs of <code>[start, end)</code>
+   * @throws IllegalStateException if the content is not a (complete) JSON array
+   */
+  static int[] scan(final ByteBuffer content) {
+    final int from = content.position();
+    final int limit = content.limit();
+
+    int i = skipWhitespace(content, from, limit);
+    if (i == limit || content.get(i) != '[')
+      throw new IllegalStateException("Not a valid EsDataFormat.MANUAL format. Expected an array");
+
+    int[] offsets = new int[1024];
+    int nbOffsets = 0;
+    int depth = 1;
+    int elementStart = skipWhitespace(content, i + 1, limit);
+    boolean inString = false;
+
+    for (i = elementStart; i < limit; i++) {
+      byte b = content.get(i);
+      if (inString) {
+        if (b == '\\')
+          i++;// the escaped character can not end the string
+        else if (b == '"')
+          inString = false;
+      } else if (b == '"') {
+        inString = true;
+      } else if (b == '{' || b == '[') {
+        depth++;
+      } else if ((b == ',' && depth == 1) || ((b == '}' || b == ']') && --depth == 0)) {
+        // end of the current element: either followed by another one, or by the end of the array
+        int elementEnd = i;
+        while (elementEnd > elementStart && isWhitespace(content.get(elementEnd - 1)))
+          elementEnd--;
+        if (elementEnd > elementStart) {
+          if (nbOffsets == offsets.length)
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+          offsets[nbOffsets++] = elementStart - from;
+          offsets[nbOffsets++] = elementEnd - from;
+        } else if (b == ',' || nbOffsets > 0) {// e.g '[,' or '[{},]' (rejected like a parser does)
+          throw new IllegalStateException("Not a valid EsDataFormat.MANUAL format. Missing element at offset " + (i - from));
+        }
+        if (depth == 0 && b != ']')
+          throw new IllegalStateException("Not a valid EsDataFormat.MANUAL format. Unexpected '}' at offset " + (i - from));
+        if (depth == 0)
+          return Arrays.copyOf(offsets, nbOffsets);
+        elementStart = skipWhitespace(content, i + 1, limit);
+        i = elementStart - 1;
+      }
+    }
+    throw new IllegalStateException("Not a valid EsDataFormat.MANUAL format. Unterminated array");
+  }
+
+  private static int skipWhitespace(final ByteBuffer content, int i, final int limit) {
+    while (i < limit && isWhitespace(content.get(i)))
+      i++;
+    return i;
+  }
+
+  private static boolean isWhitespace(final byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+}
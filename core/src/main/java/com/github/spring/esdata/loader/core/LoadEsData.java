@@ -22,7 +22,8 @@ public @interface LoadEsData {
 	Class<?> esEntityClass();
 
 	/**
-	 * path to the file that contains the data
+	 * path to the file that contains the data: either a Spring resource location (<code>classpath:...</code>, <code>file:...</code>)
+	 * or a plain path, resolved from the classpath. Local files are read through memory-mapping
 	 *
 	 * @return path to the file that contains the data
 	 */
@@ -49,4 +50,46 @@ public @interface LoadEsData {
    */
   EsDataFormat format() default EsDataFormat.UNKNOWN;
 
+  /**
+   * Maximum number of documents sent to Elasticsearch in a single bulk request.
+   * Data are streamed from the file and flushed as soon as either this limit or {@link #bulkMaxBytes()} is reached.
+   *
+   * @return maximum number of documents per bulk request
+   */
+  int bulkSize() default IndexData.DEFAULT_BULK_SIZE;
+
+  /**
+   * Maximum size (in bytes) of the documents sent to Elasticsearch in a single bulk request.
+   * Data are streamed from the file and flushed as soon as either this limit or {@link #bulkSize()} is reached.
+   *
+   * @return maximum size (in bytes) of the documents per bulk request
+   */
+  long bulkMaxBytes() default IndexData.DEFAULT_BULK_MAX_BYTES;
+
+  /**
+   * Maximum number of bulk requests sent concurrently to Elasticsearch, while the data keep being parsed.
+   * Parsing is slowed down when the cluster falls behind.
+   *
+   * @return maximum number of bulk requests sent concurrently
+   */
+  int bulkConcurrency() default IndexData.DEFAULT_BULK_CONCURRENCY;
+
+  /**
+   * Strategy used to bring the target index to the state described by the data.
+   * By default, the index is always dropped, recreated and filled with the data.
+   *
+   * @return strategy used to load the data
+   * @see LoadStrategy
+   */
+  LoadStrategy strategy() default LoadStrategy.RECREATE;
+
+  /**
+   * How the settings of the target index are tuned while the data are loaded (refresh disabled, no replicas, async translog).
+   * By default, the settings are left as is.
+   *
+   * @return how the settings of the index are tuned during the load
+   * @see LoadTuning
+   */
+  LoadTuning tuning() default LoadTuning.NONE;
+
 }
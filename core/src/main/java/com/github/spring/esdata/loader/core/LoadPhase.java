@@ -0,0 +1,61 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Enum defining the phases of a load (or delete) of data, whose durations are reported in {@link LoadReport}.
+ * <br>
+ * Durations are wall times, measured on the thread doing the load: they add up to (about) the total duration of the load.
+ */
+public enum LoadPhase {
+  /**
+   * Computing the fingerprint of the data (and comparing it with the one stored in the index), when using {@link LoadStrategy#FINGERPRINT} or {@link LoadStrategy#GOLDEN_INDEX}.
+   */
+  FINGERPRINT,
+  /**
+   * Checking whether the index still holds the content of its previous load, and recording its new content, when using {@link LoadStrategy#DIFFERENTIAL}.
+   */
+  DIFF,
+  /**
+   * Deleting the data, when using {@link EsDataLoader#delete(Class, DeleteStrategy)}.
+   */
+  DELETE,
+  /**
+   * Dropping and recreating the index (and its mapping).
+   */
+  RECREATE,
+  /**
+   * Tuning the settings of the index for bulk indexing, and restoring them afterwards (see {@link LoadTuning}).
+   */
+  SETTINGS,
+  /**
+   * Reading the raw content of the file.
+   */
+  READ,
+  /**
+   * Decompressing the content of the file, if gzipped.
+   */
+  DECOMPRESS,
+  /**
+   * Parsing the content of the file into documents, and preparing the bulk requests.
+   */
+  PARSE,
+  /**
+   * Generating the documents (see {@link GenerateEsData}), and preparing the bulk requests.
+   */
+  GENERATE,
+  /**
+   * Waiting for the bulk requests to complete (i.e when Elasticsearch is slower than the parsing of the data).
+   */
+  BULK,
+  /**
+   * Finding the documents written since a checkpoint, when {@linkplain EsDataLoader#rollback(EsDataCheckpoint) rolling back} an index.
+   */
+  ROLLBACK,
+  /**
+   * Refreshing the index, once loaded.
+   */
+  REFRESH,
+  /**
+   * Restoring the data from, or copying them into, a golden index (see {@link LoadStrategy#GOLDEN_INDEX}).
+   */
+  GOLDEN_INDEX
+}
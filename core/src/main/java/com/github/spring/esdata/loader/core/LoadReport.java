@@ -0,0 +1,118 @@
+package com.github.spring.esdata.loader.core;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Report of a load (or delete) of data into Elasticsearch, made of the number of documents processed, the number of bytes
+ * read and the time spent in each {@link LoadPhase}.
+ *
+ * @author tinesoft
+ */
+public final class LoadReport {
+
+  private final Class<?> esEntityClass;
+  private final String indexName;
+  private final boolean successful;
+  private final long nbRead;
+  private final long nbSkipped;
+  private final long nbIndexed;
+  private final long nbFailed;
+  private final long bytesRead;
+  private final Map<LoadPhase, Duration> durations;
+  private final Duration totalDuration;
+
+  /**
+   * @param esEntityClass the mapping class of the data
+   * @param indexName     the name of the target index
+   * @param successful    whether or not the load completed successfully
+   * @param nbRead        number of documents read from the file (skipped ones excluded)
+   * @param nbSkipped     number of documents skipped (see {@link IndexData#getNbSkipItems()})
+   * @param nbIndexed     number of documents successfully indexed
+   * @param nbFailed      number of documents that could not be indexed
+   * @param bytesRead     number of bytes read from the file (as stored, i.e before decompression)
+   * @param durations     time spent in each phase (missing phases did not happen)
+   * @param totalDuration total duration of the load
+   */
+  public LoadReport(final Class<?> esEntityClass, final String indexName, final boolean successful, final long nbRead,
+                    final long nbSkipped, final long nbIndexed, final long nbFailed, final long bytesRead,
+                    final Map<LoadPhase, Duration> durations, final Duration totalDuration) {
+    this.esEntityClass = esEntityClass;
+    this.indexName = indexName;
+    this.successful = successful;
+    this.nbRead = nbRead;
+    this.nbSkipped = nbSkipped;
+    this.nbIndexed = nbIndexed;
+    this.nbFailed = nbFailed;
+    this.bytesRead = bytesRead;
+    this.durations = durations.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new EnumMap<>(durations));
+    this.totalDuration = totalDuration;
+  }
+
+  public Class<?> getEsEntityClass() {
+    return this.esEntityClass;
+  }
+
+  public String getIndexName() {
+    return this.indexName;
+  }
+
+  public boolean isSuccessful() {
+    return this.successful;
+  }
+
+  public long getNbRead() {
+    return this.nbRead;
+  }
+
+  public long getNbSkipped() {
+    return this.nbSkipped;
+  }
+
+  public long getNbIndexed() {
+    return this.nbIndexed;
+  }
+
+  public long getNbFailed() {
+    return this.nbFailed;
+  }
+
+  public long getBytesRead() {
+    return this.bytesRead;
+  }
+
+  /**
+   * @return the time spent in each phase, in the order they happen. Phases that did not happen are missing
+   */
+  public Map<LoadPhase, Duration> getDurations() {
+    return this.durations;
+  }
+
+  /**
+   * @param phase the phase
+   * @return the time spent in the given phase ({@link Duration#ZERO} if it did not happen)
+   */
+  public Duration getDuration(final LoadPhase phase) {
+    return this.durations.getOrDefault(phase, Duration.ZERO);
+  }
+
+  public Duration getTotalDuration() {
+    return this.totalDuration;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("LoadReport{index='").append(this.indexName).append('\'')
+      .append(", successful=").append(this.successful)
+      .append(", read=").append(this.nbRead)
+      .append(", skipped=").append(this.nbSkipped)
+      .append(", indexed=").append(this.nbIndexed)
+      .append(", failed=").append(this.nbFailed)
+      .append(", bytesRead=").append(this.bytesRead)
+      .append(", total=").append(this.totalDuration.toMillis()).append("ms");
+    this.durations.forEach((phase, duration) -> sb.append(", ").append(phase.name().toLowerCase()).append('=').append(duration.toMillis()).append("ms"));
+    return sb.append('}').toString();
+  }
+}
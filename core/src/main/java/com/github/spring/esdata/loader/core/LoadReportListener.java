@@ -0,0 +1,18 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Listener notified of the {@link LoadReport} of every load (or delete) of data, successful or not.
+ *
+ * @author tinesoft
+ */
+@FunctionalInterface
+public interface LoadReportListener {
+
+  /**
+   * Listener that does nothing.
+   */
+  LoadReportListener NONE = report -> {
+  };
+
+  void onReport(LoadReport report);
+}
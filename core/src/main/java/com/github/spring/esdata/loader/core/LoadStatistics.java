@@ -0,0 +1,90 @@
+package com.github.spring.esdata.loader.core;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of a load (or delete) of data, while it happens, to later build its {@link LoadReport}.
+ * <br>
+ * Counters can safely be updated from several threads (e.g by the workers sending the bulk requests).
+ *
+ * @author tinesoft
+ */
+final class LoadStatistics {
+
+  private final long startNanos = System.nanoTime();
+  private final LongAdder nbRead = new LongAdder();
+  private final LongAdder nbSkipped = new LongAdder();
+  private final LongAdder nbIndexed = new LongAdder();
+  private final LongAdder nbFailed = new LongAdder();
+  private final LongAdder bytesRead = new LongAdder();
+  private final Map<LoadPhase, LongAdder> nanos = new EnumMap<>(LoadPhase.class);
+
+  LoadStatistics() {
+    for (LoadPhase phase : LoadPhase.values())
+      this.nanos.put(phase, new LongAdder());
+  }
+
+  /**
+   * Adds the time elapsed since <code>startNanos</code> to the given phase.
+   *
+   * @param phase      the phase
+   * @param startNanos the start of the phase, as given by {@link System#nanoTime()}
+   * @return the end of the phase (that can be used as start of the next one)
+   */
+  long record(final LoadPhase phase, final long startNanos) {
+    long endNanos = System.nanoTime();
+    this.addNanos(phase, endNanos - startNanos);
+    return endNanos;
+  }
+
+  void addNanos(final LoadPhase phase, final long nanos) {
+    this.nanos.get(phase).add(nanos);
+  }
+
+  long getNanos(final LoadPhase phase) {
+    return this.nanos.get(phase).sum();
+  }
+
+  void addRead(final long n) {
+    this.nbRead.add(n);
+  }
+
+  long getNbRead() {
+    return this.nbRead.sum();
+  }
+
+  void addSkipped(final long n) {
+    this.nbSkipped.add(n);
+  }
+
+  void addIndexed(final long n) {
+    this.nbIndexed.add(n);
+  }
+
+  void addFailed(final long n) {
+    this.nbFailed.add(n);
+  }
+
+  void addBytesRead(final long n) {
+    this.bytesRead.add(n);
+  }
+
+  /**
+   * @param esEntityClass the mapping class of the data
+   * @param indexName     the name of the target index
+   * @param successful    whether or not the load completed successfully
+   * @return the report of the load, as of now
+   */
+  LoadReport toReport(final Class<?> esEntityClass, final String indexName, final boolean successful) {
+    Map<LoadPhase, Duration> durations = new EnumMap<>(LoadPhase.class);
+    this.nanos.forEach((phase, n) -> {
+      if (n.sum() > 0)
+        durations.put(phase, Duration.ofNanos(n.sum()));
+    });
+    return new LoadReport(esEntityClass, indexName, successful, this.nbRead.sum(), this.nbSkipped.sum(),
+      this.nbIndexed.sum(), this.nbFailed.sum(), this.bytesRead.sum(), durations, Duration.ofNanos(System.nanoTime() - this.startNanos));
+  }
+}
@@ -0,0 +1,41 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Enum defining the strategies supported by the tool to bring an Elasticsearch index to the state described by the data to load.
+ */
+public enum LoadStrategy {
+  /**
+   * The index is always dropped, recreated and filled with the data (<i>default</i>).
+   */
+  RECREATE,
+  /**
+   * A fingerprint of the data (location, content digest, skip/limit, format and entity mapping) is stored into the
+   * index's mapping metadata (<code>_meta</code>) once loaded. Subsequent loads of the same data into the same index are skipped,
+   * as long as the fingerprint still matches.
+   * <br>
+   * <b>Note:</b> only suitable for data that are not modified by the tests (or that are always deleted with {@link DeleteEsData}
+   * when modified), as changes made to the documents are not part of the fingerprint.
+   */
+  FINGERPRINT,
+  /**
+   * The data are bulk loaded only once, then copied into a <i>golden</i> index (named <code>esdata-golden-&lt;index&gt;-&lt;fingerprint&gt;</code>).
+   * Subsequent loads of the same data recreate the target index and restore its content from the golden index, with a server-side
+   * copy (<code>_reindex</code>), instead of reading, parsing and sending the data again.
+   * <br>
+   * This makes reloading (big) data before each test a cheap operation, even when the tests modify the documents.
+   * Golden indices are kept on the server for later runs, they can be removed with <code>DELETE esdata-golden-*</code>.
+   * They are named after the base name of the index, so that they are shared by all the namespaces (see {@link EsIndexNamespace}).
+   */
+  GOLDEN_INDEX,
+  /**
+   * The id and a hash of each document loaded into the index are kept (in the JVM), along with a watermark of the index
+   * (the max sequence number of its primary shards). As long as nothing else wrote to the index, subsequent loads only send
+   * the documents that are new or changed, and delete the ones that are gone: the documents left unchanged are reported
+   * as skipped, and the deleted ones as indexed.
+   * <br>
+   * This makes small variations (e.g at method level) of big data cheap. The index is fully reloaded (like with {@link #RECREATE})
+   * the first time, or when it was modified since (e.g by the tests). Documents without ids, and data in {@link EsDataFormat#BULK}
+   * format can not be tracked: they are always fully reloaded.
+   */
+  DIFFERENTIAL
+}
@@ -0,0 +1,21 @@
+package com.github.spring.esdata.loader.core;
+
+/**
+ * Enum defining how the settings of an Elasticsearch index are tuned while data are bulk loaded into it.
+ */
+public enum LoadTuning {
+  /**
+   * The settings of the index are left as is (<i>default</i>).
+   */
+  NONE,
+  /**
+   * During the load, refresh is disabled (<code>refresh_interval: -1</code>), replicas are removed (<code>number_of_replicas: 0</code>)
+   * and the translog is flushed asynchronously (<code>translog.durability: async</code>). The previous settings are restored
+   * once the data are loaded.
+   */
+  RESTORE,
+  /**
+   * Same as {@link #RESTORE}, but the optimized settings are kept once the data are loaded.
+   */
+  KEEP
+}
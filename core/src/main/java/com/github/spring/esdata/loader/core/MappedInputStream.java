@@ -0,0 +1,123 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link InputStream} that reads a local file through memory-mapped regions of a {@link FileChannel}, rather than
+ * through <code>read()</code> system calls into an intermediate buffer.
+ * <br>
+ * Files bigger than 2GB (the max size of a single mapping) are mapped one window at a time.
+ *
+ * @author tinesoft
+ */
+final class MappedInputStream extends InputStream {
+
+  /**
+   * Size of the regions of the file that are mapped at once.
+   */
+  static final long WINDOW_SIZE = 1L << 30;// 1GB
+
+  private final FileChannel channel;
+  private final long size;
+  private final long windowSize;
+  private long windowStart;
+  private MappedByteBuffer window;
+
+  /**
+   * @param path the path to the file to read
+   * @throws IOException if the file could not be opened or mapped
+   */
+  MappedInputStream(final Path path) throws IOException {
+    this(path, WINDOW_SIZE);
+  }
+
+  /**
+   * @param path       the path to the file to read
+   * @param windowSize size of the regions of the file that are mapped at once
+   * @throws IOException if the file could not be opened or mapped
+   */
+  MappedInputStream(final Path path, final long windowSize) throws IOException {
+    this.windowSize = windowSize;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      this.size = this.channel.size();
+      this.map(0);
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    return this.hasRemaining() ? this.window.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0)
+      return 0;
+    if (!this.hasRemaining())
+      return -1;
+
+    int n = Math.min(len, this.window.remaining());
+    this.window.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    long position = this.position();
+    long skipped = Math.max(0, Math.min(n, this.size - position));
+    this.seek(position + skipped);
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int) Math.min(Integer.MAX_VALUE, this.size - this.position());
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.window = null;// the mapping is released once garbage collected
+    this.channel.close();
+  }
+
+  /**
+   * @return the current position in the file
+   */
+  private long position() {
+    return this.windowStart + this.window.position();
+  }
+
+  private boolean hasRemaining() throws IOException {
+    if (this.window == null)
+      throw new IOException("Stream closed");
+    if (this.window.hasRemaining())
+      return true;
+
+    long next = this.windowStart + this.window.limit();
+    if (next >= this.size)
+      return false;
+    this.map(next);
+    return true;
+  }
+
+  private void seek(final long position) throws IOException {
+    if (position >= this.windowStart && position <= this.windowStart + this.window.limit())
+      this.window.position((int) (position - this.windowStart));
+    else
+      this.map(position);
+  }
+
+  private void map(final long position) throws IOException {
+    this.windowStart = position;
+    this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(this.windowSize, this.size - position));
+  }
+}
@@ -0,0 +1,63 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} that counts the bytes read from the underlying stream, and the time spent reading them.
+ *
+ * @author tinesoft
+ */
+final class MeteredInputStream extends FilterInputStream {
+
+  private long bytes;
+  private long nanos;
+
+  MeteredInputStream(final InputStream in) {
+    super(in);
+  }
+
+  @Override
+  public int read() throws IOException {
+    long start = System.nanoTime();
+    int b = super.read();
+    this.nanos += System.nanoTime() - start;
+    if (b != -1)
+      this.bytes++;
+    return b;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    long start = System.nanoTime();
+    int n = super.read(b, off, len);
+    this.nanos += System.nanoTime() - start;
+    if (n > 0)
+      this.bytes += n;
+    return n;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    long start = System.nanoTime();
+    long skipped = super.skip(n);
+    this.nanos += System.nanoTime() - start;
+    this.bytes += skipped;
+    return skipped;
+  }
+
+  /**
+   * @return the number of bytes read so far
+   */
+  long getBytes() {
+    return this.bytes;
+  }
+
+  /**
+   * @return the time (in nanoseconds) spent reading so far
+   */
+  long getNanos() {
+    return this.nanos;
+  }
+}
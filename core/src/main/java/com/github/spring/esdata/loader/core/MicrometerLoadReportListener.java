@@ -0,0 +1,76 @@
+package com.github.spring.esdata.loader.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link LoadReportListener} that records the {@link LoadReport}s into a Micrometer {@link MeterRegistry}, as:
+ * <ul>
+ *   <li><code>esdata.load</code>: timer of the total duration of loads, tagged by <code>index</code> and <code>outcome</code> (<code>success</code> or <code>failure</code>)</li>
+ *   <li><code>esdata.load.phase</code>: timer of the duration of each phase, tagged by <code>index</code> and <code>phase</code> (see {@link LoadPhase})</li>
+ *   <li><code>esdata.load.documents</code>: counter of documents, tagged by <code>index</code> and <code>status</code> (<code>read</code>, <code>skipped</code>, <code>indexed</code> or <code>failed</code>)</li>
+ *   <li><code>esdata.load.bytes</code>: distribution summary of the bytes read per load, tagged by <code>index</code></li>
+ * </ul>
+ * Used by default by {@link SpringEsDataLoader} (with Micrometer's global registry) when Micrometer is on the classpath.
+ *
+ * @author tinesoft
+ */
+public class MicrometerLoadReportListener implements LoadReportListener {
+
+  private final MeterRegistry registry;
+
+  /**
+   * Listener that records into Micrometer's global registry ({@link Metrics#globalRegistry}).
+   */
+  public MicrometerLoadReportListener() {
+    this(Metrics.globalRegistry);
+  }
+
+  /**
+   * @param registry the registry to record into
+   */
+  public MicrometerLoadReportListener(final MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void onReport(final LoadReport report) {
+    Tags tags = Tags.of("index", report.getIndexName());
+
+    Timer.builder("esdata.load")
+      .description("Total duration of the loads of data into Elasticsearch")
+      .tags(tags).tag("outcome", report.isSuccessful() ? "success" : "failure")
+      .register(this.registry)
+      .record(report.getTotalDuration());
+
+    report.getDurations().forEach((phase, duration) -> Timer.builder("esdata.load.phase")
+      .description("Duration of each phase of the loads of data into Elasticsearch")
+      .tags(tags).tag("phase", phase.name().toLowerCase())
+      .register(this.registry)
+      .record(duration));
+
+    this.countDocuments(tags, "read", report.getNbRead());
+    this.countDocuments(tags, "skipped", report.getNbSkipped());
+    this.countDocuments(tags, "indexed", report.getNbIndexed());
+    this.countDocuments(tags, "failed", report.getNbFailed());
+
+    DistributionSummary.builder("esdata.load.bytes")
+      .description("Bytes read from the files of data loaded into Elasticsearch")
+      .baseUnit("bytes")
+      .tags(tags)
+      .register(this.registry)
+      .record(report.getBytesRead());
+  }
+
+  private void countDocuments(final Tags tags, final String status, final long count) {
+    Counter.builder("esdata.load.documents")
+      .description("Documents processed by the loads of data into Elasticsearch")
+      .tags(tags).tag("status", status)
+      .register(this.registry)
+      .increment(count);
+  }
+}
@@ -0,0 +1,208 @@
+package com.github.spring.esdata.loader.core;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * {@link InputStream} that decompresses a gzip file in the BGZF layout (see {@link GzipBlocks}) by inflating its blocks
+ * in parallel, on several threads, while keeping their order.
+ * <br>
+ * Compressed blocks are read (sequentially) by the consuming thread, grouped into batches, and inflated by the workers.
+ * At most <code>2 x parallelism</code> batches are pending at the same time, so memory usage remains bounded.
+ * <br>
+ * As soon as a member is not a valid BGZF block (e.g a regular gzip member concatenated to BGZF ones), the rest of the
+ * stream is decompressed sequentially, by a {@link GZIPInputStream}.
+ *
+ * @author tinesoft
+ * @see BgzfRepack
+ */
+final class ParallelGzipInputStream extends InputStream {
+
+  /**
+   * Number of blocks inflated in a row by a worker (each block holds up to 64KB of data).
+   */
+  private static final int BLOCKS_PER_BATCH = 16;
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private final BufferedInputStream in;
+  private final int maxPendingBatches;
+  private final ExecutorService executor;
+  private final ThreadLocal<Inflater> inflaters = new ThreadLocal<>();// one per worker, released when the worker ends
+  private final Deque<Future<List<byte[]>>> pendingBatches = new ArrayDeque<>();
+
+  private List<byte[]> batch = new ArrayList<>();
+  private int batchIndex;
+  private byte[] data = new byte[0];
+  private int position;
+  private boolean eof;
+  private boolean sequential;
+  private InputStream tail;
+
+  /**
+   * @param in          the stream of compressed BGZF blocks
+   * @param parallelism number of threads inflating the blocks
+   */
+  ParallelGzipInputStream(final BufferedInputStream in, final int parallelism) {
+    this.in = in;
+    this.maxPendingBatches = 2 * parallelism;
+    this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+      Thread t = new Thread(() -> {
+        try {
+          r.run();
+        } finally {
+          Inflater inflater = this.inflaters.get();
+          if (inflater != null)
+            inflater.end();// native memory, otherwise only released when garbage collected
+        }
+      }, "esdata-inflate-" + THREAD_COUNTER.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Returns a stream that decompresses the given gzipped stream: in parallel if it is in the BGZF layout, or with a
+   * (sequential) {@link GZIPInputStream} otherwise.
+   *
+   * @param in the gzipped stream
+   * @return the decompressed stream
+   * @throws IOException if the stream could not be read
+   */
+  static InputStream of(final InputStream in) throws IOException {
+    BufferedInputStream bis = new BufferedInputStream(in, 64 * 1024);
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    if (parallelism > 1 && GzipBlocks.isBgzf(bis))
+      return new ParallelGzipInputStream(bis, parallelism);
+    return new GZIPInputStream(bis, 64 * 1024);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (this.hasRemaining())
+      return this.data[this.position++] & 0xFF;
+    return this.sequential ? this.tail().read() : -1;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0)
+      return 0;
+    if (!this.hasRemaining())
+      return this.sequential ? this.tail().read(b, off, len) : -1;
+
+    int n = Math.min(len, this.data.length - this.position);
+    System.arraycopy(this.data, this.position, b, off, n);
+    this.position += n;
+    return n;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.executor.shutdownNow();
+    this.pendingBatches.clear();
+    if (this.tail != null)
+      this.tail.close();
+    this.in.close();
+  }
+
+  /**
+   * @return the stream decompressing (sequentially) the members following the BGZF blocks
+   */
+  private InputStream tail() throws IOException {
+    if (this.tail == null)
+      this.tail = new GZIPInputStream(this.in, 64 * 1024);
+    return this.tail;
+  }
+
+  private boolean hasRemaining() throws IOException {
+    while (this.position == this.data.length) {
+      if (this.batchIndex == this.batch.size() && !this.nextBatch())
+        return false;
+      this.data = this.batch.get(this.batchIndex++);
+      this.position = 0;
+    }
+    return true;
+  }
+
+  /**
+   * Moves to the next inflated batch (in order), submitting the following ones to the workers meanwhile.
+   *
+   * @return false if there are no more batches, true otherwise
+   */
+  private boolean nextBatch() throws IOException {
+    while (!this.eof && this.pendingBatches.size() < this.maxPendingBatches)
+      this.submitBatch();
+
+    Future<List<byte[]>> future = this.pendingBatches.poll();
+    if (future == null)
+      return false;
+
+    try {
+      this.batch = future.get();
+      this.batchIndex = 0;
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while inflating gzip blocks");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+  }
+
+  private void submitBatch() throws IOException {
+    List<byte[]> blocks = new ArrayList<>(BLOCKS_PER_BATCH);
+    while (blocks.size() < BLOCKS_PER_BATCH) {
+      this.in.mark(GzipBlocks.MAX_BLOCK_SIZE);
+      byte[] block;
+      try {
+        block = GzipBlocks.readBlock(this.in);
+      } catch (ZipException e) {
+        // not a BGZF block: the rest of the stream is decompressed sequentially, once the previous blocks are read
+        this.in.reset();
+        this.sequential = true;
+        block = null;
+      }
+      if (block == null) {
+        this.eof = true;
+        break;
+      }
+      blocks.add(block);
+    }
+    if (blocks.isEmpty())
+      return;
+
+    this.pendingBatches.add(this.executor.submit(() -> {
+      Inflater inflater = this.inflaters.get();
+      if (inflater == null) {
+        inflater = new Inflater(true);
+        this.inflaters.set(inflater);
+      }
+      List<byte[]> inflated = new ArrayList<>(blocks.size());
+      for (byte[] block : blocks) {
+        try {
+          inflated.add(GzipBlocks.inflate(block, inflater));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return inflated;
+    }));
+  }
+}
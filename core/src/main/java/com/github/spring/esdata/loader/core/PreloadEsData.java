@@ -0,0 +1,35 @@
+package com.github.spring.esdata.loader.core;
+
+import java.lang.annotation.*;
+
+/**
+ * {@code @PreloadEsData} is an annotation that makes the data declared at class level (with {@link LoadEsData} and
+ * {@link GenerateEsData}) load <b>while the Spring test context is being created</b>, instead of once it is ready.
+ * <br>
+ * Loading starts in the background as soon as the {@code ElasticsearchOperations} bean is created, while the rest of the
+ * context (repositories, services, web layer...) keeps initializing. Tests only wait for the end of the loading before
+ * they start (in {@link EsDataPreloadTestExecutionListener#beforeTestClass}, or in the JUnit extensions/rules).
+ * <br><br>
+ * As the data are part of the test context configuration, test classes preloading the same data share the same context:
+ * the first of them gets the preloaded data, the following ones load them again (like without this annotation), before
+ * they start.
+ * <br>
+ * Only the {@link LoadEsData} and {@link GenerateEsData} annotations of the test class (including the inherited and
+ * meta-present ones) are preloaded: data declared otherwise (e.g in the {@code data} and {@code generate} attributes of
+ * the {@code @LoadEsDataConfig} of JUnit Jupiter) are still loaded once the context is ready, before all tests.
+ *
+ * @author tinesoft
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+@Documented
+public @interface PreloadEsData {
+
+  /**
+   * maximum number of data loaded concurrently (data targeting the same index are always loaded one after another)
+   *
+   * @return maximum number of data loaded concurrently
+   */
+  int concurrency() default EsDataLoader.DEFAULT_CONCURRENCY;
+}
@@ -0,0 +1,186 @@
+package com.github.spring.esdata.loader.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link EsAdminClient} based on the low level REST client of a {@link RestHighLevelClient}.
+ * <br>
+ * Requests are sent as raw JSON, so that they work the same whatever the version of the high level client.
+ *
+ * @author tinesoft
+ */
+class RestEsAdminClient extends EsAdminClient {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
+
+  private final RestClient client;
+
+  RestEsAdminClient(final Object client) {
+    this.client = ((RestHighLevelClient) client).getLowLevelClient();
+  }
+
+  static boolean supports(final Object client) {
+    return client instanceof RestHighLevelClient;
+  }
+
+  @Override
+  void reindex(final String sourceIndex, final String destIndex) {
+    ObjectNode body = OBJECT_MAPPER.createObjectNode();
+    body.putObject("source").put("index", sourceIndex);
+    body.putObject("dest").put("index", destIndex);
+
+    Request request = new Request("POST", "/_reindex");
+    request.addParameter("refresh", "true");
+    request.addParameter("slices", "auto");
+    request.setJsonEntity(body.toString());
+
+    checkFailures("reindex", this.perform(request));
+  }
+
+  @Override
+  void deleteAll(final String index) {
+    ObjectNode body = OBJECT_MAPPER.createObjectNode();
+    body.putObject("query").putObject("match_all");
+
+    Request request = new Request("POST", "/" + index + "/_delete_by_query");
+    request.addParameter("refresh", "true");
+    request.addParameter("slices", "auto");
+    request.addParameter("conflicts", "proceed");
+    request.setJsonEntity(body.toString());
+
+    checkFailures("delete documents", this.perform(request));
+  }
+
+  @Override
+  void updateSettings(final String index, final Map<String, Object> settings) {
+    Request request = new Request("PUT", "/" + index + "/_settings");
+    request.setJsonEntity(OBJECT_MAPPER.valueToTree(settings).toString());
+
+    this.perform(request);
+  }
+
+  @Override
+  void bulk(final String defaultIndex, final String defaultType, final byte[] data, final int length) {
+    Request request = new Request("POST", "/" + defaultIndex + "/" + defaultType + "/_bulk");
+    request.addParameter("filter_path", "errors,items.*.error");// only what is needed to check for errors
+    request.setEntity(new ByteArrayEntity(data, 0, length, NDJSON));
+
+    JsonNode response = this.perform(request);
+    if (response.path("errors").asBoolean())
+      throw new IllegalStateException("Failed to send bulk request: " + response.path("items"));
+  }
+
+  @Override
+  long[] maxSeqNos(final String index) {
+    Request request = new Request("GET", "/" + index + "/_stats/docs");
+    request.addParameter("level", "shards");
+    request.addParameter("filter_path", "indices.*.shards.*.routing.primary,indices.*.shards.*.seq_no.max_seq_no");
+
+    Map<Integer, Long> maxSeqNos = new TreeMap<>();
+    this.perform(request).path("indices").forEach(indexStats -> indexStats.path("shards").fields().forEachRemaining(shard -> {
+      for (JsonNode copy : shard.getValue()) {
+        if (copy.path("routing").path("primary").asBoolean())
+          maxSeqNos.put(Integer.valueOf(shard.getKey()), copy.path("seq_no").path("max_seq_no").asLong(-1));
+      }
+    }));
+    return maxSeqNos.values().stream().mapToLong(Long::longValue).toArray();
+  }
+
+  @Override
+  List<String> findIdsWrittenAfter(final String index, final long[] watermark, final int max) {
+    List<String> ids = new ArrayList<>();
+    for (int shard = 0; shard < watermark.length && ids.size() < max; shard++) {
+      ObjectNode body = OBJECT_MAPPER.createObjectNode();
+      body.put("size", max - ids.size());
+      body.put("_source", false);
+      body.putObject("query").putObject("range").putObject("_seq_no").put("gt", watermark[shard]);
+
+      this.search(index, "_shards:" + shard, body, ids);
+    }
+    return ids;
+  }
+
+  @Override
+  Set<String> findExistingIds(final String index, final Collection<String> ids) {
+    List<String> idList = new ArrayList<>(ids);
+    List<String> existingIds = new ArrayList<>();
+    for (int from = 0; from < idList.size(); from += IDS_PER_REQUEST) {
+      List<String> chunk = idList.subList(from, Math.min(from + IDS_PER_REQUEST, idList.size()));
+      ObjectNode body = OBJECT_MAPPER.createObjectNode();
+      body.put("size", chunk.size());
+      body.put("_source", false);
+      ArrayNode values = body.putObject("query").putObject("ids").putArray("values");
+      chunk.forEach(values::add);
+
+      this.search(index, null, body, existingIds);
+    }
+    return new HashSet<>(existingIds);
+  }
+
+  @Override
+  long count(final String index) {
+    return this.perform(new Request("GET", "/" + index + "/_count")).path("count").asLong();
+  }
+
+  /**
+   * Searches the given index, and collects the ids of the matching documents.
+   *
+   * @param index      the index
+   * @param preference the shards to search, or {@code null} to search all of them
+   * @param body       the search request
+   * @param ids        the list to add the ids of the matching documents to
+   */
+  private void search(final String index, final String preference, final ObjectNode body, final List<String> ids) {
+    Request request = new Request("POST", "/" + index + "/_search");
+    if (preference != null)
+      request.addParameter("preference", preference);
+    request.addParameter("filter_path", "hits.hits._id");
+    request.setJsonEntity(body.toString());
+
+    this.perform(request).path("hits").path("hits").forEach(hit -> ids.add(hit.path("_id").asText()));
+  }
+
+  /**
+   * Performs the given request.
+   *
+   * @param request the request
+   * @return the body of the response
+   */
+  JsonNode perform(final Request request) {
+    try {
+      Response response = this.client.performRequest(request);
+      try (InputStream is = response.getEntity().getContent()) {
+        return OBJECT_MAPPER.readTree(is);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void checkFailures(final String operation, final JsonNode response) {
+    JsonNode failures = response.path("failures");
+    if (failures.size() > 0)
+      throw new IllegalStateException("Failed to " + operation + ": " + failures);
+  }
+}
@@ -0,0 +1,33 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.core.annotation.AliasFor;
+
+import java.lang.annotation.*;
+
+/**
+ * {@code @RollbackEsData} is an annotation that is used to bring indices back, after each test, to the content they had
+ * before it: only the documents the test wrote (created, updated or deleted) are reverted, instead of reloading all the data.
+ * <br>
+ * The content of the indices must be tracked, i.e loaded with {@link LoadStrategy#DIFFERENTIAL}.
+ *
+ * @author tinesoft
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RollbackEsData {
+  /**
+   * Alias for {@link RollbackEsData#value}.
+   *
+   * @return mapping classes of the indices to roll back (by default, the ones of the data loaded for the test class)
+   */
+  @AliasFor("value")
+  Class<?>[] esEntityClasses() default {};
+
+  /**
+   * Alias for {@link RollbackEsData#esEntityClasses}.
+   *
+   * @return mapping classes of the indices to roll back (by default, the ones of the data loaded for the test class)
+   */
+  @AliasFor("esEntityClasses")
+  Class<?>[] value() default {};
+}
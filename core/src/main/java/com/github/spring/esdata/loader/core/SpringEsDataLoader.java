@@ -1,25 +1,34 @@
 package com.github.spring.esdata.loader.core;
 
-
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.DeleteQuery;
 import org.springframework.data.elasticsearch.core.query.IndexQuery;
 import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.util.ClassUtils;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Loader that use Spring Data's {@link ElasticsearchOperations} to load data into Elasticsearch.
@@ -29,193 +38,793 @@ import java.util.zip.GZIPInputStream;
 public class SpringEsDataLoader implements EsDataLoader {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SpringEsDataLoader.class);
-  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * Index settings that speed bulk indexing up.
+   */
+  private static final Map<String, Object> BULK_SETTINGS;
+
+  static {
+    Map<String, Object> settings = new LinkedHashMap<>();
+    settings.put("index.refresh_interval", "-1");
+    settings.put("index.number_of_replicas", "0");
+    settings.put("index.translog.durability", "async");
+    BULK_SETTINGS = Collections.unmodifiableMap(settings);
+  }
+
+  /**
+   * Number of bytes read from the beginning of the data to auto-detect their format.
+   */
+  private static final int FORMAT_DETECTION_LENGTH = 8 * 1024;
+
+  /**
+   * Maximum number of documents written since a checkpoint that are rolled back one by one (the index is fully loaded again above).
+   */
+  private static final int MAX_ROLLBACK_DOCUMENTS = 5_000;
+
+  /**
+   * Beginning of an action line of the <code>_bulk</code> API.
+   */
+  private static final Pattern BULK_ACTION = Pattern.compile("\\{\\s*\"(index|create|update|delete)\"\\s*:\\s*\\{");
 
   private final ElasticsearchOperations esOperations;
+  private final LoadReportListener reportListener;
+  private final Executor asyncExecutor;
 
   /**
    * .
-   * Data loader that use Spring's {@link ElasticsearchOperations} to load data into Elasticsearch
+   * Data loader that use Spring's {@link ElasticsearchOperations} to load data into Elasticsearch.
+   * Reports of the loads are recorded into Micrometer's global registry, if Micrometer is on the classpath.
    *
    * @param esOperations the {@link ElasticsearchOperations}
    */
   @Autowired
   public SpringEsDataLoader(final ElasticsearchOperations esOperations) {
+    this(esOperations, defaultReportListener());
+  }
+
+  /**
+   * Data loader that use Spring's {@link ElasticsearchOperations} to load data into Elasticsearch
+   *
+   * @param esOperations   the {@link ElasticsearchOperations}
+   * @param reportListener the listener notified of the reports of the loads
+   */
+  public SpringEsDataLoader(final ElasticsearchOperations esOperations, final LoadReportListener reportListener) {
+    this(esOperations, reportListener, null);
+  }
+
+  /**
+   * Data loader that use Spring's {@link ElasticsearchOperations} to load data into Elasticsearch
+   *
+   * @param esOperations   the {@link ElasticsearchOperations}
+   * @param reportListener the listener notified of the reports of the loads
+   * @param asyncExecutor  the executor that runs the asynchronous loads by default (or {@code null} to use a shared pool of daemon threads)
+   */
+  public SpringEsDataLoader(final ElasticsearchOperations esOperations, final LoadReportListener reportListener,
+                            final Executor asyncExecutor) {
     this.esOperations = esOperations;
+    this.reportListener = reportListener;
+    this.asyncExecutor = asyncExecutor != null ? asyncExecutor : ConcurrentLoads.defaultAsyncExecutor();
+  }
+
+  private static LoadReportListener defaultReportListener() {
+    return ClassUtils.isPresent("io.micrometer.core.instrument.MeterRegistry", SpringEsDataLoader.class.getClassLoader())
+      ? new MicrometerLoadReportListener() : LoadReportListener.NONE;
+  }
+
+  @Override
+  public Executor getAsyncExecutor() {
+    return this.asyncExecutor;
+  }
+
+  /**
+   * Deletes data from Elasticsearch using provided class to retrieve related index. The index is dropped and recreated.
+   *
+   * @param esEntityClass the mapping class of the data to delete
+   * @return the report of the deletion
+   */
+  @Override
+  public LoadReport delete(Class<?> esEntityClass) {
+    return this.delete(esEntityClass, DeleteStrategy.RECREATE);
   }
 
   /**
-   * Deletes data from Elasticsearch using provided class to retrieve related index.
+   * Deletes data from Elasticsearch using provided class to retrieve related index, and the given strategy.
    *
-   * @param esEntityClass the data to load
+   * @param esEntityClass the mapping class of the data to delete
+   * @param strategy      the strategy used to delete the data
+   * @return the report of the deletion
    */
   @Override
-  public void delete(Class<?> esEntityClass) {
+  public LoadReport delete(Class<?> esEntityClass, DeleteStrategy strategy) {
+    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.getPersistentEntityFor(esEntityClass);
+    LoadStatistics statistics = new LoadStatistics();
+    long start = System.nanoTime();
+    try {
+      this.doDelete(esEntityClass, strategy);
+    } catch (RuntimeException | Error e) {
+      statistics.record(LoadPhase.DELETE, start);
+      this.report(statistics.toReport(esEntityClass, esEntityInfo.getIndexName(), false));
+      throw e;
+    }
+    statistics.record(LoadPhase.DELETE, start);
+    return this.report(statistics.toReport(esEntityClass, esEntityInfo.getIndexName(), true));
+  }
+
+  private void doDelete(final Class<?> esEntityClass, DeleteStrategy strategy) {
+    IndexContent.put(this.esOperations, this.esOperations.getPersistentEntityFor(esEntityClass).getIndexName(), null);
+    if (strategy == DeleteStrategy.AUTO)
+      strategy = this.isMappingUnchanged(esEntityClass) ? DeleteStrategy.TRUNCATE : DeleteStrategy.RECREATE;
+
+    if (strategy == DeleteStrategy.TRUNCATE) {
+      LOGGER.debug("Truncating data in Index '{}'...", esEntityClass.getSimpleName());
+      this.truncate(esEntityClass);
+      return;
+    }
+    if (strategy == DeleteStrategy.DROP) {
+      LOGGER.debug("Dropping Index '{}'...", esEntityClass.getSimpleName());
+      this.esOperations.deleteIndex(esEntityClass);
+      return;
+    }
+
     LOGGER.debug("Dropping data in Index '{}'...", esEntityClass.getSimpleName());
     this.esOperations.deleteIndex(esEntityClass);
     this.esOperations.createIndex(esEntityClass);
     this.esOperations.putMapping(esEntityClass);
     this.esOperations.refresh(esEntityClass);
+  }
+
+  /**
+   * Records the content of the index of the given class, that must be tracked, i.e loaded with {@link LoadStrategy#DIFFERENTIAL}.
+   * If the index was modified since, it is first loaded again.
+   *
+   * @param esEntityClass the mapping class of the index
+   * @return the checkpoint
+   * @throws IllegalStateException if the content of the index is not tracked
+   */
+  @Override
+  public EsDataCheckpoint checkpoint(final Class<?> esEntityClass) {
+    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.getPersistentEntityFor(esEntityClass);
+    IndexContent content = IndexContent.get(this.esOperations, esEntityInfo.getIndexName());
+    if (content == null)
+      throw new IllegalStateException("Content of Index of '" + esEntityClass.getSimpleName()
+        + "' is unknown: load it with LoadStrategy.DIFFERENTIAL to roll it back");
+
+    if (!Arrays.equals(content.getWatermark(), this.getWatermark(esEntityInfo))) {
+      LOGGER.debug("Index of '{}' was modified since loaded. Loading it again", esEntityClass.getSimpleName());
+      this.load(content.getData());
+      content = IndexContent.get(this.esOperations, esEntityInfo.getIndexName());
+      if (content == null)
+        throw new IllegalStateException("Content of Index of '" + esEntityClass.getSimpleName() + "' can not be tracked");
+    }
+    return new EsDataCheckpoint(esEntityClass, content);
+  }
 
+  /**
+   * Brings the index of the given checkpoint back to its content at the time of the checkpoint, by only sending the documents
+   * written since (created, updated or deleted). The index is fully loaded again if too many documents were written.
+   *
+   * @param checkpoint the checkpoint
+   * @return the report of the rollback
+   */
+  @Override
+  public LoadReport rollback(final EsDataCheckpoint checkpoint) {
+    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.getPersistentEntityFor(checkpoint.getEsEntityClass());
+    LoadStatistics statistics = new LoadStatistics();
+    try {
+      this.doRollback(checkpoint.content, esEntityInfo, statistics);
+    } catch (RuntimeException | Error e) {
+      this.report(statistics.toReport(checkpoint.getEsEntityClass(), esEntityInfo.getIndexName(), false));
+      throw e;
+    }
+    return this.report(statistics.toReport(checkpoint.getEsEntityClass(), esEntityInfo.getIndexName(), true));
+  }
+
+  private void doRollback(final IndexContent content, final ElasticsearchPersistentEntity<?> esEntityInfo, final LoadStatistics statistics) {
+    long start = System.nanoTime();
+    IndexData d = content.getData();
+    String indexName = esEntityInfo.getIndexName();
+
+    long[] watermark = this.getWatermark(esEntityInfo);
+    if (Arrays.equals(watermark, content.getWatermark())) {
+      IndexContent.put(this.esOperations, indexName, content);
+      statistics.record(LoadPhase.ROLLBACK, start);
+      LOGGER.debug("Nothing was written to Index of '{}'. Nothing to roll back", d.getEsEntityClass().getSimpleName());
+      return;
+    }
+    IndexContent.put(this.esOperations, indexName, null);// until rolled back
+
+    // documents written since the checkpoint (i.e created or updated) have a greater sequence number than their shard had
+    Set<String> dirtyIds = null;
+    if (watermark != null && watermark.length == content.getWatermark().length) {
+      this.esOperations.refresh(d.esEntityClass);// to find the written documents
+      EsAdminClient adminClient = EsAdminClient.of(this.esOperations);
+      List<String> writtenIds = adminClient.findIdsWrittenAfter(indexName, content.getWatermark(), MAX_ROLLBACK_DOCUMENTS + 1);
+      if (writtenIds.size() <= MAX_ROLLBACK_DOCUMENTS) {
+        dirtyIds = new HashSet<>(writtenIds);
+
+        // documents left untouched are the ones not written since: the documents of the checkpoint missing from them are deleted
+        long nbUntouched = adminClient.count(indexName) - writtenIds.size();
+        long nbDeleted = content.getIds().size() - nbUntouched - writtenIds.stream().filter(content.getIds()::contains).count();
+        if (nbDeleted > 0) {
+          Set<String> writtenIdSet = dirtyIds;
+          List<String> candidateIds = content.getIds().stream().filter(id -> !writtenIdSet.contains(id)).collect(Collectors.toList());
+          Set<String> existingIds = adminClient.findExistingIds(indexName, candidateIds);
+          candidateIds.stream().filter(id -> !existingIds.contains(id)).forEach(dirtyIds::add);
+        }
+      }
+    }
+    statistics.record(LoadPhase.ROLLBACK, start);
+
+    if (dirtyIds == null) {
+      LOGGER.debug("Too many changes in Index of '{}' to roll back. Loading it again", d.getEsEntityClass().getSimpleName());
+      this.doLoad(d, esEntityInfo, statistics);
+      return;
+    }
+    LOGGER.debug("Rolling back {} documents in Index of '{}'", dirtyIds.size(), d.getEsEntityClass().getSimpleName());
+    this.loadDifferences(d, esEntityInfo, new IndexContent(d, content, dirtyIds), statistics);
   }
 
   /**
    * Loads given data into Elasticsearch. Target indices are dropped and recreated before data are inserted in bulk.
+   * Data are streamed from the file and sent in batches bounded by {@link IndexData#getBulkSize()} and {@link IndexData#getBulkMaxBytes()},
+   * with up to {@link IndexData#getBulkConcurrency()} bulk requests in flight while parsing continues.
    *
    * @param d the data to load
+   * @return the report of the load
    */
   @Override
-  public void load(final IndexData d) {
+  public LoadReport load(final IndexData d) {
+
+    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.getPersistentEntityFor(d.esEntityClass);
+    EsIndexNamespace.checkApplied(esEntityInfo.getIndexName(), d.esEntityClass);
+    LoadStatistics statistics = new LoadStatistics();
+    try {
+      this.doLoad(d, esEntityInfo, statistics);
+    } catch (RuntimeException | Error e) {
+      this.report(statistics.toReport(d.esEntityClass, esEntityInfo.getIndexName(), false));
+      throw e;
+    }
+    return this.report(statistics.toReport(d.esEntityClass, esEntityInfo.getIndexName(), true));
+  }
+
+  private void doLoad(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo, final LoadStatistics statistics) {
+
+    long start = System.nanoTime();
+    String fingerprint = null;
+    if (d.strategy == LoadStrategy.FINGERPRINT || d.strategy == LoadStrategy.GOLDEN_INDEX) {
+      try (InputStream is = this.openResource(d)) {
+        fingerprint = IndexFingerprint.compute(d, esEntityInfo, is);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    // skip everything if the index already contains the exact same data
+    if (d.strategy == LoadStrategy.FINGERPRINT && fingerprint.equals(IndexFingerprint.read(this.esOperations, d.esEntityClass))) {
+      statistics.record(LoadPhase.FINGERPRINT, start);
+      LOGGER.debug("Index of '{}' already contains data from '{}'. Skipping", d.getEsEntityClass().getSimpleName(), d.location);
+      return;
+    }
+    start = statistics.record(LoadPhase.FINGERPRINT, start);
+
+    // the content of the index is no longer known once it is (re)loaded, until (differentially) loaded again
+    IndexContent previousContent = IndexContent.get(this.esOperations, esEntityInfo.getIndexName());
+    IndexContent.put(this.esOperations, esEntityInfo.getIndexName(), null);
+    IndexContent content = null;
+    if (d.strategy == LoadStrategy.DIFFERENTIAL) {
+      // only send the differences if nothing else wrote to the index since its previous (differential) load
+      long[] watermark = previousContent != null ? this.getWatermark(esEntityInfo) : null;
+      boolean unchanged = watermark != null && Arrays.equals(watermark, previousContent.getWatermark());
+      content = new IndexContent(d, unchanged ? previousContent : null);
+      start = statistics.record(LoadPhase.DIFF, start);
+      if (unchanged) {
+        this.loadDifferences(d, esEntityInfo, content, statistics);
+        return;
+      }
+    }
 
-    // first recreate the index
+    // first recreate the index (no need to refresh it yet, it is empty)
     LOGGER.debug("Recreating Index for '{}'...", d.getEsEntityClass().getSimpleName());
     this.esOperations.deleteIndex(d.esEntityClass);
     this.esOperations.createIndex(d.esEntityClass);
     this.esOperations.putMapping(d.esEntityClass);
+
+    // golden indices are shared by all the namespaces (see EsIndexNamespace): concurrent loads of the same data wait for
+    // the first one to fill it, then restore from it
+    String goldenIndex = d.strategy == LoadStrategy.GOLDEN_INDEX
+      ? GoldenIndex.nameOf(EsIndexNamespace.baseNameOf(esEntityInfo.getIndexName()), fingerprint) : null;
+    Lock goldenLock = goldenIndex != null ? GoldenIndex.lockOf(goldenIndex) : null;
+    if (goldenLock != null)
+      goldenLock.lock();
+    try {
+      boolean restoredFromGolden = goldenIndex != null && this.esOperations.indexExists(goldenIndex);
+      start = statistics.record(LoadPhase.RECREATE, start);
+
+      // then fill it, with settings optimized for bulk indexing if requested
+      Map<String, Object> previousSettings = this.tuneSettings(d, esEntityInfo);
+      start = statistics.record(LoadPhase.SETTINGS, start);
+      try {
+        if (restoredFromGolden) {
+          LOGGER.debug("Restoring Index of '{}' from golden index '{}'...", d.getEsEntityClass().getSimpleName(), goldenIndex);
+          GoldenIndex.restore(this.esOperations, esEntityInfo, goldenIndex);
+          statistics.record(LoadPhase.GOLDEN_INDEX, start);
+        } else {
+          if (EsDataGenerator.isGenerated(d.location))
+            this.bulkGenerate(d, esEntityInfo, content, statistics);
+          else
+            this.bulkLoad(d, esEntityInfo, content, statistics);
+        }
+      } finally {
+        start = System.nanoTime();
+        this.restoreSettings(d, esEntityInfo, previousSettings);
+        start = statistics.record(LoadPhase.SETTINGS, start);
+      }
+
+      // refresh only once, at the end
+      this.esOperations.refresh(d.esEntityClass);
+      start = statistics.record(LoadPhase.REFRESH, start);
+
+      if (d.strategy == LoadStrategy.FINGERPRINT) {
+        IndexFingerprint.write(this.esOperations, d.esEntityClass, fingerprint);
+        statistics.record(LoadPhase.FINGERPRINT, start);
+      } else if (goldenIndex != null && !restoredFromGolden) {
+        LOGGER.debug("Copying Index of '{}' into golden index '{}'...", d.getEsEntityClass().getSimpleName(), goldenIndex);
+        GoldenIndex.create(this.esOperations, esEntityInfo, goldenIndex);
+        statistics.record(LoadPhase.GOLDEN_INDEX, start);
+      } else if (content != null) {
+        this.register(esEntityInfo, content);
+        statistics.record(LoadPhase.DIFF, start);
+      }
+    } finally {
+      if (goldenLock != null)
+        goldenLock.unlock();
+    }
+
+    LOGGER.debug("Insertion successfully done");
+  }
+
+  /**
+   * Sends only the documents that are new or changed since the previous load of the index, and deletes the ones that
+   * are gone (see {@link LoadStrategy#DIFFERENTIAL}).
+   *
+   * @param d            the data to load
+   * @param esEntityInfo the information about the target entity
+   * @param content      the content of the data, based on the content of the index
+   * @param statistics   the statistics of the load
+   */
+  private void loadDifferences(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo, final IndexContent content,
+                               final LoadStatistics statistics) {
+    LOGGER.debug("Sending the differences with the data in Index of '{}'...", d.getEsEntityClass().getSimpleName());
+    if (EsDataGenerator.isGenerated(d.location))
+      this.bulkGenerate(d, esEntityInfo, content, statistics);
+    else
+      this.bulkLoad(d, esEntityInfo, content, statistics);
+
+    long start = System.nanoTime();
     this.esOperations.refresh(d.esEntityClass);
+    start = statistics.record(LoadPhase.REFRESH, start);
 
-    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.getPersistentEntityFor(d.esEntityClass);
+    this.register(esEntityInfo, content);
+    statistics.record(LoadPhase.DIFF, start);
+    LOGGER.debug("Differences successfully sent");
+  }
 
-    LOGGER.debug("Inserting data in Index of '{}'. Please wait...", d.getEsEntityClass().getSimpleName());
+  /**
+   * Registers the given content as the one of the (freshly loaded) index, along with its watermark, if fully known.
+   *
+   * @param esEntityInfo the information about the target entity
+   * @param content      the content of the index
+   */
+  private void register(final ElasticsearchPersistentEntity<?> esEntityInfo, final IndexContent content) {
+    long[] watermark = content.isComplete() ? this.getWatermark(esEntityInfo) : null;
+    if (watermark == null)
+      return;
+    content.setWatermark(watermark);
+    IndexContent.put(this.esOperations, esEntityInfo.getIndexName(), content);
+  }
 
-    // then insert data into it
-    try (InputStream is = this.getClass().getResourceAsStream(d.getLocation()); //
-         BufferedReader br = new BufferedReader(
-           new InputStreamReader(d.gzipped ? new GZIPInputStream(is) : is, StandardCharsets.UTF_8))) {
+  /**
+   * Gets the watermark of the index: the maximum sequence number of each of its primary shards.
+   *
+   * @param esEntityInfo the information about the target entity
+   * @return the watermark, or {@code null} if the index does not exist, or if the client does not support it
+   */
+  private long[] getWatermark(final ElasticsearchPersistentEntity<?> esEntityInfo) {
+    if (!this.esOperations.indexExists(esEntityInfo.getIndexName()))
+      return null;
+    try {
+      return EsAdminClient.of(this.esOperations).maxSeqNos(esEntityInfo.getIndexName());
+    } catch (UnsupportedOperationException e) {
+      LOGGER.debug("Differential load not supported, falling back to full load: {}", e.getMessage());
+      return null;
+    }
+  }
 
-      final EsDataFormat format = getEsDataFormat(br, d.format);
+  /**
+   * Sends (through the given {@link BulkIndexer}) the deletions of the documents of the base content that are no longer
+   * part of the given content.
+   *
+   * @param d            the data being loaded
+   * @param esEntityInfo the information about the target entity
+   * @param content      the content of the data
+   * @param bulkIndexer  the {@link BulkIndexer} to send the deletions with
+   */
+  private void sendDeletions(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo, final IndexContent content,
+                             final BulkIndexer bulkIndexer) {
+    List<String> removedIds = content.getRemovedIds();
+    if (removedIds.isEmpty())
+      return;
+
+    LOGGER.debug("Deleting {} documents from Index of '{}'", removedIds.size(), d.getEsEntityClass().getSimpleName());
+    EsAdminClient adminClient = EsAdminClient.of(this.esOperations);
+    JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+    String indexName = esEntityInfo.getIndexName();// resolved on this thread (see EsIndexNamespace)
+    String indexType = esEntityInfo.getIndexType();
+    for (int from = 0; from < removedIds.size(); from += d.bulkSize) {
+      StringBuilder actions = new StringBuilder();
+      List<String> ids = removedIds.subList(from, Math.min(from + d.bulkSize, removedIds.size()));
+      ids.forEach(id -> actions.append("{\"delete\":{\"_id\":\"").append(encoder.quoteAsString(id)).append("\"}}\n"));
+      byte[] data = actions.toString().getBytes(StandardCharsets.UTF_8);
+      bulkIndexer.send(ids.size(), () -> adminClient.bulk(indexName, indexType, data, data.length));
+    }
+  }
 
-      List<IndexQuery> indexQueries = (format == EsDataFormat.DUMP ? br.lines() : this.toJsonArrayStream(br)) // each item represent a document to be indexed
-        .parallel()// let's speed things up a lil'bit :)
-        .peek((l) -> LOGGER.debug("Preparing IndexQuery for line: '{}'", l))//
-        .map(json -> getIndexQuery(json, esEntityInfo.getIndexName(), esEntityInfo.getIndexType(), format))//
-        .skip(d.nbSkipItems)//
-        .limit(d.nbMaxItems)//
-        .collect(Collectors.toList());
+  /**
+   * Tells whether the given document must be sent to the index, i.e unless unchanged since the previous (differential)
+   * load of the index.
+   *
+   * @param content    the content of the data (if loaded with {@link LoadStrategy#DIFFERENTIAL}), or {@code null}
+   * @param document   the document
+   * @param statistics the statistics of the load
+   * @return {@code true} if the document must be sent, {@code false} if it is skipped
+   */
+  private static boolean isToSend(final IndexContent content, final EsDocument document, final LoadStatistics statistics) {
+    if (content == null || content.add(document))
+      return true;
+    statistics.addSkipped(1);
+    return false;
+  }
 
-      if (indexQueries.isEmpty()) {
-        LOGGER.warn("There are no data to load from file at '{}'. Please review its content", d.location);
-        return;
-      }
+  /**
+   * Reads the given data from their file, and inserts them in bulk into the (existing) target index.
+   *
+   * @param d            the data to load
+   * @param esEntityInfo the information about the target entity
+   * @param content      the content of the data, to be tracked (see {@link LoadStrategy#DIFFERENTIAL}), or {@code null}
+   * @param statistics   the statistics of the load
+   */
+  private void bulkLoad(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo, final IndexContent content,
+                        final LoadStatistics statistics) {
+    LOGGER.debug("Inserting data in Index of '{}'. Please wait...", d.getEsEntityClass().getSimpleName());
 
-      this.esOperations.bulkIndex(indexQueries);
-      this.esOperations.refresh(d.esEntityClass);
+    // resolved once, on this thread, as documents are sent from other threads (see EsIndexNamespace)
+    String indexName = esEntityInfo.getIndexName();
+    String indexType = esEntityInfo.getIndexType();
+
+    // data loaded again are sent as prepared the first time, without being read nor parsed (unless their content is tracked)
+    // payloads are sent through the bulk API of the client: they are not cached if it is not supported
+    BulkPayloadCache cache = BulkPayloadCache.getInstance();
+    BulkPayloadCache.Key cacheKey = content == null && EsAdminClient.supports(this.esOperations) ? cache.keyOf(d) : null;
+    BulkPayloadCache.Payload payload = cacheKey != null ? cache.get(cacheKey) : null;
+    if (payload != null) {
+      this.sendPayload(d, payload, indexName, indexType, statistics);
+      return;
+    }
+    BulkPayloadCache.Recorder recorder = cacheKey != null ? cache.record(d) : null;
+
+    long start = System.nanoTime();
+    long bulkNanos = statistics.getNanos(LoadPhase.BULK);
+    try (MeteredInputStream raw = new MeteredInputStream(this.openResource(d)); //
+         MeteredInputStream is = d.gzipped ? new MeteredInputStream(ParallelGzipInputStream.of(raw)) : raw; //
+         BufferedInputStream bis = new BufferedInputStream(is, 64 * 1024)) {
+
+      final EsDataFormat format = getEsDataFormat(bis, d.format);
+
+      // documents are streamed (to keep memory bounded) and sent to ES in batches, concurrently with the parsing
+      // items to skip (and the ones past the max) are discarded while reading, before being parsed
+      try (BulkIndexer bulkIndexer = new BulkIndexer(this.esOperations, d.bulkSize, d.bulkMaxBytes, d.bulkConcurrency, statistics)) {
+        if (format == EsDataFormat.BULK) {
+          // actions are already in the format expected by ES: they are sent as is, in chunks
+          if (content != null) {
+            content.setIncomplete();// documents are not known: start again from an empty index
+            if (content.hasBase())
+              this.truncate(d.esEntityClass);
+          }
+          EsAdminClient adminClient = EsAdminClient.of(this.esOperations);
+          EsDocumentReader.readBulk(bis, d.nbSkipItems, d.nbMaxItems, d.bulkSize, d.bulkMaxBytes, statistics,
+            (data, length, nbActions) -> {
+              if (recorder != null)
+                recorder.add(data, length, nbActions);
+              bulkIndexer.send(nbActions, () -> adminClient.bulk(indexName, indexType, data, length));
+            });
+        } else {
+          Path file = getParallelReadableFile(d, format);
+          BufferedReader br = new BufferedReader(new InputStreamReader(bis, StandardCharsets.UTF_8));
+          try (Stream<EsDocument> documents = file != null //
+            ? (format == EsDataFormat.DUMP ? EsDocumentReader.readDump(file) : EsDocumentReader.readManual(file)) //
+            : format == EsDataFormat.COMPILED ? EsDocumentReader.readCompiled(bis, d.nbSkipItems, d.nbMaxItems, statistics) //
+            : format == EsDataFormat.DUMP ? EsDocumentReader.readDump(br, d.nbSkipItems, d.nbMaxItems, statistics) //
+            : EsDocumentReader.readManual(br, d.nbSkipItems, d.nbMaxItems, statistics)) {
+            // documents read in parallel are still handled in the order of the file, so that the last version of a document wins
+            documents // each item represent a document to be indexed
+              .peek((doc) -> LOGGER.debug("Preparing IndexQuery for document: '{}'", doc))//
+              .forEachOrdered(doc -> {
+                statistics.addRead(1);
+                if (!isToSend(content, doc, statistics))
+                  return;
+                if (recorder != null)
+                  recorder.add(doc);
+                bulkIndexer.add(getIndexQuery(doc, indexName, indexType));
+              });
+          }
+          if (content != null)
+            this.sendDeletions(d, esEntityInfo, content, bulkIndexer);
+          if (file != null)
+            statistics.addBytesRead(Files.size(file) - raw.getBytes());// read through its own mapping, not through 'raw'
+        }
+        bulkIndexer.await();// send the remaining documents, if any, and wait for all of them to be indexed
+        BulkPayloadCache.Payload recorded = recorder != null ? recorder.toPayload() : null;
+        if (recorded != null)
+          cache.put(cacheKey, recorded);
+      } finally {
+        // split the time spent on this thread between reading, decompressing, waiting for ES, and parsing (the rest)
+        long ioNanos = Math.max(is.getNanos(), raw.getNanos());
+        statistics.addBytesRead(raw.getBytes());
+        statistics.addNanos(LoadPhase.READ, raw.getNanos());
+        statistics.addNanos(LoadPhase.DECOMPRESS, ioNanos - raw.getNanos());
+        statistics.addNanos(LoadPhase.PARSE, Math.max(0, System.nanoTime() - start - ioNanos - (statistics.getNanos(LoadPhase.BULK) - bulkNanos)));
+      }
 
-      LOGGER.debug("Insertion successfully done");
+      if (statistics.getNbRead() == 0) {
+        LOGGER.warn("There are no data to load from file at '{}'. Please review its content", d.location);
+      }
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
   /**
-   * Builds an {@link IndexQuery} based on the provided JSON content, representing the data to be inserted into ES.
+   * Sends the given payload (prepared by a previous load of the given data) in bulk into the (existing) target index.
+   *
+   * @param d          the data to load
+   * @param payload    the payload of the data
+   * @param indexName  the name of the target index
+   * @param indexType  the type of the target index
+   * @param statistics the statistics of the load
+   */
+  private void sendPayload(final IndexData d, final BulkPayloadCache.Payload payload, final String indexName, final String indexType,
+                           final LoadStatistics statistics) {
+    LOGGER.debug("Inserting cached data from '{}' in Index of '{}'. Please wait...", d.location, d.getEsEntityClass().getSimpleName());
+    EsAdminClient adminClient = EsAdminClient.of(this.esOperations);
+    try (BulkIndexer bulkIndexer = new BulkIndexer(this.esOperations, d.bulkSize, d.bulkMaxBytes, d.bulkConcurrency, statistics)) {
+      payload.forEach((data, length, nbActions) -> bulkIndexer.send(nbActions, () -> adminClient.bulk(indexName, indexType, data, length)));
+      bulkIndexer.await();
+    }
+    statistics.addRead(payload.getNbDocuments());
+  }
+
+  /**
+   * Generates the given (synthetic) data, and inserts them in bulk into the (existing) target index.
    *
-   * @param jsonContent the data to be inserted, expressed as JSON
-   * @param indexName   the name of the target index
-   * @param indexType   the type of the target index
-   * @param format      the format of data to index
-   * @return the {@link IndexQuery} built from the parsed JSON
+   * @param d            the data to generate
+   * @param esEntityInfo the information about the target entity
+   * @param content      the content of the data, to be tracked (see {@link LoadStrategy#DIFFERENTIAL}), or {@code null}
+   * @param statistics   the statistics of the load
    */
-  private static IndexQuery getIndexQuery(final String jsonContent, final String indexName, final String indexType, final EsDataFormat format) {
+  private void bulkGenerate(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo, final IndexContent content,
+                            final LoadStatistics statistics) {
+    if (d.nbMaxItems == Long.MAX_VALUE)
+      throw new IllegalArgumentException("The number of documents to generate (nbMaxItems) must be given");
+
+    LOGGER.debug("Generating {} documents in Index of '{}'. Please wait...", d.nbMaxItems, d.getEsEntityClass().getSimpleName());
+    EsDataGenerator generator = EsDataGenerator.of(this.esOperations, esEntityInfo, d.location);
+    String indexName = esEntityInfo.getIndexName();// resolved on this thread (see EsIndexNamespace)
+    String indexType = esEntityInfo.getIndexType();
+
+    long start = System.nanoTime();
+    long bulkNanos = statistics.getNanos(LoadPhase.BULK);
+    // documents are generated in parallel, and sent to ES in batches, concurrently with the generation
+    try (BulkIndexer bulkIndexer = new BulkIndexer(this.esOperations, d.bulkSize, d.bulkMaxBytes, d.bulkConcurrency, statistics)) {
+      generator.generate(d.nbSkipItems, d.nbSkipItems + d.nbMaxItems)//
+        .peek(doc -> statistics.addRead(1))//
+        .filter(doc -> isToSend(content, doc, statistics))//
+        .map(doc -> getIndexQuery(doc, indexName, indexType))//
+        .forEach(bulkIndexer::add);
+      if (content != null)
+        this.sendDeletions(d, esEntityInfo, content, bulkIndexer);
+      bulkIndexer.await();
+    } finally {
+      statistics.addNanos(LoadPhase.GENERATE, Math.max(0, System.nanoTime() - start - (statistics.getNanos(LoadPhase.BULK) - bulkNanos)));
+    }
+  }
 
+  /**
+   * Gets the file to read the given data from in parallel, if possible: a whole (i.e no items skipped nor limited, so
+   * that the file can be split without counting its items first), plain (i.e not gzipped) local file.
+   *
+   * @param d      the data to load
+   * @param format the format of the data
+   * @return the file, or {@code null} if the data must be read sequentially
+   * @throws IOException if the location of the data could not be resolved
+   */
+  private static Path getParallelReadableFile(final IndexData d, final EsDataFormat format) throws IOException {
+    if (d.gzipped || d.nbSkipItems != 0 || d.nbMaxItems != Long.MAX_VALUE)
+      return null;
+    Path file = EsDataResource.localFile(d.location);
+    if (file == null)
+      return null;
+    if (format == EsDataFormat.DUMP)
+      return file;// split by lines
+    if (format == EsDataFormat.MANUAL && Files.size(file) <= JsonArrayScanner.MAX_SIZE)
+      return file;// split by elements of the array
+    return null;
+  }
+
+  /**
+   * Logs the given report and hands it over to the {@link LoadReportListener}.
+   *
+   * @param report the report of a load (or delete)
+   * @return the report
+   */
+  private LoadReport report(final LoadReport report) {
+    LOGGER.debug("{}", report);
     try {
-      String id = null;
-      String source = jsonContent;
+      this.reportListener.onReport(report);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to report {}", report, e);
+    }
+    return report;
+  }
 
-      if (format == EsDataFormat.DUMP) {
-        JsonNode jsonNode = OBJECT_MAPPER.readTree(jsonContent);
-        id = jsonNode.get("_id").textValue();
-        source = jsonNode.get("_source").toString();
-      }
+  /**
+   * Optimizes the settings of the target index for bulk indexing, if requested by the given data.
+   *
+   * @param d            the data to load
+   * @param esEntityInfo the information about the target entity
+   * @return the previous values of the tuned settings, or {@code null} if no tuning was made
+   */
+  private Map<String, Object> tuneSettings(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo) {
+    if (d.tuning == LoadTuning.NONE)
+      return null;
 
-      return new IndexQueryBuilder()//
-        .withId(id)//
-        .withIndexName(indexName)//
-        .withType(indexType)//
-        .withSource(source)//
-        .build();
+    Map<String, Object> currentSettings = this.esOperations.getSetting(d.esEntityClass);
+    Map<String, Object> previousSettings = new HashMap<>();
+    BULK_SETTINGS.keySet().forEach(k -> previousSettings.put(k, currentSettings.get(k)));// null if the default value is used
 
+    LOGGER.debug("Tuning settings of Index for '{}': {}", d.getEsEntityClass().getSimpleName(), BULK_SETTINGS);
+    EsAdminClient.of(this.esOperations).updateSettings(esEntityInfo.getIndexName(), BULK_SETTINGS);
+    return previousSettings;
+  }
+
+  /**
+   * Restores the settings of the target index as they were before being tuned, if requested by the given data.
+   *
+   * @param d                the data to load
+   * @param esEntityInfo     the information about the target entity
+   * @param previousSettings the previous values of the tuned settings
+   */
+  private void restoreSettings(final IndexData d, final ElasticsearchPersistentEntity<?> esEntityInfo,
+                               final Map<String, Object> previousSettings) {
+    if (previousSettings == null || d.tuning == LoadTuning.KEEP)
+      return;
+
+    LOGGER.debug("Restoring settings of Index for '{}': {}", d.getEsEntityClass().getSimpleName(), previousSettings);
+    EsAdminClient.of(this.esOperations).updateSettings(esEntityInfo.getIndexName(), previousSettings);
+  }
+
+  /**
+   * Removes all the documents from the index of the given class, while keeping the index and its mapping.
+   *
+   * @param esEntityClass the mapping class of the data to delete
+   */
+  private void truncate(final Class<?> esEntityClass) {
+    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.getPersistentEntityFor(esEntityClass);
+
+    try {
+      EsAdminClient.of(this.esOperations).deleteAll(esEntityInfo.getIndexName());
+    } catch (UnsupportedOperationException e) {
+      LOGGER.debug("Falling back to (non-sliced) deletion of documents: {}", e.getMessage());
+      DeleteQuery deleteQuery = new DeleteQuery();
+      deleteQuery.setQuery(QueryBuilders.matchAllQuery());
+      this.esOperations.delete(deleteQuery, esEntityClass);
+      this.esOperations.refresh(esEntityClass);
+    }
+
+    // the index no longer contains the data it was loaded with
+    if (IndexFingerprint.read(this.esOperations, esEntityClass) != null)
+      IndexFingerprint.write(this.esOperations, esEntityClass, null);
+  }
+
+  /**
+   * Checks whether the index of the given class exists, with a mapping that is left unchanged by the mapping class.
+   *
+   * @param esEntityClass the mapping class of the index
+   * @return true if the mapping of the existing index is unchanged, false otherwise
+   */
+  private boolean isMappingUnchanged(final Class<?> esEntityClass) {
+    if (!this.esOperations.indexExists(esEntityClass))
+      return false;
+
+    Map<String, Object> mappingBefore = this.esOperations.getMapping(esEntityClass);
+    try {
+      this.esOperations.putMapping(esEntityClass);// no-op on the server (no new cluster state) when nothing changes
+    } catch (RuntimeException e) {
+      LOGGER.debug("Mapping of Index '{}' conflicts with its mapping class: {}", esEntityClass.getSimpleName(), e.getMessage());
+      return false;
+    }
+    return mappingBefore.equals(this.esOperations.getMapping(esEntityClass));
+  }
+
+  /**
+   * Opens the file that contains the data to load, as stored (i.e still gzipped, if so).
+   *
+   * @param d the data to load
+   * @return the raw content of the file
+   */
+  InputStream openResource(final IndexData d) {
+    if (EsDataGenerator.isGenerated(d.getLocation()))
+      return new ByteArrayInputStream(new byte[0]);// generated data are fully described by their location (seed) and count
+    try {
+      return EsDataResource.open(d.getLocation());
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
   /**
-   * Returns the format of data to load (if specified) or try to auto-detect it from the JSOC content.
+   * Builds an {@link IndexQuery} based on the provided document, representing the data to be inserted into ES.
    *
-   * @param br           the reader to read the JSON content
+   * @param document  the data to be inserted
+   * @param indexName the name of the target index
+   * @param indexType the type of the target index
+   * @return the {@link IndexQuery} built from the document
+   */
+  private static IndexQuery getIndexQuery(final EsDocument document, final String indexName, final String indexType) {
+    return new IndexQueryBuilder()//
+      .withId(document.getId())//
+      .withIndexName(indexName)//
+      .withType(indexType)//
+      .withSource(document.getSource())//
+      .build();
+  }
+
+  /**
+   * Returns the format of data to load (if specified) or try to auto-detect it from the beginning of the JSON content.
+   * The stream is left at its original position.
+   *
+   * @param is           the stream to read the JSON content from
    * @param esDataFormat the specified format
    * @return the es data format
-   * @throws IOException
+   * @throws IOException if the content could not be read
    */
-  private static EsDataFormat getEsDataFormat(BufferedReader br, EsDataFormat esDataFormat) throws IOException {
+  static EsDataFormat getEsDataFormat(final BufferedInputStream is, final EsDataFormat esDataFormat) throws IOException {
     if (esDataFormat != EsDataFormat.UNKNOWN)
       return esDataFormat;
 
-    // try to detect the format from the content of the json content
-    br.mark(1024);// mark the stream at the beginning, to later rewind to that position
-    String firstLine = br.lines().filter(l -> !l.isEmpty()).findFirst().orElse("");
-    br.reset();// rewind the stream to the last mark
+    // try to detect the format from the content of the json content (only its beginning, that may end in the middle of a line)
+    byte[] head = new byte[FORMAT_DETECTION_LENGTH];
+    int length = 0;
+    is.mark(FORMAT_DETECTION_LENGTH);// mark the stream at the beginning, to later rewind to that position
+    for (int n; length < head.length && (n = is.read(head, length, head.length - length)) != -1; )
+      length += n;
+    is.reset();// rewind the stream to the last mark
+
+    if (length >= EsDataCompiler.MAGIC.length && Arrays.equals(Arrays.copyOf(head, EsDataCompiler.MAGIC.length), EsDataCompiler.MAGIC))
+      return EsDataFormat.COMPILED;
+
+    String firstLine = new BufferedReader(new StringReader(new String(head, 0, length, StandardCharsets.UTF_8))).lines()
+      .map(String::trim)
+      .filter(l -> !l.isEmpty())
+      .findFirst().orElse("");
 
     if (firstLine.contains("_index") && firstLine.contains("_source"))
       return EsDataFormat.DUMP;
+    else if (BULK_ACTION.matcher(firstLine).lookingAt())
+      return EsDataFormat.BULK;
     else if (firstLine.startsWith("["))
       return EsDataFormat.MANUAL;
     else
       throw new IllegalArgumentException("Could not auto-detect the format of data to load");
   }
-
-  /**
-   * Converts the given {@link Reader} (that represents a array of JSON objects)  into a {@link Stream}.
-   *
-   * @param reader the reader
-   * @return a {@link Stream} of JSON objects as String
-   * @throws IOException
-   */
-  private Stream<String> toJsonArrayStream(Reader reader) throws IOException {
-    final JsonParser jsonParser = OBJECT_MAPPER.getFactory().createParser(reader);
-    if (jsonParser.nextToken() != JsonToken.START_ARRAY) {
-      throw new IllegalStateException("Not a valid EsDataFormat.MANUAL format. Expected an array");
-    }
-    Iterator<String> iterator = new Iterator<String>() {
-      String nextObject = null;
-
-      @Override
-      public boolean hasNext() {
-        if (this.nextObject != null) {
-          return true;
-        } else {
-          try {
-            this.nextObject = this.readObject();
-            return (this.nextObject != null);
-          } catch (IOException e) {
-            throw new UncheckedIOException(e);
-          }
-        }
-      }
-
-      @Override
-      public String next() {
-        if (this.nextObject != null || this.hasNext()) {
-          String object = this.nextObject;
-          this.nextObject = null;
-          return object;
-        } else {
-          throw new NoSuchElementException();
-        }
-      }
-
-      String readObject() throws IOException {
-        JsonToken nextToken = jsonParser.nextToken();
-        if (nextToken != null && nextToken != JsonToken.END_ARRAY) {
-          return OBJECT_MAPPER.readTree(jsonParser).toString();
-        }
-
-        jsonParser.close();//no more objects in the array, close the stream
-        return null;
-      }
-    };
-    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-      iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
-  }
 }
@@ -3,8 +3,12 @@ package com.github.spring.esdata.loader.core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -68,4 +72,36 @@ public final class SpringUtils {
     return new SpringEsDataLoader(esOperations);
 	}
 
+  /**
+   * Gets the annotations of the class level data that are preloaded for the given test class, when annotated with
+   * {@link PreloadEsData}: its {@link LoadEsData} and {@link GenerateEsData} (including the inherited and meta-present ones).
+   *
+   * @param testClass the test class
+   * @return the annotations of the preloaded data (in loading order)
+   */
+  public static List<Annotation> getPreloadedAnnotations(final Class<?> testClass) {
+    List<Annotation> annotations = new ArrayList<>(AnnotatedElementUtils.findMergedRepeatableAnnotations(testClass, LoadEsData.class));
+    annotations.addAll(AnnotatedElementUtils.findMergedRepeatableAnnotations(testClass, GenerateEsData.class));
+    return annotations;
+  }
+
+  /**
+   * Waits for the end of the loading of the class level data of the given test class, if they are preloaded (see
+   * {@link PreloadEsData}) in the given {@link ApplicationContext}. Only the data of {@link #getPreloadedAnnotations(Class)}
+   * are preloaded: the other ones (if any) remain to be loaded.
+   *
+   * @param appContext the Spring {@link ApplicationContext} of the test class
+   * @param testClass  the test class
+   * @return {@code true} if the data of {@link #getPreloadedAnnotations(Class)} are preloaded (and now loaded), {@code false}
+   *         if they are not preloaded (and remain to be loaded)
+   * @throws RuntimeException if the preloaded data could not be loaded
+   */
+  public static boolean awaitPreloadedData(final ApplicationContext appContext, final Class<?> testClass) {
+    EsDataPreloader preloader = appContext.getBeansOfType(EsDataPreloader.class).values().stream().findAny().orElse(null);
+    if (preloader == null)
+      return false;
+    preloader.await(appContext, testClass);
+    return true;
+  }
+
 }
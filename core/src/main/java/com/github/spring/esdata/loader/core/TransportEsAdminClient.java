@@ -0,0 +1,148 @@
+package com.github.spring.esdata.loader.core;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryAction;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.reindex.ReindexAction;
+import org.elasticsearch.index.reindex.ReindexRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link EsAdminClient} based on the (transport) {@link Client}.
+ *
+ * @author tinesoft
+ */
+class TransportEsAdminClient extends EsAdminClient {
+
+  private final Client client;
+
+  TransportEsAdminClient(final Object client) {
+    this.client = (Client) client;
+  }
+
+  static boolean supports(final Object client) {
+    return client instanceof Client;
+  }
+
+  @Override
+  void reindex(final String sourceIndex, final String destIndex) {
+    ReindexRequest request = new ReindexRequest(new SearchRequest(sourceIndex), new IndexRequest(destIndex));
+    request.setSlices(AbstractBulkByScrollRequest.AUTO_SLICES);
+    request.setRefresh(true);
+
+    BulkByScrollResponse response = this.client.execute(ReindexAction.INSTANCE, request).actionGet();
+    checkFailures("reindex", response);
+  }
+
+  @Override
+  void deleteAll(final String index) {
+    DeleteByQueryRequest request = new DeleteByQueryRequest(new SearchRequest(index));// matches all documents by default
+    request.setSlices(AbstractBulkByScrollRequest.AUTO_SLICES);
+    request.setAbortOnVersionConflict(false);
+    request.setRefresh(true);
+
+    BulkByScrollResponse response = this.client.execute(DeleteByQueryAction.INSTANCE, request).actionGet();
+    checkFailures("delete documents", response);
+  }
+
+  @Override
+  void updateSettings(final String index, final Map<String, Object> settings) {
+    Settings.Builder builder = Settings.builder();
+    settings.forEach((k, v) -> {
+      if (v == null)
+        builder.putNull(k);
+      else
+        builder.put(k, v.toString());
+    });
+
+    this.client.admin().indices().prepareUpdateSettings(index).setSettings(builder.build()).get();
+  }
+
+  @Override
+  void bulk(final String defaultIndex, final String defaultType, final byte[] data, final int length) {
+    BulkRequest request = new BulkRequest();
+    try {
+      request.add(data, 0, length, defaultIndex, defaultType, XContentType.JSON);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    BulkResponse response = this.client.bulk(request).actionGet();
+    if (response.hasFailures())
+      throw new IllegalStateException("Failed to send bulk request: " + response.buildFailureMessage());
+  }
+
+  @Override
+  long[] maxSeqNos(final String index) {
+    IndicesStatsResponse response = this.client.admin().indices().prepareStats(index).clear().get();
+
+    Map<Integer, Long> maxSeqNos = new TreeMap<>();
+    for (ShardStats shardStats : response.getShards()) {
+      if (shardStats.getShardRouting().primary() && shardStats.getSeqNoStats() != null)
+        maxSeqNos.put(shardStats.getShardRouting().id(), shardStats.getSeqNoStats().getMaxSeqNo());
+    }
+    return maxSeqNos.values().stream().mapToLong(Long::longValue).toArray();
+  }
+
+  @Override
+  List<String> findIdsWrittenAfter(final String index, final long[] watermark, final int max) {
+    List<String> ids = new ArrayList<>();
+    for (int shard = 0; shard < watermark.length && ids.size() < max; shard++) {
+      SearchResponse response = this.client.prepareSearch(index)//
+        .setPreference("_shards:" + shard)//
+        .setQuery(QueryBuilders.rangeQuery("_seq_no").gt(watermark[shard]))//
+        .setFetchSource(false)//
+        .setSize(max - ids.size())//
+        .get();
+      response.getHits().forEach(hit -> ids.add(hit.getId()));
+    }
+    return ids;
+  }
+
+  @Override
+  Set<String> findExistingIds(final String index, final Collection<String> ids) {
+    List<String> idList = new ArrayList<>(ids);
+    Set<String> existingIds = new HashSet<>();
+    for (int from = 0; from < idList.size(); from += IDS_PER_REQUEST) {
+      List<String> chunk = idList.subList(from, Math.min(from + IDS_PER_REQUEST, idList.size()));
+      SearchResponse response = this.client.prepareSearch(index)//
+        .setQuery(QueryBuilders.idsQuery().addIds(chunk.toArray(new String[0])))//
+        .setFetchSource(false)//
+        .setSize(chunk.size())//
+        .get();
+      response.getHits().forEach(hit -> existingIds.add(hit.getId()));
+    }
+    return existingIds;
+  }
+
+  @Override
+  long count(final String index) {
+    return this.client.prepareSearch(index).setSize(0).get().getHits().getTotalHits();
+  }
+
+  private static void checkFailures(final String operation, final BulkByScrollResponse response) {
+    if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty())
+      throw new IllegalStateException("Failed to " + operation + ": " + response.getBulkFailures() + response.getSearchFailures());
+  }
+}
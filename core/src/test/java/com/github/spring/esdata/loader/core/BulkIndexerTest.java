@@ -0,0 +1,230 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link BulkIndexer}.
+ *
+ * @author tinesoft
+ */
+class BulkIndexerTest {
+
+  private final List<List<String>> bulkRequests = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  void batchesBoundedBySize() {
+    LoadStatistics statistics = new LoadStatistics();
+    try (BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> { }), 3, Long.MAX_VALUE, 1, statistics)) {
+      for (int i = 1; i <= 7; i++)
+        indexer.add(query(String.valueOf(i), "{}"));
+      indexer.await();
+    }
+
+    assertEquals(Arrays.asList(Arrays.asList("1", "2", "3"), Arrays.asList("4", "5", "6"), Collections.singletonList("7")), this.bulkRequests);
+    assertEquals(7, statistics.toReport(TestEsEntity.class, "author", true).getNbIndexed());
+  }
+
+  @Test
+  void emptyBatchNotSent() {
+    LoadStatistics statistics = new LoadStatistics();
+    try (BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> { }), 3, Long.MAX_VALUE, 1, statistics)) {
+      indexer.add(query("1", "{}"));
+      indexer.add(query("2", "{}"));
+      indexer.add(query("3", "{}"));
+      indexer.await();
+    }
+
+    assertEquals(1, this.bulkRequests.size());
+    assertEquals(3, statistics.toReport(TestEsEntity.class, "author", true).getNbIndexed());
+  }
+
+  @Test
+  void batchesBoundedByBytes() {
+    try (BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> { }), 1000, 20, 1, new LoadStatistics())) {
+      indexer.add(query("1", "{\"a\":\"0123\"}"));// 11 bytes with its id
+      indexer.add(query("2", "{\"a\":\"0123\"}"));// would overflow: sent in the next batch
+      indexer.add(query("3", "{\"a\":\"0123456789012345678901\"}"));// too big on its own: gets its own batch
+      indexer.add(query("4", "{}"));
+      indexer.await();
+    }
+
+    assertEquals(4, this.bulkRequests.size());
+    assertEquals(Collections.singletonList("1"), this.bulkRequests.get(0));
+    assertEquals(Collections.singletonList("2"), this.bulkRequests.get(1));
+    assertEquals(Collections.singletonList("3"), this.bulkRequests.get(2));
+    assertEquals(Collections.singletonList("4"), this.bulkRequests.get(3));
+  }
+
+  @Test
+  void addBlockedWhileTooManyBatchesPending() throws InterruptedException {
+    CountDownLatch cluster = new CountDownLatch(1);
+    AtomicInteger nbAdded = new AtomicInteger();
+    BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> await(cluster)), 1, Long.MAX_VALUE, 2, new LoadStatistics());
+
+    Thread producer = new Thread(() -> {
+      for (int i = 1; i <= 10; i++) {
+        indexer.add(query(String.valueOf(i), "{}"));
+        nbAdded.incrementAndGet();
+      }
+      indexer.await();
+    });
+    producer.start();
+
+    // 2 x 2 batches pending (2 being sent, 2 waiting for a worker), the producer being blocked on the next one
+    Thread.sleep(500);
+    assertEquals(4, nbAdded.get());
+    assertTrue(producer.isAlive());
+
+    cluster.countDown();
+    producer.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(producer.isAlive());
+    assertEquals(10, nbAdded.get());
+    assertEquals(10, this.bulkRequests.size());
+    indexer.close();
+  }
+
+  @Test
+  void batchesSentConcurrently() {
+    // each bulk request waits for 3 of them to be sent at the same time: would time out if sent one after another
+    CountDownLatch inFlight = new CountDownLatch(3);
+    try (BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> {
+      inFlight.countDown();
+      assertTrue(await(inFlight, 10), "bulk requests not sent concurrently");
+    }), 1, Long.MAX_VALUE, 3, new LoadStatistics())) {
+      for (int i = 1; i <= 6; i++)
+        indexer.add(query(String.valueOf(i), "{}"));
+      indexer.await();
+    }
+
+    assertEquals(6, this.bulkRequests.size());
+  }
+
+  @Test
+  void chunksSentInOrder() {
+    // an index then a delete of the same document, across a chunk boundary: the first chunk being slower to send
+    List<String> actions = Collections.synchronizedList(new ArrayList<>());
+    LoadStatistics statistics = new LoadStatistics();
+    try (BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> { }), 1, Long.MAX_VALUE, 4, statistics)) {
+      indexer.send(1, () -> {
+        sleep(300);
+        actions.add("index 1");
+      });
+      indexer.send(1, () -> actions.add("delete 1"));
+      for (int i = 2; i <= 6; i++) {
+        String action = "index " + i;
+        indexer.send(1, () -> actions.add(action));
+      }
+      indexer.await();
+    }
+
+    assertEquals(Arrays.asList("index 1", "delete 1", "index 2", "index 3", "index 4", "index 5", "index 6"), actions);
+    assertEquals(7, statistics.toReport(TestEsEntity.class, "author", true).getNbIndexed());
+  }
+
+  @Test
+  void documentNotOvertakenByItsPreviousVersion() {
+    // the first batch is slower to send than the next ones: the second version of document 1 must wait for it
+    List<String> versions = Collections.synchronizedList(new ArrayList<>());
+    try (BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> {
+      if ("{\"v\":1}".equals(q.get(0).getSource()))
+        sleep(300);
+      q.forEach(query -> versions.add(query.getId() + query.getSource()));
+    }), 1, Long.MAX_VALUE, 4, new LoadStatistics())) {
+      indexer.add(query("1", "{\"v\":1}"));
+      indexer.add(query("2", "{}"));
+      indexer.add(query("1", "{\"v\":2}"));
+      indexer.await();
+    }
+
+    assertEquals(3, versions.size());
+    assertTrue(versions.indexOf("1{\"v\":1}") < versions.indexOf("1{\"v\":2}"));
+  }
+
+  @Test
+  void failureRethrownAndCounted() {
+    ElasticsearchException failure = new ElasticsearchException("Bulk indexing has failures", Collections.singletonMap("2", "mapping error"));
+    LoadStatistics statistics = new LoadStatistics();
+    BulkIndexer indexer = new BulkIndexer(this.esOperations(q -> {
+      throw failure;
+    }), 3, Long.MAX_VALUE, 1, statistics);
+
+    indexer.add(query("1", "{}"));
+    indexer.add(query("2", "{}"));
+    indexer.add(query("3", "{}"));
+    assertSame(failure, assertThrows(ElasticsearchException.class, indexer::await));
+    indexer.close();
+
+    LoadReport report = statistics.toReport(TestEsEntity.class, "author", false);
+    assertEquals(1, report.getNbFailed());
+    assertEquals(2, report.getNbIndexed());
+  }
+
+  /**
+   * @return operations recording the ids of the documents of each bulk request, after calling the given action with them
+   */
+  @SuppressWarnings("unchecked")
+  private ElasticsearchOperations esOperations(final Consumer<List<IndexQuery>> action) {
+    return (ElasticsearchOperations) Proxy.newProxyInstance(ElasticsearchOperations.class.getClassLoader(),
+      new Class<?>[]{ElasticsearchOperations.class}, (proxy, method, args) -> {
+        if (!"bulkIndex".equals(method.getName()))
+          throw new UnsupportedOperationException(method.getName());
+        List<IndexQuery> queries = (List<IndexQuery>) args[0];
+        action.accept(queries);
+        List<String> ids = new ArrayList<>();
+        queries.forEach(q -> ids.add(q.getId()));
+        this.bulkRequests.add(ids);
+        return null;
+      });
+  }
+
+  private static IndexQuery query(final String id, final String source) {
+    IndexQuery indexQuery = new IndexQuery();
+    indexQuery.setId(id);
+    indexQuery.setSource(source);
+    return indexQuery;
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean await(final CountDownLatch latch, final long seconds) {
+    try {
+      return latch.await(seconds, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests of {@link BulkPayloadCache}.
+ *
+ * @author tinesoft
+ */
+class BulkPayloadCacheTest {
+
+  private static final String LOCATION = "/data/authors.json";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void disabledByDefault() {
+    assertEquals(0, new BulkPayloadCache(0).getMaxBytes());
+    assertNull(new BulkPayloadCache(0).keyOf(IndexData.of(TestEsEntity.class, LOCATION)));
+  }
+
+  @Test
+  void keyOfSameData() {
+    BulkPayloadCache cache = new BulkPayloadCache(1024);
+
+    assertEquals(cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)), cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)));
+    assertEquals(cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)).hashCode(), cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)).hashCode());
+    assertNotEquals(cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)), cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION, 5L)));
+    assertNotEquals(cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)),
+      cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION, Long.MAX_VALUE, 2L, null)));
+    assertNotEquals(cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION)),
+      cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION, Long.MAX_VALUE, 0L, EsDataFormat.DUMP)));
+  }
+
+  @Test
+  void keyOfModifiedFile() throws IOException {
+    BulkPayloadCache cache = new BulkPayloadCache(1024);
+    Path file = Files.write(this.tempDir.resolve("authors.json"), "{}".getBytes());
+    IndexData data = IndexData.of(TestEsEntity.class, file.toUri().toString());
+
+    BulkPayloadCache.Key key = cache.keyOf(data);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 60_000));
+
+    assertNotEquals(key, cache.keyOf(data));
+  }
+
+  @Test
+  void keyOfMissingFile() {
+    assertNull(new BulkPayloadCache(1024).keyOf(IndexData.of(TestEsEntity.class, this.tempDir.resolve("missing.json").toUri().toString())));
+  }
+
+  @Test
+  void hitsAndMisses() {
+    BulkPayloadCache cache = new BulkPayloadCache(10_000);
+    BulkPayloadCache.Key key = cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION));
+    BulkPayloadCache.Payload payload = payload(cache, 10);
+
+    assertNull(cache.get(key));
+    cache.put(key, payload);
+    assertSame(payload, cache.get(key));
+    assertSame(payload, cache.get(key));
+
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  void leastRecentlyUsedEvicted() {
+    // room for 4 payloads of 5 documents
+    BulkPayloadCache cache = new BulkPayloadCache(4 * 5 * 65);
+    BulkPayloadCache.Key[] keys = new BulkPayloadCache.Key[5];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = cache.keyOf(IndexData.of(TestEsEntity.class, LOCATION, i + 1L));
+      if (i == keys.length - 1)
+        cache.get(keys[0]);// the second payload becomes the least recently used one
+      cache.put(keys[i], payload(cache, 5));
+    }
+
+    assertNotNull(cache.get(keys[0]));
+    assertNull(cache.get(keys[1]));
+    assertNotNull(cache.get(keys[2]));
+    assertNotNull(cache.get(keys[4]));
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(4 * 5 * 65, cache.getSizeInBytes());
+
+    cache.clear();
+    assertEquals(0, cache.getSizeInBytes());
+    assertNull(cache.get(keys[0]));
+  }
+
+  @Test
+  void payloadTooLargeToBeCached() {
+    BulkPayloadCache cache = new BulkPayloadCache(2_000);
+
+    // a single payload is limited to a fraction of the cache: 500 bytes here, i.e 7 documents of 65 bytes
+    assertNotNull(payload(cache, 7));
+    assertNull(payload(cache, 8));
+  }
+
+  @Test
+  void payloadSplitIntoBulkRequests() {
+    BulkPayloadCache cache = new BulkPayloadCache(1024 * 1024);
+    BulkPayloadCache.Recorder recorder = cache.record(IndexData.of(TestEsEntity.class, LOCATION, Long.MAX_VALUE, 0L, null, 3,
+      IndexData.DEFAULT_BULK_MAX_BYTES, IndexData.DEFAULT_BULK_CONCURRENCY, LoadStrategy.RECREATE, LoadTuning.NONE));
+    recorder.add(new EsDocument("1\"", "{\n  \"a\": 1\n}"));
+    recorder.add(new EsDocument(null, "{\"a\": 2}"));
+    for (int i = 3; i <= 7; i++)
+      recorder.add(new EsDocument(String.valueOf(i), "{}"));
+    StringBuilder requests = new StringBuilder();
+
+    BulkPayloadCache.Payload payload = recorder.toPayload();
+    payload.forEach((data, length, nbActions) -> requests.append(nbActions).append(':').append(new String(data, 0, length)).append('|'));
+
+    assertEquals(7, payload.getNbDocuments());
+    assertEquals("3:{\"index\":{\"_id\":\"1\\\"\"}}\n{   \"a\": 1 }\n{\"index\":{}}\n{\"a\": 2}\n{\"index\":{\"_id\":\"3\"}}\n{}\n|"
+      + "3:{\"index\":{\"_id\":\"4\"}}\n{}\n{\"index\":{\"_id\":\"5\"}}\n{}\n{\"index\":{\"_id\":\"6\"}}\n{}\n|"
+      + "1:{\"index\":{\"_id\":\"7\"}}\n{}\n|", requests.toString());
+  }
+
+  /**
+   * Records a payload of the given number of documents of 65 bytes each (action and source).
+   */
+  private static BulkPayloadCache.Payload payload(final BulkPayloadCache cache, final int nbDocuments) {
+    BulkPayloadCache.Recorder recorder = cache.record(IndexData.of(TestEsEntity.class, LOCATION));
+    for (int i = 0; i < nbDocuments; i++)
+      recorder.add(new EsDocument(String.valueOf(i % 10), "{\"name\":\"0123456789012345678901234567890\"}"));
+    return recorder.toPayload();
+  }
+}
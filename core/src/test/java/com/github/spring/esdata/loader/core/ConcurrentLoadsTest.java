@@ -0,0 +1,132 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link ConcurrentLoads}.
+ *
+ * @author tinesoft
+ */
+class ConcurrentLoadsTest {
+
+  private static final List<IndexData> DATA = Arrays.asList(
+    IndexData.of(TestEsEntity.class, "/data/authors-1.json"),
+    IndexData.of(OtherEsEntity.class, "/data/books-1.json"),
+    IndexData.of(TestEsEntity.class, "/data/authors-2.json"),
+    IndexData.of(OtherEsEntity.class, "/data/books-2.json"),
+    IndexData.of(TestEsEntity.class, "/data/authors-3.json"));
+
+  @Test
+  void reportsInOrderOfData() {
+    for (int concurrency : new int[]{1, 4}) {
+      List<LoadReport> reports = ConcurrentLoads.loadAll(new RecordingEsDataLoader(), DATA, concurrency);
+
+      assertEquals(DATA.stream().map(IndexData::getLocation).collect(Collectors.toList()),
+        reports.stream().map(LoadReport::getIndexName).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void differentClassesLoadedConcurrently() {
+    // each load waits for a load of the other class to start: would time out if loaded one after another
+    CountDownLatch started = new CountDownLatch(2);
+    RecordingEsDataLoader loader = new RecordingEsDataLoader(d -> {
+      started.countDown();
+      await(started);
+    });
+
+    ConcurrentLoads.loadAll(loader, DATA.subList(0, 2), 2);
+
+    assertEquals(0, started.getCount());
+  }
+
+  @Test
+  void sameClassLoadedInOrder() {
+    Map<Class<?>, AtomicInteger> running = new ConcurrentHashMap<>();
+    AtomicInteger maxRunning = new AtomicInteger();
+    RecordingEsDataLoader loader = new RecordingEsDataLoader(d -> {
+      AtomicInteger n = running.computeIfAbsent(d.getEsEntityClass(), c -> new AtomicInteger());
+      maxRunning.accumulateAndGet(n.incrementAndGet(), Math::max);
+      sleep(20);
+      n.decrementAndGet();
+    });
+
+    ConcurrentLoads.loadAll(loader, DATA, 4);
+
+    assertEquals(1, maxRunning.get());
+    assertEquals(Arrays.asList("/data/authors-1.json", "/data/authors-2.json", "/data/authors-3.json"),
+      loader.getLocations().stream().filter(l -> l.contains("authors")).collect(Collectors.toList()));
+  }
+
+  @Test
+  void failureRethrownAsIs() {
+    IllegalArgumentException failure = new IllegalArgumentException("Could not find data to load");
+    RecordingEsDataLoader loader = new RecordingEsDataLoader(d -> {
+      if (d.getLocation().equals("/data/books-1.json"))
+        throw failure;
+    });
+
+    assertSame(failure, assertThrows(IllegalArgumentException.class, () -> ConcurrentLoads.loadAll(loader, DATA, 4)));
+    // the next data of the same class are not loaded, while the other ones are
+    assertEquals(Arrays.asList("/data/authors-1.json", "/data/authors-2.json", "/data/authors-3.json"),
+      loader.getLocations().stream().sorted().collect(Collectors.toList()));
+  }
+
+  @Test
+  void failuresReportedTogether() {
+    for (int concurrency : new int[]{1, 4}) {
+      RecordingEsDataLoader loader = new RecordingEsDataLoader(d -> {
+        if (d.getLocation().endsWith("-2.json"))
+          throw new IllegalArgumentException("Could not find data to load at '" + d.getLocation() + "'");
+      });
+
+      IllegalStateException e = assertThrows(IllegalStateException.class, () -> ConcurrentLoads.loadAll(loader, DATA, concurrency));
+
+      assertEquals("Failed to load 2 out of 5 data. See suppressed exceptions for details", e.getMessage());
+      assertEquals(2, e.getSuppressed().length);
+      assertEquals(Arrays.asList("/data/authors-1.json", "/data/books-1.json"), loader.getLocations().stream().sorted().collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void noData() {
+    assertEquals(Collections.emptyList(), ConcurrentLoads.loadAll(new RecordingEsDataLoader(), Collections.emptyList(), 4));
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(10, TimeUnit.SECONDS), "loads not started concurrently");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Entity of another index.
+   */
+  static class OtherEsEntity {
+  }
+}
@@ -0,0 +1,146 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link DumpLineSpliterator}.
+ *
+ * @author tinesoft
+ */
+class DumpLineSpliteratorTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void linesAcrossWindows() throws IOException {
+    Path file = this.write("first line\r\n\nsecond line, longer than the others\n\u00e9t\u00e9\n\r\nlast line");
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      List<String> lines = new ArrayList<>();
+      new DumpLineSpliterator(channel, 0, channel.size(), 40).forEachRemaining(lines::add);
+
+      assertEquals(Arrays.asList("first line", "second line, longer than the others", "\u00e9t\u00e9", "last line"), lines);
+    }
+  }
+
+  @Test
+  void lineLongerThanWindow() throws IOException {
+    Path file = this.write("short\nthis line does not fit in a window\n");
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      DumpLineSpliterator lines = new DumpLineSpliterator(channel, 0, channel.size(), 16);
+
+      assertTrue(lines.tryAdvance(l -> assertEquals("short", l)));
+      assertThrows(IllegalStateException.class, () -> lines.tryAdvance(l -> { }));
+    }
+  }
+
+  @Test
+  void splitAtLineBoundaries() throws IOException {
+    List<String> expected = new ArrayList<>();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; content.length() < 5 * 1024 * 1024; i++) {
+      String line = "{\"_id\":\"" + i + "\",\"_source\":{\"padding\":\"" + String.join("", Collections.nCopies(i % 200, "x")) + "\"}}";
+      expected.add(line);
+      content.append(line).append('\n');
+    }
+    Path file = this.write(content.toString());
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      List<DumpLineSpliterator> ranges = new ArrayList<>();
+      split(new DumpLineSpliterator(channel, 0, channel.size(), 64 * 1024), ranges);
+
+      assertTrue(ranges.size() >= 4, "split into " + ranges.size() + " ranges");
+      List<String> lines = new ArrayList<>();
+      for (DumpLineSpliterator range : ranges)
+        range.forEachRemaining(lines::add);
+      assertEquals(expected, lines);
+    }
+  }
+
+  @Test
+  void noSplitOnceStarted() throws IOException {
+    Path file = this.write(String.join("", Collections.nCopies(4 * 1024 * 1024 / 8, "1234567\n")));
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      DumpLineSpliterator lines = new DumpLineSpliterator(channel, 0, channel.size(), 64 * 1024);
+      assertEquals(4 * 1024 * 1024 / 8, lines.estimateSize());
+
+      assertTrue(lines.tryAdvance(l -> { }));
+      assertNull(lines.trySplit());
+    }
+  }
+
+  @Test
+  void readDumpFileInParallel() throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 50_000; i++)
+      content.append("{\"_id\":\"").append(i).append("\",\"_source\":{\"name\":\"name").append(i).append("\"}}\n");
+    Path file = this.write(content.toString());
+
+    try (Stream<EsDocument> documents = EsDocumentReader.readDump(file)) {
+      List<Integer> ids = new ArrayList<>();
+      documents.forEachOrdered(d -> ids.add(Integer.valueOf(d.getId())));
+
+      assertEquals(50_000, ids.size());
+      for (int i = 0; i < ids.size(); i++)
+        assertEquals(i, ids.get(i).intValue());
+    }
+  }
+
+  @Test
+  void lastVersionWinsWhenReadInParallel() throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int version = 1; version <= 3; version++)
+      for (int i = 0; i < 20_000; i++)
+        content.append("{\"_id\":\"").append(i).append("\",\"_source\":{\"version\":").append(version).append("}}\n");
+    Path file = this.write(content.toString());
+
+    try (Stream<EsDocument> documents = EsDocumentReader.readDump(file)) {
+      Map<String, String> sources = new HashMap<>();
+      documents.forEachOrdered(d -> sources.put(d.getId(), d.getSource()));
+
+      assertEquals(20_000, sources.size());
+      sources.values().forEach(source -> assertEquals("{\"version\":3}", source));
+    }
+  }
+
+  /**
+   * Splits the given range recursively, collecting the resulting ranges in order.
+   */
+  private static void split(final DumpLineSpliterator range, final List<DumpLineSpliterator> ranges) {
+    Spliterator<String> prefix = range.trySplit();
+    if (prefix == null) {
+      ranges.add(range);
+      return;
+    }
+    split((DumpLineSpliterator) prefix, ranges);
+    split(range, ranges);
+  }
+
+  private Path write(final String content) throws IOException {
+    return Files.write(this.tempDir.resolve("authors.json"), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
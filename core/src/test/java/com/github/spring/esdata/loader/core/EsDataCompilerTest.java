@@ -0,0 +1,41 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link EsDataCompiler}.
+ *
+ * @author tinesoft
+ */
+class EsDataCompilerTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void compiledFileName() {
+    assertEquals("authors.esdata", EsDataCompiler.getCompiledFileName("authors.json"));
+    assertEquals("authors.esdata", EsDataCompiler.getCompiledFileName("authors.json.gz"));
+    assertEquals("authors-MANUAL.esdata", EsDataCompiler.getCompiledFileName("authors-MANUAL.json"));
+    assertEquals("authors.esdata", EsDataCompiler.getCompiledFileName("authors"));
+  }
+
+  @Test
+  void sourcesCompiledIntoSameFileRejected() throws Exception {
+    Path json = Files.write(this.tempDir.resolve("authors.json"), "[]".getBytes());
+    Path gzipped = this.tempDir.resolve("authors.json.gz");
+    Path targetDir = this.tempDir.resolve("compiled");
+
+    assertThrows(IllegalArgumentException.class,
+      () -> EsDataCompiler.main(new String[]{targetDir.toString(), json.toString(), gzipped.toString()}));
+    assertFalse(Files.exists(targetDir));
+  }
+}
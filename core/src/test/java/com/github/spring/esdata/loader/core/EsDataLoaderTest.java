@@ -0,0 +1,107 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the asynchronous (and concurrent) loads of {@link EsDataLoader}, run in the namespace of the calling thread
+ * (see {@link EsIndexNamespace}).
+ *
+ * @author tinesoft
+ */
+class EsDataLoaderTest {
+
+  private static final IndexData DATA = IndexData.of(TestEsEntity.class, "/data/authors.json");
+
+  @AfterEach
+  void removeNamespace() {
+    EsIndexNamespace.set(null);
+  }
+
+  @Test
+  void loadAsync() throws Exception {
+    RecordingEsDataLoader loader = new RecordingEsDataLoader();
+    EsIndexNamespace.set("test-1");
+
+    assertEquals("/data/authors.json", loader.loadAsync(DATA).get(10, TimeUnit.SECONDS).getIndexName());
+    assertEquals(Collections.singletonList("test-1"), loader.getNamespaces());
+  }
+
+  @Test
+  void loadAsyncOnExecutor() throws Exception {
+    RecordingEsDataLoader loader = new RecordingEsDataLoader();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      EsIndexNamespace.set("test-1");
+      loader.loadAsync(DATA, executor).get(10, TimeUnit.SECONDS);
+      EsIndexNamespace.set("test-2");
+      loader.loadAsync(DATA, executor).get(10, TimeUnit.SECONDS);
+      EsIndexNamespace.set(null);
+      loader.loadAsync(DATA, executor).get(10, TimeUnit.SECONDS);
+
+      // the namespace of a load is not left on the (reused) thread of the executor
+      assertNull(executor.submit(EsIndexNamespace::get).get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(Arrays.asList("test-1", "test-2", null), loader.getNamespaces());
+  }
+
+  @Test
+  void loadAsyncFailure() throws Exception {
+    IllegalArgumentException failure = new IllegalArgumentException("Could not find data to load");
+    RecordingEsDataLoader loader = new RecordingEsDataLoader(d -> {
+      throw failure;
+    });
+
+    CompletableFuture<LoadReport> report = loader.loadAsync(DATA);
+
+    assertSame(failure, assertThrows(ExecutionException.class, () -> report.get(10, TimeUnit.SECONDS)).getCause());
+  }
+
+  @Test
+  void deleteAsync() throws Exception {
+    RecordingEsDataLoader loader = new RecordingEsDataLoader();
+    EsIndexNamespace.set("test-1");
+
+    loader.deleteAsync(TestEsEntity.class).get(10, TimeUnit.SECONDS);
+    loader.deleteAsync(TestEsEntity.class, DeleteStrategy.DROP, Runnable::run).get(10, TimeUnit.SECONDS);
+
+    assertEquals(Arrays.asList("test-1", "test-1"), loader.getNamespaces());
+  }
+
+  @Test
+  void loadAllInNamespace() {
+    RecordingEsDataLoader loader = new RecordingEsDataLoader();
+    EsIndexNamespace.set("test-1");
+
+    List<LoadReport> reports = loader.loadAll(Arrays.asList(DATA, IndexData.of(ConcurrentLoadsTest.OtherEsEntity.class, "/data/books.json"),
+      IndexData.of(TestEsEntity.class, "/data/more-authors.json")), EsDataLoader.DEFAULT_CONCURRENCY);
+
+    assertEquals(3, reports.size());
+    assertEquals(Arrays.asList("test-1", "test-1", "test-1"), loader.getNamespaces());
+  }
+
+  @Test
+  void rollbackNotSupportedByDefault() {
+    EsDataLoader loader = new RecordingEsDataLoader();
+
+    assertThrows(UnsupportedOperationException.class, () -> loader.checkpoint(TestEsEntity.class));
+    assertThrows(UnsupportedOperationException.class, () -> loader.rollback(null));
+  }
+}
@@ -0,0 +1,82 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link EsDataResource}.
+ *
+ * @author tinesoft
+ */
+class EsDataResourceTest {
+
+  private static final String CONTENT = "{\"_id\":\"1\",\"_source\":{}}\n";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void plainPathResolvedFromClasspath() throws IOException {
+    assertTrue(EsDataResource.resolve("/data/authors.json").exists());
+    assertEquals(EsDataResource.resolve("classpath:data/authors.json").getFile(), EsDataResource.resolve("/data/authors.json").getFile());
+    assertFalse(EsDataResource.resolve("/data/missing.json").exists());
+  }
+
+  @Test
+  void fileUrlResolved() throws IOException {
+    Path file = Files.write(this.tempDir.resolve("authors.json"), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(file, EsDataResource.localFile(file.toUri().toString()));
+    try (InputStream is = EsDataResource.open(file.toUri().toString())) {
+      assertTrue(is instanceof MappedInputStream);
+      assertEquals(CONTENT, read(is));
+    }
+  }
+
+  @Test
+  void jarEntryNotMapped() throws IOException {
+    Path jar = this.tempDir.resolve("data.jar");
+    try (ZipOutputStream os = new ZipOutputStream(Files.newOutputStream(jar))) {
+      os.putNextEntry(new ZipEntry("data/authors.json"));
+      os.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+    String location = "jar:" + jar.toUri() + "!/data/authors.json";
+
+    assertNull(EsDataResource.localFile(location));
+    try (InputStream is = EsDataResource.open(location)) {
+      assertFalse(is instanceof MappedInputStream);
+      assertEquals(CONTENT, read(is));
+    }
+  }
+
+  @Test
+  void missingLocation() throws IOException {
+    assertThrows(IllegalArgumentException.class, () -> EsDataResource.open("/data/missing.json"));
+    assertThrows(IllegalArgumentException.class, () -> EsDataResource.open(this.tempDir.resolve("missing.json").toUri().toString()));
+    assertNull(EsDataResource.localFile(this.tempDir.resolve("missing.json").toUri().toString()));
+  }
+
+  private static String read(final InputStream is) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int n;
+    while ((n = is.read(buffer)) >= 0)
+      content.write(buffer, 0, n);
+    return new String(content.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
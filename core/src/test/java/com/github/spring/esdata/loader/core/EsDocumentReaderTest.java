@@ -0,0 +1,159 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link EsDocumentReader}.
+ *
+ * @author tinesoft
+ */
+class EsDocumentReaderTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void readDumpLine() {
+    EsDocument document = EsDocumentReader.fromDumpLine("{\"_index\":\"author\",\"_id\":\"1\",\"_score\":1,"
+      + "\"_source\":{\"name\":\"a \\\"}\\\" \\u00e9 \u00e9\",\"tags\":[{\"b\":\"}\"}]},\"sort\":[1]}");
+
+    assertEquals("1", document.getId());
+    assertEquals("{\"name\":\"a \\\"}\\\" \\u00e9 \u00e9\",\"tags\":[{\"b\":\"}\"}]}", document.getSource());
+  }
+
+  @Test
+  void readDumpLineWithoutId() {
+    EsDocument document = EsDocumentReader.fromDumpLine("{\"_source\":{\"a\":1},\"_id\":null}");
+
+    assertNull(document.getId());
+    assertEquals("{\"a\":1}", document.getSource());
+  }
+
+  @Test
+  void readDumpLineWithoutSource() {
+    assertThrows(IllegalStateException.class, () -> EsDocumentReader.fromDumpLine("{\"_id\":\"1\",\"_source\":null}"));
+    assertThrows(IllegalStateException.class, () -> EsDocumentReader.fromDumpLine("[]"));
+  }
+
+  @Test
+  void readDumpSkippedAndLimited() throws IOException {
+    LoadStatistics statistics = new LoadStatistics();
+
+    try (BufferedReader reader = new BufferedReader(new StringReader("{\"_id\":\"1\",\"_source\":{}}\n\nnot parsed\n"
+      + "{\"_id\":\"3\",\"_source\":{}}\n{\"_id\":\"4\",\"_source\":{}}\nnot parsed either"))) {
+      assertEquals(Arrays.asList("3", "4"), EsDocumentReader.readDump(reader, 2, 2, statistics)
+        .map(EsDocument::getId).collect(Collectors.toList()));
+    }
+    assertEquals(2, statistics.toReport(TestEsEntity.class, "author", true).getNbSkipped());
+  }
+
+  @Test
+  void readManualSkippedAndLimited() throws IOException {
+    LoadStatistics statistics = new LoadStatistics();
+
+    List<String> sources = EsDocumentReader.readManual(new StringReader("[{\"id\":1,\"a\":{\"b\":[1,2]}}, {\"id\":2},\n"
+      + "{\"id\":3, \"a\": \"\\u00e9\"}, {\"id\":4}, {\"id\":5}]"), 1, 2, statistics)
+      .map(EsDocument::getSource).collect(Collectors.toList());
+
+    assertEquals(Arrays.asList("{\"id\":2}", "{\"id\":3,\"a\":\"\u00e9\"}"), sources);
+    assertEquals(1, statistics.toReport(TestEsEntity.class, "author", true).getNbSkipped());
+  }
+
+  @Test
+  void readManualWithoutArray() {
+    assertThrows(IllegalStateException.class, () -> EsDocumentReader.readManual(new StringReader("{}"), 0, Long.MAX_VALUE, new LoadStatistics()));
+  }
+
+  @Test
+  void readManualFile() throws IOException {
+    Path file = Files.write(this.tempDir.resolve("authors.json"), "[\n  {\"id\": \"1\", \"tags\": [\"a,]\"]},\n  {\"id\": \"2\"}\n]".getBytes(StandardCharsets.UTF_8));
+
+    try (Stream<EsDocument> documents = EsDocumentReader.readManual(file)) {
+      assertEquals(Arrays.asList("{\"id\":\"1\",\"tags\":[\"a,]\"]}", "{\"id\":\"2\"}"),
+        documents.map(EsDocument::getSource).sorted().collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void readManualFileWithTrailingComma() throws IOException {
+    Path file = Files.write(this.tempDir.resolve("authors.json"), "[{\"id\": \"1\"},]".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IllegalStateException.class, () -> EsDocumentReader.readManual(file));
+  }
+
+  @Test
+  void readBulkInChunks() throws IOException {
+    String bulk = "{\"index\":{\"_id\":\"1\"}}\n{\"a\":1}\n"
+      + "\n"
+      + "{\"delete\":{\"_id\":\"2\"}}\n"
+      + "{\"create\":{\"_id\":\"3\"}}\n{\"a\":3}\n"
+      + "{\"update\":{\"_id\":\"4\"}}\n{\"doc\":{\"a\":4}}";
+    LoadStatistics statistics = new LoadStatistics();
+
+    List<String> chunks = readBulk(bulk, 0, Long.MAX_VALUE, 2, statistics);
+
+    assertEquals(2, chunks.size());
+    assertEquals("2:{\"index\":{\"_id\":\"1\"}}\n{\"a\":1}\n{\"delete\":{\"_id\":\"2\"}}\n", chunks.get(0));
+    assertEquals("2:{\"create\":{\"_id\":\"3\"}}\n{\"a\":3}\n{\"update\":{\"_id\":\"4\"}}\n{\"doc\":{\"a\":4}}\n", chunks.get(1));
+    assertEquals(4, statistics.getNbRead());
+  }
+
+  @Test
+  void readBulkSkippedAndLimited() throws IOException {
+    StringBuilder bulk = new StringBuilder();
+    for (int i = 1; i <= 10; i++)
+      bulk.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n{}\n");
+    LoadStatistics statistics = new LoadStatistics();
+
+    List<String> chunks = readBulk(bulk.toString(), 2, 3, 1000, statistics);
+
+    assertEquals(1, chunks.size());
+    assertEquals("3:{\"index\":{\"_id\":\"3\"}}\n{}\n{\"index\":{\"_id\":\"4\"}}\n{}\n{\"index\":{\"_id\":\"5\"}}\n{}\n", chunks.get(0));
+    assertEquals(3, statistics.getNbRead());
+    assertEquals(2, statistics.toReport(TestEsEntity.class, "author", true).getNbSkipped());
+  }
+
+  @Test
+  void readBulkWithTargetFieldsStripped() throws IOException {
+    String bulk = "{\"index\":{\"_index\":\"other\",\"_type\":\"Other\",\"_id\":\"1\",\"routing\":{\"a\":[1]}}}\n{\"_index\":\"kept\"}\n"
+      + "{ \"delete\" : { \"_index\" : \"other\", \"_id\" : \"2\" } }\n"
+      + "{\"index\":{\"_id\":\"_index\"}}\n{}\n";
+
+    List<String> chunks = readBulk(bulk, 0, Long.MAX_VALUE, 1000, new LoadStatistics());
+
+    assertEquals("3:{\"index\":{\"_id\":\"1\",\"routing\":{\"a\":[1]}}}\n{\"_index\":\"kept\"}\n"
+      + "{\"delete\":{\"_id\":\"2\"}}\n"
+      + "{\"index\":{\"_id\":\"_index\"}}\n{}\n", chunks.get(0));
+  }
+
+  @Test
+  void readBulkWithMissingSource() {
+    assertThrows(IllegalStateException.class, () -> readBulk("{\"index\":{\"_id\":\"1\"}}\n", 0, Long.MAX_VALUE, 1000, new LoadStatistics()));
+  }
+
+  private static List<String> readBulk(final String bulk, final long nbSkipItems, final long nbMaxItems, final int bulkSize,
+                                       final LoadStatistics statistics) throws IOException {
+    List<String> chunks = new ArrayList<>();
+    EsDocumentReader.readBulk(new ByteArrayInputStream(bulk.getBytes(StandardCharsets.UTF_8)), nbSkipItems, nbMaxItems, bulkSize,
+      IndexData.DEFAULT_BULK_MAX_BYTES, statistics, (data, length, nbActions) -> chunks.add(nbActions + ":" + new String(data, 0, length, StandardCharsets.UTF_8)));
+    return chunks;
+  }
+}
@@ -0,0 +1,46 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Tests of {@link GoldenIndex} (copying and restoring indices needs a real cluster).
+ *
+ * @author tinesoft
+ */
+class GoldenIndexTest {
+
+  @Test
+  void nameOfFingerprint() {
+    assertEquals("esdata-golden-author-0123456789abcdef", GoldenIndex.nameOf("author", "0123456789abcdef0123456789abcdef"));
+  }
+
+  @Test
+  void nameOfOtherData() {
+    StubEsOperations esOperations = new StubEsOperations();
+    String indexName = esOperations.get().getPersistentEntityFor(TestEsEntity.class).getIndexName();
+
+    assertNotEquals(GoldenIndex.nameOf(indexName, fingerprint(esOperations, IndexData.of(TestEsEntity.class, "/data/authors.json"))),
+      GoldenIndex.nameOf(indexName, fingerprint(esOperations, IndexData.of(TestEsEntity.class, "/data/authors.json", 5L))));
+  }
+
+  @Test
+  void nameOfNamespacedIndex() {
+    EsIndexNamespace.set("it-1");
+    try {
+      assertEquals("author", EsIndexNamespace.baseNameOf(EsIndexNamespace.resolve("author")));
+      assertEquals("author-other", EsIndexNamespace.baseNameOf("author-other"));
+    } finally {
+      EsIndexNamespace.set(null);
+    }
+    assertEquals("author-it-1", EsIndexNamespace.baseNameOf("author-it-1"));
+  }
+
+  private static String fingerprint(final StubEsOperations esOperations, final IndexData d) {
+    return IndexFingerprint.compute(d, esOperations.get().getPersistentEntityFor(d.getEsEntityClass()), new ByteArrayInputStream(new byte[0]));
+  }
+}
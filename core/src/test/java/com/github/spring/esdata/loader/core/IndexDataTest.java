@@ -0,0 +1,68 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link IndexData}.
+ *
+ * @author tinesoft
+ */
+class IndexDataTest {
+
+  @Test
+  void defaults() {
+    IndexData d = IndexData.of(TestEsEntity.class, "/data/authors.json.gz");
+
+    assertTrue(d.isGzipped());
+    assertEquals(EsDataFormat.UNKNOWN, d.getFormat());
+    assertEquals(IndexData.DEFAULT_BULK_SIZE, d.getBulkSize());
+    assertEquals(LoadStrategy.RECREATE, d.getStrategy());
+    assertEquals(LoadTuning.NONE, d.getTuning());
+    assertEquals(LoadTuning.NONE, of(null).getTuning());
+  }
+
+  @Test
+  void ofLoadEsData() {
+    IndexData d = IndexData.of(TunedTest.class.getAnnotation(LoadEsData.class));
+
+    assertEquals(TestEsEntity.class, d.getEsEntityClass());
+    assertEquals(EsDataFormat.DUMP, d.getFormat());
+    assertEquals(500, d.getBulkSize());
+    assertEquals(LoadStrategy.FINGERPRINT, d.getStrategy());
+    assertEquals(LoadTuning.RESTORE, d.getTuning());
+  }
+
+  @Test
+  void ofGenerateEsData() {
+    IndexData d = IndexData.of(TunedTest.class.getAnnotation(GenerateEsData.class));
+
+    assertEquals(1000L, d.getNbMaxItems().longValue());
+    assertTrue(EsDataGenerator.isGenerated(d.getLocation()));
+    assertEquals(LoadTuning.KEEP, d.getTuning());
+  }
+
+  @Test
+  void invalidBulkParameters() {
+    assertThrows(IllegalArgumentException.class, () -> IndexData.of(TestEsEntity.class, "/data/authors.json", Long.MAX_VALUE, 0L, null,
+      0, IndexData.DEFAULT_BULK_MAX_BYTES, IndexData.DEFAULT_BULK_CONCURRENCY, null, null));
+    assertThrows(IllegalArgumentException.class, () -> IndexData.of(TestEsEntity.class, "/data/authors.json", Long.MAX_VALUE, 0L, null,
+      IndexData.DEFAULT_BULK_SIZE, 0, IndexData.DEFAULT_BULK_CONCURRENCY, null, null));
+    assertThrows(IllegalArgumentException.class, () -> IndexData.of(TestEsEntity.class, "/data/authors.json", Long.MAX_VALUE, 0L, null,
+      IndexData.DEFAULT_BULK_SIZE, IndexData.DEFAULT_BULK_MAX_BYTES, 0, null, null));
+  }
+
+  private static IndexData of(final LoadTuning tuning) {
+    return IndexData.of(TestEsEntity.class, "/data/authors.json", Long.MAX_VALUE, 0L, null, IndexData.DEFAULT_BULK_SIZE,
+      IndexData.DEFAULT_BULK_MAX_BYTES, IndexData.DEFAULT_BULK_CONCURRENCY, null, tuning);
+  }
+
+  @LoadEsData(esEntityClass = TestEsEntity.class, location = "/data/authors.json", format = EsDataFormat.DUMP, bulkSize = 500,
+    strategy = LoadStrategy.FINGERPRINT, tuning = LoadTuning.RESTORE)
+  @GenerateEsData(esEntityClass = TestEsEntity.class, count = 1000, tuning = LoadTuning.KEEP)
+  private static class TunedTest {
+  }
+}
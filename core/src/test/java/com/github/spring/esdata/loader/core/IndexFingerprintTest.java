@@ -0,0 +1,75 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link IndexFingerprint}.
+ *
+ * @author tinesoft
+ */
+class IndexFingerprintTest {
+
+  private static final String LOCATION = "/data/authors.json";
+  private static final String CONTENT = "[{\"id\":\"1\"}]";
+
+  private final StubEsOperations esOperations = new StubEsOperations();
+
+  @Test
+  void sameDataSameFingerprint() {
+    String fingerprint = fingerprint(IndexData.of(TestEsEntity.class, LOCATION), CONTENT);
+
+    assertTrue(fingerprint.matches("[0-9a-f]{64}"), fingerprint);
+    assertEquals(fingerprint, fingerprint(IndexData.of(TestEsEntity.class, LOCATION), CONTENT));
+  }
+
+  @Test
+  void fingerprintOfOtherData() {
+    String fingerprint = fingerprint(IndexData.of(TestEsEntity.class, LOCATION), CONTENT);
+
+    assertNotEquals(fingerprint, fingerprint(IndexData.of(TestEsEntity.class, LOCATION), "[{\"id\":\"2\"}]"));
+    assertNotEquals(fingerprint, fingerprint(IndexData.of(TestEsEntity.class, "/data/other-authors.json"), CONTENT));
+    assertNotEquals(fingerprint, fingerprint(IndexData.of(TestEsEntity.class, LOCATION, 5L), CONTENT));
+    assertNotEquals(fingerprint, fingerprint(IndexData.of(TestEsEntity.class, LOCATION, Long.MAX_VALUE, 1L, null), CONTENT));
+    assertNotEquals(fingerprint, fingerprint(IndexData.of(TestEsEntity.class, LOCATION, Long.MAX_VALUE, 0L, EsDataFormat.MANUAL), CONTENT));
+    // same index, other mapping
+    assertNotEquals(fingerprint, fingerprint(IndexData.of(OtherMappingEsEntity.class, LOCATION), CONTENT));
+  }
+
+  @Test
+  void readAndWrite() {
+    assertNull(IndexFingerprint.read(this.esOperations.get(), TestEsEntity.class));
+
+    IndexFingerprint.write(this.esOperations.get(), TestEsEntity.class, "0123456789abcdef");
+    assertEquals("0123456789abcdef", IndexFingerprint.read(this.esOperations.get(), TestEsEntity.class));
+
+    IndexFingerprint.write(this.esOperations.get(), TestEsEntity.class, null);
+    assertNull(IndexFingerprint.read(this.esOperations.get(), TestEsEntity.class));
+  }
+
+  private String fingerprint(final IndexData d, final String content) {
+    ElasticsearchPersistentEntity<?> esEntityInfo = this.esOperations.get().getPersistentEntityFor(d.getEsEntityClass());
+    return IndexFingerprint.compute(d, esEntityInfo, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Entity of the same index than {@link TestEsEntity}, with another mapping.
+   */
+  @Document(indexName = "author", type = "Author")
+  static class OtherMappingEsEntity {
+
+    @Id
+    private String id;
+    private int age;
+  }
+}
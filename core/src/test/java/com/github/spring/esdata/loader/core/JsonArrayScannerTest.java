@@ -0,0 +1,95 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link JsonArrayScanner}.
+ *
+ * @author tinesoft
+ */
+class JsonArrayScannerTest {
+
+  @Test
+  void emptyArray() {
+    assertEquals(Collections.emptyList(), scan("[]"));
+    assertEquals(Collections.emptyList(), scan(" \n[ \r\n\t ] "));
+  }
+
+  @Test
+  void elementsWithoutSurroundingWhitespace() {
+    assertEquals(Arrays.asList("{\"a\":1}", "{}", "2"), scan("[\n  {\"a\":1} ,\n  {}\t,2\n]\n"));
+  }
+
+  @Test
+  void nestedArraysAndObjects() {
+    assertEquals(Arrays.asList("{\"a\":[1,[2,3],{\"b\":[]}]}", "[[],[{}]]"), scan("[{\"a\":[1,[2,3],{\"b\":[]}]},[[],[{}]]]"));
+  }
+
+  @Test
+  void stringsWithStructuralCharacters() {
+    assertEquals(Arrays.asList("{\"a\":\"x,y]}\"}", "{\"b\":\"[{\\\"c\\\",\\\\\"}", "\"\\\\\""),
+      scan("[{\"a\":\"x,y]}\"},{\"b\":\"[{\\\"c\\\",\\\\\"},\"\\\\\"]"));
+  }
+
+  @Test
+  void multiByteCharacters() {
+    assertEquals(Arrays.asList("{\"a\":\"\u00e9,\u00fc]\u20ac\"}", "{}"), scan("[{\"a\":\"\u00e9,\u00fc]\u20ac\"},{}]"));
+  }
+
+  @Test
+  void contentAfterArrayIgnored() {
+    assertEquals(Collections.singletonList("1"), scan("[1] [2,"));
+  }
+
+  @Test
+  void offsetsRelativeToPosition() {
+    ByteBuffer content = ByteBuffer.wrap("xx[{},{}]".getBytes(StandardCharsets.UTF_8));
+    content.position(2);
+
+    assertEquals(Arrays.asList(1, 3, 4, 6), toList(JsonArrayScanner.scan(content)));
+  }
+
+  @Test
+  void invalidArrays() {
+    assertThrows(IllegalStateException.class, () -> scan(""));
+    assertThrows(IllegalStateException.class, () -> scan("{}"));
+    assertThrows(IllegalStateException.class, () -> scan("[{},"));
+    assertThrows(IllegalStateException.class, () -> scan("[{\"a\":\"]\"}"));
+    assertThrows(IllegalStateException.class, () -> scan("[,{}]"));
+    assertThrows(IllegalStateException.class, () -> scan("[{},,{}]"));
+    assertThrows(IllegalStateException.class, () -> scan("[{}}"));
+  }
+
+  @Test
+  void trailingCommaRejected() {
+    assertThrows(IllegalStateException.class, () -> scan("[{},]"));
+    assertThrows(IllegalStateException.class, () -> scan("[{}, \n ]"));
+    assertThrows(IllegalStateException.class, () -> scan("[,]"));
+  }
+
+  private static List<String> scan(final String content) {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    int[] offsets = JsonArrayScanner.scan(ByteBuffer.wrap(bytes));
+    List<String> elements = new ArrayList<>();
+    for (int i = 0; i < offsets.length; i += 2)
+      elements.add(new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+    return elements;
+  }
+
+  private static List<Integer> toList(final int[] offsets) {
+    List<Integer> list = new ArrayList<>();
+    for (int offset : offsets)
+      list.add(offset);
+    return list;
+  }
+}
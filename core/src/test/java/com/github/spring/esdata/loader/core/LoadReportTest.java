@@ -0,0 +1,99 @@
+package com.github.spring.esdata.loader.core;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link LoadReport}, as built from {@link LoadStatistics} and recorded by {@link MicrometerLoadReportListener}.
+ *
+ * @author tinesoft
+ */
+class LoadReportTest {
+
+  @Test
+  void reportOfStatistics() {
+    LoadStatistics statistics = new LoadStatistics();
+    statistics.addRead(10);
+    statistics.addSkipped(2);
+    statistics.addIndexed(9);
+    statistics.addFailed(1);
+    statistics.addBytesRead(1024);
+    statistics.addNanos(LoadPhase.PARSE, TimeUnit.MILLISECONDS.toNanos(3));
+    statistics.addNanos(LoadPhase.PARSE, TimeUnit.MILLISECONDS.toNanos(4));
+
+    LoadReport report = statistics.toReport(TestEsEntity.class, "author", false);
+
+    assertEquals(TestEsEntity.class, report.getEsEntityClass());
+    assertEquals("author", report.getIndexName());
+    assertFalse(report.isSuccessful());
+    assertEquals(10, report.getNbRead());
+    assertEquals(2, report.getNbSkipped());
+    assertEquals(9, report.getNbIndexed());
+    assertEquals(1, report.getNbFailed());
+    assertEquals(1024, report.getBytesRead());
+    assertEquals(Collections.singleton(LoadPhase.PARSE), report.getDurations().keySet());
+    assertEquals(Duration.ofMillis(7), report.getDuration(LoadPhase.PARSE));
+    assertEquals(Duration.ZERO, report.getDuration(LoadPhase.BULK));
+    assertTrue(report.toString().contains("parse=7ms"), report.toString());
+  }
+
+  @Test
+  void meteredReading() throws IOException {
+    try (MeteredInputStream is = new MeteredInputStream(new ByteArrayInputStream(new byte[100]))) {
+      assertEquals(0, is.read());
+      assertEquals(10, is.skip(10));
+      assertEquals(89, read(is));
+
+      assertEquals(100, is.getBytes());
+      assertEquals(-1, is.read());
+      assertEquals(100, is.getBytes());
+    }
+  }
+
+  @Test
+  void reportRecordedIntoRegistry() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerLoadReportListener listener = new MicrometerLoadReportListener(registry);
+    LoadStatistics statistics = new LoadStatistics();
+    statistics.addRead(10);
+    statistics.addSkipped(2);
+    statistics.addIndexed(10);
+    statistics.addBytesRead(1024);
+    statistics.addNanos(LoadPhase.PARSE, TimeUnit.MILLISECONDS.toNanos(7));
+
+    listener.onReport(statistics.toReport(TestEsEntity.class, "author", true));
+    listener.onReport(statistics.toReport(TestEsEntity.class, "author", false));
+
+    assertEquals(1, registry.get("esdata.load").tag("index", "author").tag("outcome", "success").timer().count());
+    assertEquals(1, registry.get("esdata.load").tag("index", "author").tag("outcome", "failure").timer().count());
+    assertEquals(14, registry.get("esdata.load.phase").tag("index", "author").tag("phase", "parse").timer().totalTime(TimeUnit.MILLISECONDS));
+    assertNull(registry.find("esdata.load.phase").tag("phase", "bulk").timer());
+    assertEquals(20, registry.get("esdata.load.documents").tag("index", "author").tag("status", "read").counter().count());
+    assertEquals(4, registry.get("esdata.load.documents").tag("index", "author").tag("status", "skipped").counter().count());
+    assertEquals(20, registry.get("esdata.load.documents").tag("index", "author").tag("status", "indexed").counter().count());
+    assertEquals(0, registry.get("esdata.load.documents").tag("index", "author").tag("status", "failed").counter().count());
+    assertEquals(2048, registry.get("esdata.load.bytes").tag("index", "author").summary().totalAmount());
+  }
+
+  private static int read(final InputStream is) throws IOException {
+    byte[] buffer = new byte[16];
+    int nbRead = 0;
+    int n;
+    while ((n = is.read(buffer, 0, buffer.length)) >= 0)
+      nbRead += n;
+    return nbRead;
+  }
+}
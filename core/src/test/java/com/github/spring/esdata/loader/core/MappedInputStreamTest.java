@@ -0,0 +1,93 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link MappedInputStream}.
+ *
+ * @author tinesoft
+ */
+class MappedInputStreamTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void readAcrossWindows() throws IOException {
+    byte[] data = data(1000);
+    Path file = Files.write(this.tempDir.resolve("data"), data);
+
+    try (MappedInputStream is = new MappedInputStream(file, 64)) {
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      content.write(is.read());
+      byte[] buffer = new byte[100];
+      int n;
+      while ((n = is.read(buffer, 0, buffer.length)) >= 0) {
+        assertTrue(n > 0 && n <= 64);// never more than the rest of a window
+        content.write(buffer, 0, n);
+      }
+
+      assertArrayEquals(data, content.toByteArray());
+      assertEquals(-1, is.read());
+      assertEquals(0, is.available());
+    }
+  }
+
+  @Test
+  void skipWithinAndAcrossWindows() throws IOException {
+    Path file = Files.write(this.tempDir.resolve("data"), data(1000));
+
+    try (MappedInputStream is = new MappedInputStream(file, 64)) {
+      assertEquals(10, is.skip(10));
+      assertEquals(10, is.read());
+      assertEquals(989, is.available());
+
+      assertEquals(500, is.skip(500));
+      assertEquals(511 % 251, is.read());
+
+      assertEquals(488, is.skip(10_000));
+      assertEquals(-1, is.read());
+      assertEquals(0, is.skip(1));
+    }
+  }
+
+  @Test
+  void emptyFile() throws IOException {
+    Path file = Files.write(this.tempDir.resolve("data"), new byte[0]);
+
+    try (MappedInputStream is = new MappedInputStream(file)) {
+      assertEquals(-1, is.read());
+      assertEquals(-1, is.read(new byte[10], 0, 10));
+      assertEquals(0, is.read(new byte[10], 0, 0));
+    }
+  }
+
+  @Test
+  void readClosed() throws IOException {
+    MappedInputStream is = new MappedInputStream(Files.write(this.tempDir.resolve("data"), data(10)));
+    is.close();
+
+    assertThrows(IOException.class, is::read);
+  }
+
+  /**
+   * @return the given number of bytes, each one being its position modulo 251 (a prime, so windows never start alike)
+   */
+  private static byte[] data(final int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++)
+      data[i] = (byte) (i % 251);
+    return data;
+  }
+}
@@ -0,0 +1,170 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link ParallelGzipInputStream} and {@link GzipBlocks}.
+ *
+ * @author tinesoft
+ */
+class ParallelGzipInputStreamTest {
+
+  @Test
+  void bgzfInflatedInOrder() throws IOException {
+    byte[] data = data(50 * GzipBlocks.MAX_BLOCK_DATA_SIZE + 123);// several batches of blocks
+
+    assertArrayEquals(data, readAll(new ParallelGzipInputStream(buffered(bgzf(data)), 4)));
+    assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(bgzf(data)))));// still valid gzip
+  }
+
+  @Test
+  void emptyBgzf() throws IOException {
+    assertArrayEquals(new byte[0], readAll(new ParallelGzipInputStream(buffered(bgzf(new byte[0])), 2)));
+  }
+
+  @Test
+  void nonBgzfReadSequentially() throws IOException {
+    byte[] data = data(100_000);
+    BufferedInputStream gzip = buffered(gzip(data));
+
+    assertFalse(GzipBlocks.isBgzf(gzip));
+    assertTrue(GzipBlocks.isBgzf(buffered(bgzf(data))));
+    assertArrayEquals(data, readAll(ParallelGzipInputStream.of(gzip)));
+  }
+
+  @Test
+  void multiMemberNonBgzf() throws IOException {
+    byte[] first = data(1000);
+    byte[] second = data(2000);
+
+    assertArrayEquals(concat(first, second), readAll(ParallelGzipInputStream.of(new ByteArrayInputStream(concat(gzip(first), gzip(second))))));
+  }
+
+  @Test
+  void gzipMemberAfterBgzfBlocks() throws IOException {
+    byte[] first = data(3 * GzipBlocks.MAX_BLOCK_DATA_SIZE);
+    byte[] second = data(1000);
+    byte[] third = data(GzipBlocks.MAX_BLOCK_DATA_SIZE + 1);
+
+    assertArrayEquals(concat(concat(first, second), third),
+      readAll(new ParallelGzipInputStream(buffered(concat(concat(bgzf(first), gzip(second)), bgzf(third))), 2)));
+  }
+
+  @Test
+  void extraFieldTooLargeNotBgzf() throws IOException {
+    byte[] header = new byte[12 + 0xffff];
+    header[0] = 31;
+    header[1] = (byte) 139;
+    header[2] = 8;
+    header[3] = 4;// FEXTRA
+    header[10] = (byte) 0xff;// XLEN
+    header[11] = (byte) 0xff;
+    BufferedInputStream is = buffered(header);
+
+    assertFalse(GzipBlocks.isBgzf(is));
+    assertEquals(31, is.read());// rewound
+  }
+
+  @Test
+  void blockReadAndInflated() throws IOException {
+    byte[] data = data(1000);
+    InputStream is = new ByteArrayInputStream(bgzf(data));
+
+    byte[] block = GzipBlocks.readBlock(is);
+    assertArrayEquals(data, GzipBlocks.inflate(block, new Inflater(true)));
+    assertEquals(0, GzipBlocks.inflate(GzipBlocks.readBlock(is), new Inflater(true)).length);// EOF block
+    assertNull(GzipBlocks.readBlock(is));
+  }
+
+  @Test
+  void blockSizeTooSmallRejected() throws IOException {
+    byte[] block = bgzf(data(1000));
+    block[16] = 10;// BC subfield: block size - 1
+    block[17] = 0;
+
+    assertThrows(ZipException.class, () -> GzipBlocks.readBlock(new ByteArrayInputStream(block)));
+  }
+
+  @Test
+  void dataSizeTooLargeRejected() throws IOException {
+    byte[] block = GzipBlocks.readBlock(new ByteArrayInputStream(bgzf(data(1000))));
+    byte[] corrupted = Arrays.copyOf(block, block.length);
+    corrupted[corrupted.length - 1] = 0x7f;// ISIZE of about 2GB
+
+    assertThrows(ZipException.class, () -> GzipBlocks.readBlock(new ByteArrayInputStream(corrupted)));
+    assertThrows(ZipException.class, () -> GzipBlocks.inflate(corrupted, new Inflater(true)));
+    // the rest of the stream is decompressed sequentially, which reports the corruption
+    assertThrows(IOException.class, () -> readAll(new ParallelGzipInputStream(buffered(concat(block, corrupted)), 2)));
+  }
+
+  @Test
+  void corruptedBlockRejected() throws IOException {
+    byte[] block = GzipBlocks.readBlock(new ByteArrayInputStream(bgzf(data(1000))));
+    block[block.length - 8] ^= 1;// CRC32
+
+    assertThrows(ZipException.class, () -> GzipBlocks.inflate(block, new Inflater(true)));
+    assertThrows(ZipException.class, () -> readAll(new ParallelGzipInputStream(buffered(block), 2)));
+  }
+
+  private static byte[] data(final int length) {
+    byte[] data = new byte[length];
+    Random random = new Random(length);
+    for (int i = 0; i < length; i++)
+      data[i] = (byte) ('a' + random.nextInt(8));// compressible
+    return data;
+  }
+
+  private static byte[] bgzf(final byte[] data) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BgzfRepack.repack(new ByteArrayInputStream(data), os);
+    return os.toByteArray();
+  }
+
+  private static byte[] gzip(final byte[] data) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(os)) {
+      gzip.write(data);
+    }
+    return os.toByteArray();
+  }
+
+  private static byte[] concat(final byte[] a, final byte[] b) {
+    byte[] c = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, c, a.length, b.length);
+    return c;
+  }
+
+  private static BufferedInputStream buffered(final byte[] data) {
+    return new BufferedInputStream(new ByteArrayInputStream(data), 64 * 1024);
+  }
+
+  private static byte[] readAll(final InputStream is) throws IOException {
+    try (InputStream in = is) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) != -1)
+        os.write(buffer, 0, n);
+      return os.toByteArray();
+    }
+  }
+}
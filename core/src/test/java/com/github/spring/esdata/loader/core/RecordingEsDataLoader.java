@@ -0,0 +1,61 @@
+package com.github.spring.esdata.loader.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link EsDataLoader} that loads nothing, but records the loads (and deletions) it is asked for, along with the
+ * namespace (see {@link EsIndexNamespace}) they run in.
+ * <br>
+ * The reports of the loads have the location of their data as index name.
+ *
+ * @author tinesoft
+ */
+final class RecordingEsDataLoader implements EsDataLoader {
+
+  private final Consumer<IndexData> action;
+  private final List<String> locations = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> namespaces = Collections.synchronizedList(new ArrayList<>());
+
+  RecordingEsDataLoader() {
+    this(d -> { });
+  }
+
+  /**
+   * @param action the action run by each load (e.g to wait for, or to fail)
+   */
+  RecordingEsDataLoader(final Consumer<IndexData> action) {
+    this.action = action;
+  }
+
+  @Override
+  public LoadReport load(final IndexData d) {
+    this.namespaces.add(EsIndexNamespace.get());
+    this.action.accept(d);
+    this.locations.add(d.getLocation());
+    return new LoadReport(d.getEsEntityClass(), d.getLocation(), true, 0, 0, 0, 0, 0, Collections.emptyMap(), Duration.ZERO);
+  }
+
+  @Override
+  public LoadReport delete(final Class<?> esEntityClass) {
+    this.namespaces.add(EsIndexNamespace.get());
+    return new LoadReport(esEntityClass, null, true, 0, 0, 0, 0, 0, Collections.emptyMap(), Duration.ZERO);
+  }
+
+  /**
+   * @return the locations of the data loaded so far, in the order the loads completed
+   */
+  List<String> getLocations() {
+    return new ArrayList<>(this.locations);
+  }
+
+  /**
+   * @return the namespaces the loads and deletions ran in so far, in the order they started
+   */
+  List<String> getNamespaces() {
+    return new ArrayList<>(this.namespaces);
+  }
+}
@@ -0,0 +1,103 @@
+package com.github.spring.esdata.loader.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link SpringEsDataLoader}, against a stubbed Elasticsearch (see {@link StubEsOperations}).
+ *
+ * @author tinesoft
+ */
+class SpringEsDataLoaderTest {
+
+  private final StubEsOperations esOperations = new StubEsOperations();
+  private final SpringEsDataLoader loader = new SpringEsDataLoader(this.esOperations.get(), LoadReportListener.NONE);
+
+  @Test
+  void sameDataLoadedTwiceWithUnsupportedClient() {
+    IndexData data = IndexData.of(TestEsEntity.class, "/data/authors.json");
+
+    for (int i = 0; i < 2; i++) {
+      LoadReport report = this.loader.load(data);
+
+      assertTrue(report.isSuccessful());
+      assertEquals(10, report.getNbIndexed());
+      assertEquals(10, this.esOperations.reset());
+    }
+  }
+
+  @Test
+  void fingerprintedDataLoadedOnce() {
+    LoadReport report = this.loader.load(fingerprinted(Long.MAX_VALUE));
+    assertEquals(10, report.getNbIndexed());
+    assertEquals(10, this.esOperations.reset());
+    assertNotNull(IndexFingerprint.read(this.esOperations.get(), TestEsEntity.class));
+
+    // same data: the index is left as is
+    report = this.loader.load(fingerprinted(Long.MAX_VALUE));
+    assertTrue(report.isSuccessful());
+    assertEquals(0, report.getNbRead());
+    assertEquals(0, this.esOperations.reset());
+
+    // other data: the index is loaded again
+    report = this.loader.load(fingerprinted(5L));
+    assertEquals(5, report.getNbIndexed());
+    assertEquals(5, this.esOperations.reset());
+  }
+
+  @Test
+  void fingerprintRemovedWithData() {
+    this.loader.load(fingerprinted(Long.MAX_VALUE));
+    this.esOperations.reset();
+
+    this.loader.delete(TestEsEntity.class, DeleteStrategy.TRUNCATE);
+    assertNull(IndexFingerprint.read(this.esOperations.get(), TestEsEntity.class));
+
+    this.loader.load(fingerprinted(Long.MAX_VALUE));
+    assertEquals(10, this.esOperations.reset());
+  }
+
+  @Test
+  void formatDetected() throws IOException {
+    assertEquals(EsDataFormat.DUMP, detect("\n{\"_index\":\"author\",\"_type\":\"Author\",\"_id\":\"1\",\"_source\":{}}\n"));
+    assertEquals(EsDataFormat.MANUAL, detect("  [\n  {\"id\": \"1\"}\n]"));
+    assertEquals(EsDataFormat.BULK, detect("{ \"index\" : { \"_index\" : \"author\" } }\n{}\n"));
+    assertEquals(EsDataFormat.COMPILED, detect(new String(EsDataCompiler.MAGIC, StandardCharsets.US_ASCII) + "\u0001"));
+    assertEquals(EsDataFormat.DUMP, SpringEsDataLoader.getEsDataFormat(stream("[]"), EsDataFormat.DUMP));
+    assertThrows(IllegalArgumentException.class, () -> detect("id,firstName,lastName"));
+  }
+
+  @Test
+  void formatDetectedOnFirstLineOnly() throws IOException {
+    StringBuilder line = new StringBuilder("{\"_index\":\"author\",\"_id\":\"1\",\"_source\":{\"name\":\"");
+    while (line.length() < 20 * 1024)
+      line.append("0123456789");
+    BufferedInputStream is = stream(line + "\"}}\n");
+
+    assertEquals(EsDataFormat.DUMP, SpringEsDataLoader.getEsDataFormat(is, EsDataFormat.UNKNOWN));
+    assertEquals('{', is.read());// rewound
+  }
+
+  private static IndexData fingerprinted(final Long nbMaxItems) {
+    return IndexData.of(TestEsEntity.class, "/data/authors.json", nbMaxItems, 0L, null, IndexData.DEFAULT_BULK_SIZE,
+      IndexData.DEFAULT_BULK_MAX_BYTES, IndexData.DEFAULT_BULK_CONCURRENCY, LoadStrategy.FINGERPRINT, LoadTuning.NONE);
+  }
+
+  private static EsDataFormat detect(final String content) throws IOException {
+    return SpringEsDataLoader.getEsDataFormat(stream(content), EsDataFormat.UNKNOWN);
+  }
+
+  private static BufferedInputStream stream(final String content) {
+    return new BufferedInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,82 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link ElasticsearchOperations} that accepts every call without reaching any cluster (its client is {@code null},
+ * i.e not supported by {@link EsAdminClient}).
+ * <br>
+ * Documents sent through bulk requests are simply counted. The metadata (<code>_meta</code>) put into the mapping of an index
+ * is kept until the index is deleted, the index only existing as long as it has some.
+ *
+ * @author tinesoft
+ */
+final class StubEsOperations {
+
+  private static final SimpleElasticsearchMappingContext MAPPING_CONTEXT = new SimpleElasticsearchMappingContext();
+
+  private final AtomicLong nbIndexed = new AtomicLong();
+  private final Map<Class<?>, Object> metas = new ConcurrentHashMap<>();
+  private final ElasticsearchOperations esOperations;
+
+  StubEsOperations() {
+    this.esOperations = (ElasticsearchOperations) Proxy.newProxyInstance(ElasticsearchOperations.class.getClassLoader(),
+      new Class<?>[]{ElasticsearchOperations.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getPersistentEntityFor":
+            return getPersistentEntity((Class<?>) args[0]);
+          case "bulkIndex":
+            this.nbIndexed.addAndGet(((List<?>) args[0]).size());
+            return null;
+          case "putMapping":
+            if (args.length == 2 && args[0] instanceof Class && args[1] instanceof Map)
+              this.metas.put((Class<?>) args[0], ((Map<?, ?>) args[1]).get(IndexFingerprint.META_FIELD));
+            return true;
+          case "getMapping":
+            Object meta = args.length == 1 ? this.metas.get(args[0]) : null;
+            return meta != null ? Collections.singletonMap(IndexFingerprint.META_FIELD, meta) : Collections.emptyMap();
+          case "getSetting":
+            return Collections.emptyMap();
+          case "indexExists":
+            return this.metas.containsKey(args[0]);
+          case "deleteIndex":
+            this.metas.remove(args[0]);
+            return true;
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "equals":
+            return proxy == args[0];
+          case "toString":
+            return StubEsOperations.class.getSimpleName();
+          default:
+            return method.getReturnType() == boolean.class ? Boolean.TRUE : null;
+        }
+      });
+  }
+
+  ElasticsearchOperations get() {
+    return this.esOperations;
+  }
+
+  /**
+   * @return the number of documents received through bulk requests, and resets it
+   */
+  long reset() {
+    return this.nbIndexed.getAndSet(0);
+  }
+
+  private static ElasticsearchPersistentEntity<?> getPersistentEntity(final Class<?> esEntityClass) {
+    synchronized (MAPPING_CONTEXT) {
+      return MAPPING_CONTEXT.getRequiredPersistentEntity(esEntityClass);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.github.spring.esdata.loader.core;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+
+/**
+ * Entity the test documents are loaded into.
+ *
+ * @author tinesoft
+ */
+@Document(indexName = "author", type = "Author")
+public class TestEsEntity {
+
+  @Id
+  private String id;
+  private String firstName;
+  private String lastName;
+}
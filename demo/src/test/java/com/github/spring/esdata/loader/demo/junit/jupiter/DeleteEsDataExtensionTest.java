@@ -1,6 +1,7 @@
 package com.github.spring.esdata.loader.demo.junit.jupiter;
 
 import com.github.spring.esdata.loader.core.DeleteEsData;
+import com.github.spring.esdata.loader.core.DeleteStrategy;
 import com.github.spring.esdata.loader.demo.DemoTestPropertyValues;
 import com.github.spring.esdata.loader.demo.model.AuthorEsEntity;
 import com.github.spring.esdata.loader.demo.model.BookEsEntity;
@@ -20,7 +21,9 @@ import org.testcontainers.elasticsearch.ElasticsearchContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 
@@ -42,7 +45,7 @@ import static org.mockito.Mockito.verify;
 //for this test setup only, not required in general
 @ContextConfiguration(initializers = DeleteEsDataExtensionTest.ExposedDockerizedEsConfiguration.class)
 
-@TestMethodOrder(MethodOrderer.Alphanumeric.class)// because of the @SpyBean below, we need to control test order
+@TestMethodOrder(MethodOrderer.MethodName.class)// because of the @SpyBean below, we need to control test order
 public class DeleteEsDataExtensionTest {
 
   @Container
@@ -70,6 +73,15 @@ public class DeleteEsDataExtensionTest {
     verify(this.esMockOperations).deleteIndex(LibraryEsEntity.class);
   }
 
+  @Test
+  // the following data will be removed for this test only, while keeping the index (and its mapping)
+  @DeleteEsData(esEntityClasses = {LibraryEsEntity.class}, strategy = DeleteStrategy.TRUNCATE)
+  public void dataTruncatedAtMethodLevel() {
+
+    verify(this.esMockOperations, times(1)).deleteIndex(LibraryEsEntity.class);//removed at method level, see above #dataDeletedAtMethodLevel()
+    assertThat(this.esMockOperations.indexExists(LibraryEsEntity.class)).isTrue();
+  }
+
   public static class ExposedDockerizedEsConfiguration implements ApplicationContextInitializer<ConfigurableApplicationContext> {
 
     @Override
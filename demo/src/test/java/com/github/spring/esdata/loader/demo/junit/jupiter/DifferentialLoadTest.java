@@ -0,0 +1,61 @@
+package com.github.spring.esdata.loader.demo.junit.jupiter;
+
+import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.core.LoadStrategy;
+import com.github.spring.esdata.loader.demo.DemoTestPropertyValues;
+import com.github.spring.esdata.loader.demo.model.AuthorEsEntity;
+import com.github.spring.esdata.loader.demo.repository.AuthorEsRepository;
+import com.github.spring.esdata.loader.junit.jupiter.LoadEsDataExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Simple integration test to illustrate how to only send the differences between data at class and method level, when testing with JUnit Jupiter.
+ *
+ * @author tinesoft
+ */
+@Testcontainers
+// helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+@SpringBootTest
+@ExtendWith(LoadEsDataExtension.class)
+// the content of the index is tracked, so that the following loads only send the documents that changed
+@LoadEsData(esEntityClass = AuthorEsEntity.class, location = "/data/authors.json", strategy = LoadStrategy.DIFFERENTIAL)
+//for this test setup only, not required in general
+@ContextConfiguration(initializers = DifferentialLoadTest.ExposedDockerizedEsConfiguration.class)
+public class DifferentialLoadTest {
+
+  @Container
+  // helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+  public static final ElasticsearchContainer ES_CONTAINER = new ElasticsearchContainer(DemoTestPropertyValues.ES_DOCKER_IMAGE_VERSION);
+
+  @Autowired
+  private AuthorEsRepository esAuthorRepository;
+
+  @Test
+  // the 5 documents left out are deleted, the other ones are left untouched
+  @LoadEsData(esEntityClass = AuthorEsEntity.class, location = "/data/authors.json", nbMaxItems = 5, strategy = LoadStrategy.DIFFERENTIAL)
+  public void onlyDifferencesLoadedAtMethodLevel() {
+
+    assertThat(this.esAuthorRepository.count()).isEqualTo(5L);
+  }
+
+  public static class ExposedDockerizedEsConfiguration implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext cac) {
+      DemoTestPropertyValues.using(ES_CONTAINER).applyTo(cac.getEnvironment());
+    }
+  }
+
+}
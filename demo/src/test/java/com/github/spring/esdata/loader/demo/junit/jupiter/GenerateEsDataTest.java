@@ -0,0 +1,69 @@
+package com.github.spring.esdata.loader.demo.junit.jupiter;
+
+import com.github.spring.esdata.loader.core.GenerateEsData;
+import com.github.spring.esdata.loader.demo.DemoTestPropertyValues;
+import com.github.spring.esdata.loader.demo.model.BookEsEntity;
+import com.github.spring.esdata.loader.demo.model.LibraryEsEntity;
+import com.github.spring.esdata.loader.demo.repository.BookEsRepository;
+import com.github.spring.esdata.loader.demo.repository.LibraryEsRepository;
+import com.github.spring.esdata.loader.junit.jupiter.LoadEsDataExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Simple integration test to illustrate how to generate synthetic data when testing with JUnit Jupiter.
+ *
+ * @author tinesoft
+ */
+@Testcontainers
+// helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+@SpringBootTest
+@ExtendWith(LoadEsDataExtension.class)
+// documents are generated from the mapping of the class, with deterministic values (for a given seed)
+@GenerateEsData(esEntityClass = BookEsEntity.class, count = 10_000, seed = 42)
+//for this test setup only, not required in general
+@ContextConfiguration(initializers = GenerateEsDataTest.ExposedDockerizedEsConfiguration.class)
+public class GenerateEsDataTest {
+
+  @Container
+  // helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+  public static final ElasticsearchContainer ES_CONTAINER = new ElasticsearchContainer(DemoTestPropertyValues.ES_DOCKER_IMAGE_VERSION);
+
+  @Autowired
+  private BookEsRepository esBookRepository;
+
+  @Autowired
+  private LibraryEsRepository esLibraryRepository;
+
+  @Test
+  @GenerateEsData(esEntityClass = LibraryEsEntity.class, count = 100)
+  public void dataGenerated() {
+
+    assertThat(this.esBookRepository.count()).isEqualTo(10_000);
+    assertThat(this.esLibraryRepository.count()).isEqualTo(100);
+
+    // the id of each document is its position
+    assertThat(this.esBookRepository.findById("9999")).isPresent();
+    assertThat(this.esBookRepository.findById("9999").get().getAuthor()).isNotNull();
+  }
+
+  public static class ExposedDockerizedEsConfiguration implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext cac) {
+      DemoTestPropertyValues.using(ES_CONTAINER).applyTo(cac.getEnvironment());
+    }
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.github.spring.esdata.loader.demo.junit.jupiter;
+
+import com.github.spring.esdata.loader.core.EsIndexNamespace;
+import com.github.spring.esdata.loader.core.IsolateEsData;
+import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.demo.DemoTestPropertyValues;
+import com.github.spring.esdata.loader.junit.jupiter.LoadEsDataExtension;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Simple integration test to illustrate how test classes loading the same mapping class into indices of their own do not
+ * interfere, when testing with JUnit Jupiter.
+ *
+ * @author tinesoft
+ */
+@Testcontainers
+// helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+public class IsolateEsDataTest {
+
+  @Container
+  // helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+  public static final ElasticsearchContainer ES_CONTAINER = new ElasticsearchContainer(DemoTestPropertyValues.ES_DOCKER_IMAGE_VERSION);
+
+  @Nested
+  @SpringBootTest
+  @ExtendWith(LoadEsDataExtension.class)
+  @IsolateEsData
+  // the first actions of the file target the 'author' index: they are loaded into the isolated index all the same
+  @LoadEsData(esEntityClass = IsolatedAuthorEsEntity.class, location = "/data/authors.bulk")
+  //for this test setup only, not required in general
+  @ContextConfiguration(initializers = ExposedDockerizedEsConfiguration.class)
+  public class AllAuthorsTest {
+
+    @Autowired
+    private ElasticsearchOperations esOperations;
+
+    @Test
+    public void dataLoadedIntoIsolatedIndex() {
+
+      assertThat(this.esOperations.getPersistentEntityFor(IsolatedAuthorEsEntity.class).getIndexName())
+        .isEqualTo("author-" + EsIndexNamespace.get());
+      assertThat(countAuthors(this.esOperations)).isEqualTo(10L);
+      assertThat(this.esOperations.indexExists("author")).isFalse();
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @ExtendWith(LoadEsDataExtension.class)
+  @IsolateEsData
+  @LoadEsData(esEntityClass = IsolatedAuthorEsEntity.class, location = "/data/authors.bulk", nbMaxItems = 5)
+  //for this test setup only, not required in general
+  @ContextConfiguration(initializers = ExposedDockerizedEsConfiguration.class)
+  public class SomeAuthorsTest {
+
+    @Autowired
+    private ElasticsearchOperations esOperations;
+
+    @Test
+    public void dataLoadedIntoIsolatedIndex() {
+
+      assertThat(this.esOperations.getPersistentEntityFor(IsolatedAuthorEsEntity.class).getIndexName())
+        .isEqualTo("author-" + EsIndexNamespace.get());
+      assertThat(countAuthors(this.esOperations)).isEqualTo(5L);
+      assertThat(this.esOperations.indexExists("author")).isFalse();
+    }
+  }
+
+  private static long countAuthors(final ElasticsearchOperations esOperations) {
+    return esOperations.count(new NativeSearchQueryBuilder().withQuery(QueryBuilders.matchAllQuery()).build(), IsolatedAuthorEsEntity.class);
+  }
+
+  /**
+   * Mapping class whose index name is resolved in the namespace of the test class.
+   */
+  @Document(indexName = "#{T(com.github.spring.esdata.loader.core.EsIndexNamespace).resolve('author')}", type = "Author")
+  public static class IsolatedAuthorEsEntity {
+
+    @Id
+    private String id;
+
+    private String firstName;
+
+    private String lastName;
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getFirstName() {
+      return this.firstName;
+    }
+
+    public String getLastName() {
+      return this.lastName;
+    }
+  }
+
+  public static class ExposedDockerizedEsConfiguration implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext cac) {
+      DemoTestPropertyValues.using(ES_CONTAINER).applyTo(cac.getEnvironment());
+    }
+  }
+
+}
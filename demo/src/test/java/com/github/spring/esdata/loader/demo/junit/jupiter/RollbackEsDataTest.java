@@ -0,0 +1,82 @@
+package com.github.spring.esdata.loader.demo.junit.jupiter;
+
+import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.core.LoadStrategy;
+import com.github.spring.esdata.loader.core.RollbackEsData;
+import com.github.spring.esdata.loader.demo.DemoTestPropertyValues;
+import com.github.spring.esdata.loader.demo.model.AuthorEsEntity;
+import com.github.spring.esdata.loader.demo.repository.AuthorEsRepository;
+import com.github.spring.esdata.loader.junit.jupiter.LoadEsDataExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Simple integration test to illustrate how to roll back the documents written by each test, when testing with JUnit Jupiter.
+ *
+ * @author tinesoft
+ */
+@Testcontainers
+// helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+@SpringBootTest
+@ExtendWith(LoadEsDataExtension.class)
+// the content of the index must be tracked to be rolled back
+@LoadEsData(esEntityClass = AuthorEsEntity.class, location = "/data/authors.json", strategy = LoadStrategy.DIFFERENTIAL)
+// after each test, only the documents it wrote are reverted
+@RollbackEsData
+//for this test setup only, not required in general
+@ContextConfiguration(initializers = RollbackEsDataTest.ExposedDockerizedEsConfiguration.class)
+public class RollbackEsDataTest {
+
+  @Container
+  // helper to easily start a dockerized Elasticsearch server to run our tests against (not required to use this library)
+  public static final ElasticsearchContainer ES_CONTAINER = new ElasticsearchContainer(DemoTestPropertyValues.ES_DOCKER_IMAGE_VERSION);
+
+  @Autowired
+  private AuthorEsRepository esAuthorRepository;
+
+  @Test
+  public void documentsDeleted() {
+
+    assertThat(this.esAuthorRepository.count()).isEqualTo(10L);// whatever the order of the tests
+    this.esAuthorRepository.deleteById("5");
+    this.esAuthorRepository.deleteById("8");
+    assertThat(this.esAuthorRepository.count()).isEqualTo(8L);
+  }
+
+  @Test
+  public void documentsUpdated() {
+
+    assertThat(this.esAuthorRepository.count()).isEqualTo(10L);// whatever the order of the tests
+    AuthorEsEntity author = this.esAuthorRepository.findById("5").get();
+    author.setFirstName("updated");
+    this.esAuthorRepository.save(author);
+    assertThat(this.esAuthorRepository.findById("5").get().getFirstName()).isEqualTo("updated");
+  }
+
+  @Test
+  public void documentsNotUpdated() {
+
+    assertThat(this.esAuthorRepository.count()).isEqualTo(10L);
+    assertThat(this.esAuthorRepository.findById("5").get().getFirstName()).isEqualTo("firstName5");
+  }
+
+  public static class ExposedDockerizedEsConfiguration implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext cac) {
+      DemoTestPropertyValues.using(ES_CONTAINER).applyTo(cac.getEnvironment());
+    }
+  }
+
+}
@@ -51,6 +51,28 @@ public class EsDataFormatTest {
     assertThat(authors).extracting(AuthorEsEntity::getFirstName).containsOnly("firstName3", "firstName4", "firstName5", "firstName6", "firstName7");
   }
 
+  @Test
+  // compiled at build time from '/data/authors-MANUAL.json', by the 'compileEsData' task (see build.gradle)
+  @LoadEsData(esEntityClass = AuthorEsEntity.class, location = "/data/authors-MANUAL.esdata", nbMaxItems = 5, nbSkipItems = 2)
+  public void dataLoadedWithCompiledFormat_autoDetected() {
+
+    Iterable<AuthorEsEntity> authors = this.esAuthorRepository.findAll();
+
+    assertThat(authors).hasSize(5);
+    assertThat(authors).extracting(AuthorEsEntity::getFirstName).containsOnly("firstName3", "firstName4", "firstName5", "firstName6", "firstName7");
+  }
+
+  @Test
+  // the '_index' and '_type' of the first actions are stripped: all the actions target the index of the mapping class
+  @LoadEsData(esEntityClass = AuthorEsEntity.class, location = "/data/authors.bulk", nbMaxItems = 5, nbSkipItems = 2)
+  public void dataLoadedWithBulkFormat_autoDetected() {
+
+    Iterable<AuthorEsEntity> authors = this.esAuthorRepository.findAll();
+
+    assertThat(authors).hasSize(5);
+    assertThat(authors).extracting(AuthorEsEntity::getFirstName).containsOnly("firstName3", "firstName4", "firstName5", "firstName6", "firstName7");
+  }
+
   public static class ExposedDockerizedEsConfiguration implements ApplicationContextInitializer<ConfigurableApplicationContext> {
 
     @Override
@@ -1,6 +1,9 @@
 package com.github.spring.esdata.loader.junit.jupiter;
 
+import com.github.spring.esdata.loader.core.DeleteStrategy;
 import com.github.spring.esdata.loader.core.EsDataLoader;
+import com.github.spring.esdata.loader.core.EsIndexNamespace;
+import com.github.spring.esdata.loader.core.IsolateEsData;
 import com.github.spring.esdata.loader.core.SpringUtils;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.springframework.context.ApplicationContext;
@@ -10,15 +13,22 @@ import org.springframework.util.Assert;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
- * Base class for ES Data extensions
+ * Base class for ES Data extensions.
+ * <br>
+ * Extensions are thread-safe (so that test classes can run in parallel): their state is kept in the {@link ExtensionContext.Store}
+ * of each test class.
  */
 public abstract class AbstractEsDataExtension {
   protected final static String TEST_INSTANCE = "testInstance";
   protected static final String LOADER = "loader";
-  protected EsDataLoader loader;
+  protected static final String ISOLATED_ES_ENTITY_CLASSES = "isolatedEsEntityClasses";
+  protected static final String PREVIOUS_NAMESPACE = "previousNamespace";
+  private final EsDataLoader loader;
 
   public AbstractEsDataExtension(final EsDataLoader loader) {
     this.loader = loader;
@@ -50,19 +60,74 @@ public abstract class AbstractEsDataExtension {
   }
 
   /**
-   * Get the {@link EsDataLoader} associated with the supplied {@code ExtensionContext}.
+   * Get the {@link EsDataLoader} associated with the supplied {@code ExtensionContext} (or else the one of the extension, if any).
    * @param context the {@code ExtensionContext}
    * @return the {@link EsDataLoader} (never {@code null})
    */
   protected EsDataLoader getDataLoader(final ExtensionContext context) {
     Assert.notNull(context, "ExtensionContext must not be null");
+    if (this.loader != null)
+      return this.loader;
     ExtensionContext.Store store = this.getStore(context);
     ApplicationContext appContext = this.getApplicationContext(context);
     return store.getOrComputeIfAbsent(LOADER, (k) -> SpringUtils.getDataLoader(appContext), EsDataLoader.class);
   }
 
+  /**
+   * Records the given mapping classes as the ones of indices written in the namespace of the current thread (if any, see
+   * {@link IsolateEsData}), so that these isolated indices are dropped after all tests (see {@link #dropIsolatedIndices}).
+   *
+   * @param context the {@code ExtensionContext}
+   * @param esEntityClasses the mapping classes
+   */
+  @SuppressWarnings("unchecked")
+  protected void addIsolatedEsEntityClasses(final ExtensionContext context, final Stream<Class<?>> esEntityClasses) {
+    if (EsIndexNamespace.get() == null)
+      return;
+    Set<Class<?>> isolated = this.getStore(context)
+      .getOrComputeIfAbsent(ISOLATED_ES_ENTITY_CLASSES, k -> ConcurrentHashMap.newKeySet(), Set.class);
+    esEntityClasses.forEach(isolated::add);
+  }
+
+  /**
+   * Sets the namespace of the current thread to the one of the test class (see {@link IsolateEsData}), if any. The previous
+   * namespace is recorded in the store of the supplied {@code ExtensionContext}, to be restored by {@link #restoreNamespace}.
+   *
+   * @param context the {@code ExtensionContext} (of the test class, or of a test method)
+   */
+  protected void setNamespace(final ExtensionContext context) {
+    context.getStore(this.getNamespace()).put(PREVIOUS_NAMESPACE, EsIndexNamespace.get());
+    EsIndexNamespace.setFor(context.getRequiredTestClass());
+  }
+
+  /**
+   * Restores the namespace the current thread had before {@link #setNamespace}: the namespace remains set for the
+   * callbacks of the enclosing context (e.g <code>&#64;AfterAll</code> methods), but not for the tests run by the thread next.
+   *
+   * @param context the {@code ExtensionContext} given to {@link #setNamespace}
+   */
+  protected void restoreNamespace(final ExtensionContext context) {
+    EsIndexNamespace.set(context.getStore(this.getNamespace()).remove(PREVIOUS_NAMESPACE, String.class));
+  }
+
+  /**
+   * Drops the isolated indices written for the test class of the supplied {@code ExtensionContext}.
+   *
+   * @param context the {@code ExtensionContext}
+   */
+  protected void dropIsolatedIndices(final ExtensionContext context) {
+    Set<?> isolated = this.getStore(context).remove(ISOLATED_ES_ENTITY_CLASSES, Set.class);
+    if (isolated != null && EsIndexNamespace.setFor(context.getRequiredTestClass()))
+      isolated.forEach(c -> this.getDataLoader(context).delete((Class<?>) c, DeleteStrategy.DROP));
+  }
+
+  /**
+   * Get the {@link ExtensionContext.Store} of the test class of the supplied {@code ExtensionContext}.
+   * @param context the {@code ExtensionContext}
+   * @return the {@link ExtensionContext.Store} (never {@code null})
+   */
   protected ExtensionContext.Store getStore(final ExtensionContext context) {
-    return context.getRoot().getStore(this.getNamespace());
+    return context.getRoot().getStore(ExtensionContext.Namespace.create(this.getNamespace(), context.getRequiredTestClass()));
   }
 
   protected static <A extends Annotation> Stream<A> findMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
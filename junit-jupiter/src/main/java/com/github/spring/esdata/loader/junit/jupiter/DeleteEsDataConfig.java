@@ -1,7 +1,9 @@
 package com.github.spring.esdata.loader.junit.jupiter;
 
 import com.github.spring.esdata.loader.core.DeleteEsData;
+import com.github.spring.esdata.loader.core.DeleteStrategy;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import org.springframework.core.annotation.AliasFor;
 
 import java.lang.annotation.*;
@@ -24,9 +26,11 @@ import java.lang.annotation.*;
  * @author tinesoft
  * @see ExtendWith
  * @see DeleteEsDataExtension
+ * @see EsDataResourceLocksProvider
  * @see DeleteEsData
  */
 @ExtendWith(DeleteEsDataExtension.class)
+@ResourceLock(providers = EsDataResourceLocksProvider.class)
 @Documented
 @Inherited
 @Retention(RetentionPolicy.RUNTIME)
@@ -47,4 +51,12 @@ public @interface DeleteEsDataConfig {
    */
   @AliasFor("esEntityClasses")
   Class<?>[] value() default {};
+
+  /**
+   * Strategy used to delete the data. By default, the indices are dropped and recreated.
+   *
+   * @return strategy used to delete the data
+   * @see DeleteStrategy
+   */
+  DeleteStrategy strategy() default DeleteStrategy.RECREATE;
 }
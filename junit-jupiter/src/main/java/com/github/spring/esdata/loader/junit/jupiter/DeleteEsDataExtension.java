@@ -16,7 +16,7 @@ import java.util.stream.Stream;
  * @author tinesoft
  */
 public class DeleteEsDataExtension extends AbstractEsDataExtension
-  implements TestInstancePostProcessor, BeforeAllCallback, AfterAllCallback, BeforeEachCallback {
+  implements TestInstancePostProcessor, BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DeleteEsDataExtension.class);
 
@@ -39,30 +39,54 @@ public class DeleteEsDataExtension extends AbstractEsDataExtension
   @Override
   public void beforeAll(final ExtensionContext context) throws Exception {
 
-    this.loader = this.getDataLoader(context);
+    this.setNamespace(context);// with @IsolateEsData, the data are deleted from the indices of the test class
+    EsDataLoader dataLoader = this.getDataLoader(context);
+    this.addIsolatedEsEntityClasses(context, getDeletedEsEntityClasses(context.getRequiredTestClass()));
 
     // ES data can be specified either by:
     // - using one or many @DeleteEsData on the test class (in conjunction with @ExtendWith(DeleteEsDataExtension.class)
     // - using the convenient @DeleteEsDataConfig that combines the two annotations above
     // - or using both
-    Stream.concat(
-      findMergedAnnotation(context.getRequiredTestClass(), DeleteEsData.class)//
-        .flatMap(d -> Stream.of(d.esEntityClasses())),
-      findMergedAnnotation(context.getRequiredTestClass(), DeleteEsDataConfig.class)//
-        .flatMap(d -> Stream.of(d.esEntityClasses()))
-    ).forEach(c -> this.getDataLoader(context).delete(c));
+    findMergedAnnotation(context.getRequiredTestClass(), DeleteEsData.class)//
+      .forEach(d -> Stream.of(d.esEntityClasses()).forEach(c -> dataLoader.delete(c, d.strategy())));
+    findMergedAnnotation(context.getRequiredTestClass(), DeleteEsDataConfig.class)//
+      .forEach(d -> Stream.of(d.esEntityClasses()).forEach(c -> dataLoader.delete(c, d.strategy())));
   }
 
   @Override
   public void afterAll(final ExtensionContext context) throws Exception {
-    this.getStore(context).remove(LOADER);
+    try {
+      this.dropIsolatedIndices(context);// recreated ones are no longer needed
+      this.getStore(context).remove(LOADER);
+    } finally {
+      this.restoreNamespace(context);
+    }
   }
 
   @Override
   public void beforeEach(final ExtensionContext context) throws Exception {
+    this.setNamespace(context);
+    this.addIsolatedEsEntityClasses(context, findMergedAnnotation(context.getRequiredTestMethod(), DeleteEsData.class)//
+      .flatMap(d -> Stream.of(d.esEntityClasses())));
     findMergedAnnotation(context.getRequiredTestMethod(), DeleteEsData.class)//
-      .flatMap(d -> Stream.of(d.esEntityClasses()))//
-      .forEach(c -> this.getDataLoader(context).delete(c));
+      .forEach(d -> Stream.of(d.esEntityClasses()).forEach(c -> this.getDataLoader(context).delete(c, d.strategy())));
+  }
+
+  @Override
+  public void afterEach(final ExtensionContext context) throws Exception {
+    this.restoreNamespace(context);// the thread may run other tests next
+  }
+
+  /**
+   * Gets the mapping classes of the data deleted for the given test class.
+   *
+   * @param testClass the test class
+   * @return the mapping classes of the data deleted for the test class
+   */
+  private static Stream<Class<?>> getDeletedEsEntityClasses(final Class<?> testClass) {
+    return Stream.concat(
+      findMergedAnnotation(testClass, DeleteEsData.class).flatMap(d -> Stream.of(d.esEntityClasses())),
+      findMergedAnnotation(testClass, DeleteEsDataConfig.class).flatMap(d -> Stream.of(d.esEntityClasses())));
   }
 
   /**
@@ -0,0 +1,144 @@
+package com.github.spring.esdata.loader.junit.jupiter;
+
+import com.github.spring.esdata.loader.core.DeleteEsData;
+import com.github.spring.esdata.loader.core.GenerateEsData;
+import com.github.spring.esdata.loader.core.IsolateEsData;
+import com.github.spring.esdata.loader.core.IsolationScope;
+import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.core.RollbackEsData;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.junit.jupiter.api.parallel.ResourceLocksProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.expression.ExpressionException;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.platform.commons.support.AnnotationSupport.findRepeatableAnnotations;
+
+/**
+ * JUnit {@link ResourceLocksProvider} declaring the Elasticsearch indices that the data of a test class (or method) are loaded into,
+ * deleted from or rolled back, as exclusive resources: with JUnit Jupiter parallel execution enabled, tests touching different indices
+ * run concurrently, while the ones touching the same indices run one after another.
+ * <br><br>
+ * It is declared by {@link LoadEsDataConfig} and {@link DeleteEsDataConfig}, and must otherwise be declared along with
+ * {@code @ExtendWith}:
+ * <pre>
+ *  &#064;ExtendWith(LoadEsDataExtension.class)
+ *  &#064;ResourceLock(providers = EsDataResourceLocksProvider.class)
+ *  &#064;LoadEsData(esEntityClass = BookEsEntity.class, location = "/data/books.json")
+ *  public class MyTest{
+ *
+ *  }
+ * </pre>
+ * The indices are written, hence locked in {@link ResourceAccessMode#READ_WRITE} mode. Tests that only read an index loaded
+ * by other ones can lock it in {@link ResourceAccessMode#READ} mode, with the key given by {@link #getLockKey(Class)}
+ * (i.e {@code @ResourceLock(value = "esdata:<index name>", mode = ResourceAccessMode.READ)}).
+ * <br>
+ * Index names given by an expression (e.g {@code #{T(com.github.spring.esdata.loader.core.EsIndexNamespace).resolve('author')}})
+ * are resolved, without any bean: expressions referencing beans cannot be resolved, and are used as is in the keys (i.e two
+ * different expressions resolving to the same index then give different locks).
+ * <br>
+ * Test classes isolated with {@link IsolateEsData} in {@link IsolationScope#CLASS} scope have indices of their own: they lock none.
+ * In {@link IsolationScope#FORK} scope, all the classes of a JVM share the same indices: they are locked.
+ *
+ * @author tinesoft
+ * @see ResourceLock
+ */
+public class EsDataResourceLocksProvider implements ResourceLocksProvider {
+
+  /**
+   * Prefix of the keys of the locks of the Elasticsearch indices.
+   */
+  public static final String LOCK_KEY_PREFIX = "esdata:";
+
+  private static final ExpressionParser PARSER = new SpelExpressionParser();
+
+  @Override
+  public Set<Lock> provideForClass(final Class<?> testClass) {
+    return getLocks(testClass, Stream.of(
+      findRepeatableAnnotations(testClass, LoadEsData.class).stream().map(LoadEsData::esEntityClass),
+      findRepeatableAnnotations(testClass, GenerateEsData.class).stream().map(GenerateEsData::esEntityClass),
+      AbstractEsDataExtension.findMergedAnnotation(testClass, LoadEsDataConfig.class).flatMap(c -> Stream.of(c.data())).map(LoadEsData::esEntityClass),
+      AbstractEsDataExtension.findMergedAnnotation(testClass, LoadEsDataConfig.class).flatMap(c -> Stream.of(c.generate())).map(GenerateEsData::esEntityClass),
+      AbstractEsDataExtension.findMergedAnnotation(testClass, DeleteEsDataConfig.class).flatMap(d -> Stream.of(d.esEntityClasses())),
+      getDeletedOrRolledBack(testClass))//
+      .flatMap(c -> c));
+  }
+
+  @Override
+  public Set<Lock> provideForNestedClass(final Class<?> testClass) {
+    return this.provideForClass(testClass);
+  }
+
+  @Override
+  public Set<Lock> provideForMethod(final Class<?> testClass, final Method testMethod) {
+    return getLocks(testClass, Stream.of(
+      findRepeatableAnnotations(testMethod, LoadEsData.class).stream().map(LoadEsData::esEntityClass),
+      findRepeatableAnnotations(testMethod, GenerateEsData.class).stream().map(GenerateEsData::esEntityClass),
+      getDeletedOrRolledBack(testMethod))//
+      .flatMap(c -> c));
+  }
+
+  /**
+   * Gets the key of the lock of the index of the given mapping class, i.e {@value #LOCK_KEY_PREFIX} followed by the name of the index
+   * (as defined by its {@link Document}, resolved when it is an expression not referencing any bean).
+   *
+   * @param esEntityClass the mapping class
+   * @return the key of the lock of the index
+   */
+  public static String getLockKey(final Class<?> esEntityClass) {
+    Document document = AnnotatedElementUtils.findMergedAnnotation(esEntityClass, Document.class);
+    return LOCK_KEY_PREFIX + (document != null ? resolveIndexName(document.indexName()) : esEntityClass.getName());
+  }
+
+  /**
+   * Resolves the given index name, if an expression (outside of any test, i.e without namespace, see {@code EsIndexNamespace}).
+   *
+   * @param indexName the index name, possibly an expression
+   * @return the resolved index name, or the given one if it could not be resolved
+   */
+  private static String resolveIndexName(final String indexName) {
+    if (!indexName.contains(ParserContext.TEMPLATE_EXPRESSION.getExpressionPrefix()))
+      return indexName;
+    try {
+      return PARSER.parseExpression(indexName, ParserContext.TEMPLATE_EXPRESSION).getValue(String.class);
+    } catch (ExpressionException e) {
+      return indexName;// e.g referencing a bean
+    }
+  }
+
+  /**
+   * Gets the mapping classes of the data deleted (by {@link DeleteEsData}) or explicitly rolled back (by {@link RollbackEsData})
+   * for the given test class or method.
+   */
+  private static Stream<Class<?>> getDeletedOrRolledBack(final AnnotatedElement element) {
+    return Stream.concat(
+      AbstractEsDataExtension.findMergedAnnotation(element, DeleteEsData.class).flatMap(d -> Stream.of(d.esEntityClasses())),
+      AbstractEsDataExtension.findMergedAnnotation(element, RollbackEsData.class).flatMap(r -> Stream.of(r.esEntityClasses())));
+  }
+
+  /**
+   * Gets the locks of the indices of the given mapping classes, unless the test class has indices of its own.
+   */
+  private static Set<Lock> getLocks(final Class<?> testClass, final Stream<Class<?>> esEntityClasses) {
+    IsolateEsData isolation = AnnotatedElementUtils.findMergedAnnotation(testClass, IsolateEsData.class);
+    if (isolation != null && isolation.value() == IsolationScope.CLASS)
+      return Collections.emptySet();
+
+    return esEntityClasses//
+      .map(EsDataResourceLocksProvider::getLockKey)//
+      .distinct()//
+      .map(k -> new Lock(k, ResourceAccessMode.READ_WRITE))//
+      .collect(Collectors.toSet());
+  }
+}
@@ -1,7 +1,10 @@
 package com.github.spring.esdata.loader.junit.jupiter;
 
+import com.github.spring.esdata.loader.core.EsDataLoader;
+import com.github.spring.esdata.loader.core.GenerateEsData;
 import com.github.spring.esdata.loader.core.LoadEsData;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import org.springframework.core.annotation.AliasFor;
 
 import java.lang.annotation.*;
@@ -25,9 +28,11 @@ import java.lang.annotation.*;
  * @author tinesoft
  * @see ExtendWith
  * @see LoadEsDataExtension
+ * @see EsDataResourceLocksProvider
  * @see LoadEsData
  */
 @ExtendWith(LoadEsDataExtension.class)
+@ResourceLock(providers = EsDataResourceLocksProvider.class)
 @Documented
 @Inherited
 @Retention(RetentionPolicy.RUNTIME)
@@ -48,4 +53,18 @@ public @interface LoadEsDataConfig {
 	@AliasFor("value")
 	LoadEsData[] data() default {};
 
+  /**
+   * Synthetic data to generate (in addition to the data to load).
+   *
+   * @return the data to generate
+   */
+  GenerateEsData[] generate() default {};
+
+  /**
+   * Maximum number of data loaded concurrently into Elasticsearch (data targeting the same index are always loaded one after another).
+   *
+   * @return maximum number of data loaded concurrently
+   */
+  int concurrency() default EsDataLoader.DEFAULT_CONCURRENCY;
+
 }
@@ -1,14 +1,24 @@
 package com.github.spring.esdata.loader.junit.jupiter;
 
+import com.github.spring.esdata.loader.core.EsDataCheckpoint;
 import com.github.spring.esdata.loader.core.EsDataLoader;
+import com.github.spring.esdata.loader.core.EsIndexNamespace;
+import com.github.spring.esdata.loader.core.GenerateEsData;
 import com.github.spring.esdata.loader.core.IndexData;
 import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.core.RollbackEsData;
+import com.github.spring.esdata.loader.core.SpringUtils;
 import org.junit.jupiter.api.extension.*;
 import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.platform.commons.support.AnnotationSupport.findRepeatableAnnotations;
@@ -19,12 +29,14 @@ import static org.junit.platform.commons.support.AnnotationSupport.findRepeatabl
  * @author tinesoft
  */
 public class LoadEsDataExtension extends AbstractEsDataExtension
-  implements TestInstancePostProcessor, BeforeAllCallback, AfterAllCallback, BeforeEachCallback {
+  implements TestInstancePostProcessor, BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LoadEsDataExtension.class);
 
   private final static Namespace NAMESPACE = Namespace.create(LoadEsDataExtension.class);
 
+  private static final String CHECKPOINTS = "checkpoints";
+
   // This constructor is invoked by JUnit Jupiter via reflection or ServiceLoader
   public LoadEsDataExtension() {
     this(null);
@@ -42,32 +54,147 @@ public class LoadEsDataExtension extends AbstractEsDataExtension
   @Override
   public void beforeAll(final ExtensionContext context) throws Exception {
 
-    this.loader = this.getDataLoader(context);
+    // with @IsolateEsData, the data are loaded into indices of the test class (set for each callback, as threads may differ)
+    this.setNamespace(context);
 
     // ES data can be specified either by:
     // - using one or many @LoadEsData on the test class (in conjunction with @ExtendWith(LoadEsDataExtension.class)
     // - using the convenient @LoadEsDataConfig that combines the two annotations above
     // - or using both
-    Stream.concat(
-      findRepeatableAnnotations(context.getRequiredTestClass(), LoadEsData.class).stream(),
-      findMergedAnnotation(context.getRequiredTestClass(), LoadEsDataConfig.class)
-        .flatMap(c -> Stream.of(c.data())))
-      .map(IndexData::of)//
-      .forEach(d -> this.loader.load(d));
+    // synthetic data can be generated the same ways, using @GenerateEsData
+    // with @PreloadEsData, the data of the @LoadEsData and @GenerateEsData on the test class (but not the ones of
+    // @LoadEsDataConfig) are loaded while the Spring context is created: only the other ones remain to be loaded
+    Class<?> testClass = context.getRequiredTestClass();
+    List<Annotation> preloaded = SpringUtils.awaitPreloadedData(this.getApplicationContext(context), testClass)
+      ? SpringUtils.getPreloadedAnnotations(testClass)
+      : Collections.emptyList();
+
+    List<IndexData> data = Stream.concat(
+      Stream.concat(
+        findRepeatableAnnotations(testClass, LoadEsData.class).stream(),
+        findMergedAnnotation(testClass, LoadEsDataConfig.class)
+          .flatMap(c -> Stream.of(c.data())))
+        .filter(a -> !preloaded.contains(a))
+        .map(IndexData::of),
+      Stream.concat(
+        findRepeatableAnnotations(testClass, GenerateEsData.class).stream(),
+        findMergedAnnotation(testClass, LoadEsDataConfig.class)
+          .flatMap(c -> Stream.of(c.generate())))
+        .filter(a -> !preloaded.contains(a))
+        .map(IndexData::of))//
+      .collect(Collectors.toList());
+
+    this.addIsolatedEsEntityClasses(context, getEsEntityClasses(testClass).stream());
+    this.getDataLoader(context).loadAll(data, getConcurrency(context));
 
   }
 
   @Override
   public void afterAll(final ExtensionContext context) throws Exception {
-    this.getStore(context).remove(LOADER);
+    try {
+      this.dropIsolatedIndices(context);// no longer needed
+    } finally {
+      this.restoreNamespace(context);
+      this.getStore(context).remove(LOADER);
+    }
   }
 
   @Override
   public void beforeEach(final ExtensionContext context) throws Exception {
-    findRepeatableAnnotations(context.getRequiredTestMethod(), LoadEsData.class)//
-      .stream()//
-      .map(IndexData::of)//
-      .forEach(d -> this.getDataLoader(context).load(d));
+    this.setNamespace(context);
+
+    // indices to roll back are recorded before the data of the test method are loaded: they are rolled back too
+    List<Class<?>> rollbackClasses = getRollbackEsEntityClasses(context);
+    if (!rollbackClasses.isEmpty()) {
+      EsDataLoader dataLoader = this.getDataLoader(context);
+      List<EsDataCheckpoint> checkpoints = rollbackClasses.stream().map(c -> checkpoint(dataLoader, c)).collect(Collectors.toList());
+      context.getStore(NAMESPACE).put(CHECKPOINTS, checkpoints);
+    }
+    this.addIsolatedEsEntityClasses(context, rollbackClasses.stream());
+
+    List<IndexData> data = Stream.concat(
+      findRepeatableAnnotations(context.getRequiredTestMethod(), LoadEsData.class).stream().map(IndexData::of),
+      findRepeatableAnnotations(context.getRequiredTestMethod(), GenerateEsData.class).stream().map(IndexData::of))//
+      .collect(Collectors.toList());
+
+    this.addIsolatedEsEntityClasses(context, data.stream().map(IndexData::getEsEntityClass));
+    this.getDataLoader(context).loadAll(data, getConcurrency(context));
+  }
+
+  @Override
+  public void afterEach(final ExtensionContext context) throws Exception {
+    try {
+      EsIndexNamespace.setFor(context.getRequiredTestClass());// may have been cleared by another extension
+      List<?> checkpoints = context.getStore(NAMESPACE).remove(CHECKPOINTS, List.class);
+      if (checkpoints != null)
+        checkpoints.forEach(c -> this.getDataLoader(context).rollback((EsDataCheckpoint) c));
+    } finally {
+      this.restoreNamespace(context);// still set for the @AfterAll methods, but not for the tests run by the thread next
+    }
+  }
+
+  /**
+   * Records the current content of the index of the given class, failing (before the test runs) if the loader does not
+   * support rollbacks.
+   */
+  private static EsDataCheckpoint checkpoint(final EsDataLoader dataLoader, final Class<?> esEntityClass) {
+    try {
+      return dataLoader.checkpoint(esEntityClass);
+    } catch (UnsupportedOperationException e) {
+      throw new IllegalStateException("@RollbackEsData can not be used with loader " + dataLoader.getClass().getName()
+        + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Gets the mapping classes of the indices to roll back after the current test, as defined by the {@link RollbackEsData}
+   * of the test method or else of the test class (if any). By default, these are the ones of the data loaded for the test class.
+   *
+   * @param context the current extension context
+   * @return the mapping classes of the indices to roll back
+   */
+  private static List<Class<?>> getRollbackEsEntityClasses(final ExtensionContext context) {
+    Class<?> testClass = context.getRequiredTestClass();
+    RollbackEsData rollback = Stream.concat(
+      findMergedAnnotation(context.getRequiredTestMethod(), RollbackEsData.class),
+      findMergedAnnotation(testClass, RollbackEsData.class))//
+      .findFirst()//
+      .orElse(null);
+    if (rollback == null)
+      return Collections.emptyList();
+    if (rollback.esEntityClasses().length > 0)
+      return Arrays.asList(rollback.esEntityClasses());
+    return getEsEntityClasses(testClass);
+  }
+
+  /**
+   * Gets the mapping classes of the data loaded for the given test class.
+   *
+   * @param testClass the test class
+   * @return the mapping classes of the data loaded for the test class
+   */
+  private static List<Class<?>> getEsEntityClasses(final Class<?> testClass) {
+    return Stream.of(
+      findRepeatableAnnotations(testClass, LoadEsData.class).stream().map(LoadEsData::esEntityClass),
+      findRepeatableAnnotations(testClass, GenerateEsData.class).stream().map(GenerateEsData::esEntityClass),
+      findMergedAnnotation(testClass, LoadEsDataConfig.class).flatMap(c -> Stream.of(c.data())).map(LoadEsData::esEntityClass),
+      findMergedAnnotation(testClass, LoadEsDataConfig.class).flatMap(c -> Stream.of(c.generate())).map(GenerateEsData::esEntityClass))//
+      .flatMap(c -> c)//
+      .distinct()//
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Gets the maximum number of data to load concurrently, as defined by the {@link LoadEsDataConfig} of the test class (if any).
+   *
+   * @param context the current extension context
+   * @return the maximum number of data to load concurrently
+   */
+  private static int getConcurrency(final ExtensionContext context) {
+    return findMergedAnnotation(context.getRequiredTestClass(), LoadEsDataConfig.class)//
+      .map(LoadEsDataConfig::concurrency)//
+      .findFirst()//
+      .orElse(EsDataLoader.DEFAULT_CONCURRENCY);
   }
 
   /**
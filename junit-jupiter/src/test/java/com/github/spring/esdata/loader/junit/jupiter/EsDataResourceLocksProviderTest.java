@@ -0,0 +1,121 @@
+package com.github.spring.esdata.loader.junit.jupiter;
+
+import com.github.spring.esdata.loader.core.DeleteEsData;
+import com.github.spring.esdata.loader.core.GenerateEsData;
+import com.github.spring.esdata.loader.core.IsolateEsData;
+import com.github.spring.esdata.loader.core.IsolationScope;
+import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.core.RollbackEsData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLocksProvider.Lock;
+import org.springframework.data.elasticsearch.annotations.Document;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link EsDataResourceLocksProvider}.
+ *
+ * @author tinesoft
+ */
+class EsDataResourceLocksProviderTest {
+
+  private final EsDataResourceLocksProvider provider = new EsDataResourceLocksProvider();
+
+  @Test
+  void locksOfClass() {
+    assertEquals(locks("esdata:author", "esdata:book", "esdata:library"), this.provider.provideForClass(LoadingTest.class));
+  }
+
+  @Test
+  void locksOfMethod() throws NoSuchMethodException {
+    Method method = LoadingTest.class.getDeclaredMethod("test");
+
+    assertEquals(locks("esdata:book", "esdata:library"), this.provider.provideForMethod(LoadingTest.class, method));
+  }
+
+  @Test
+  void noLocksForClassIsolatedData() throws NoSuchMethodException {
+    Method method = ClassIsolatedTest.class.getDeclaredMethod("test");
+
+    assertTrue(this.provider.provideForClass(ClassIsolatedTest.class).isEmpty());
+    assertTrue(this.provider.provideForMethod(ClassIsolatedTest.class, method).isEmpty());
+  }
+
+  @Test
+  void locksForForkIsolatedData() throws NoSuchMethodException {
+    Method method = ForkIsolatedTest.class.getDeclaredMethod("test");
+
+    assertEquals(locks("esdata:author"), this.provider.provideForClass(ForkIsolatedTest.class));
+    assertEquals(locks("esdata:book"), this.provider.provideForMethod(ForkIsolatedTest.class, method));
+  }
+
+  @Test
+  void lockKeyOfResolvedIndexName() {
+    assertEquals("esdata:author", EsDataResourceLocksProvider.getLockKey(Author.class));
+    assertEquals("esdata:author", EsDataResourceLocksProvider.getLockKey(IsolatedAuthor.class));
+    assertEquals("esdata:#{@indexNames.author()}", EsDataResourceLocksProvider.getLockKey(BeanNamedAuthor.class));
+  }
+
+  private static Set<Lock> locks(final String... keys) {
+    Set<Lock> locks = new HashSet<>();
+    Arrays.stream(keys).forEach(k -> locks.add(new Lock(k, ResourceAccessMode.READ_WRITE)));
+    return locks;
+  }
+
+  @Document(indexName = "author", type = "Author")
+  static class Author {
+  }
+
+  @Document(indexName = "#{T(com.github.spring.esdata.loader.core.EsIndexNamespace).resolve('author')}", type = "Author")
+  static class IsolatedAuthor {
+  }
+
+  @Document(indexName = "#{@indexNames.author()}", type = "Author")
+  static class BeanNamedAuthor {
+  }
+
+  @Document(indexName = "book", type = "Book")
+  static class Book {
+  }
+
+  @Document(indexName = "library", type = "Library")
+  static class Library {
+  }
+
+  @LoadEsDataConfig(data = @LoadEsData(esEntityClass = Author.class, location = "/data/authors.json"))
+  @LoadEsData(esEntityClass = IsolatedAuthor.class, location = "/data/authors.json")
+  @DeleteEsData(esEntityClasses = Library.class)
+  @RollbackEsData(esEntityClasses = Book.class)
+  static class LoadingTest {
+
+    @GenerateEsData(esEntityClass = Book.class, count = 10)
+    @DeleteEsData(esEntityClasses = Library.class)
+    void test() {
+    }
+  }
+
+  @IsolateEsData
+  @LoadEsDataConfig(data = @LoadEsData(esEntityClass = Author.class, location = "/data/authors.json"))
+  static class ClassIsolatedTest {
+
+    @LoadEsData(esEntityClass = Book.class, location = "/data/books.json")
+    void test() {
+    }
+  }
+
+  @IsolateEsData(IsolationScope.FORK)
+  @LoadEsDataConfig(data = @LoadEsData(esEntityClass = Author.class, location = "/data/authors.json"))
+  static class ForkIsolatedTest {
+
+    @LoadEsData(esEntityClass = Book.class, location = "/data/books.json")
+    void test() {
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package com.github.spring.esdata.loader.junit4;
 
 import com.github.spring.esdata.loader.core.DeleteEsData;
+import com.github.spring.esdata.loader.core.DeleteStrategy;
 import com.github.spring.esdata.loader.core.EsDataLoader;
+import com.github.spring.esdata.loader.core.EsIndexNamespace;
 import com.github.spring.esdata.loader.core.SpringUtils;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
@@ -17,6 +19,8 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
@@ -36,6 +40,16 @@ public class DeleteEsDataRule implements JunitJupiterExtensionLikeTestRule {
    */
   private static final Map<Class<?>, TestContextManager> testContextManagerCache = new ConcurrentHashMap<>(64);
 
+  /**
+   * Mapping classes of the isolated indices written (see {@code IsolateEsData}), keyed by test class.
+   */
+  private static final Map<Class<?>, Set<Class<?>>> isolatedEsEntityClassesCache = new ConcurrentHashMap<>(64);
+
+  /**
+   * Namespaces the threads had before each test class or test (see {@code IsolateEsData}), keyed by description.
+   */
+  private final Map<Description, Optional<String>> previousNamespaces = new ConcurrentHashMap<>();
+
 
   /**
    * Constructor
@@ -55,27 +69,73 @@ public class DeleteEsDataRule implements JunitJupiterExtensionLikeTestRule {
 
   @Override
   public void beforeAll(Statement base, Description description) throws Exception {
+    this.setNamespace(description);// with @IsolateEsData, the data are deleted from the indices of the test class
     this.loader = SpringUtils.getDataLoader(getApplicationContext(description.getTestClass()));
 
+    addIsolatedEsEntityClasses(description.getTestClass(), findMergedAnnotation(description.getTestClass(), DeleteEsData.class)
+      .flatMap(d -> Stream.of(d.esEntityClasses())));
     findMergedAnnotation(description.getTestClass(), DeleteEsData.class)
-      .flatMap(d -> Stream.of(d.esEntityClasses()))//
-      .forEach(c -> this.loader.delete(c));
+      .forEach(d -> Stream.of(d.esEntityClasses()).forEach(c -> this.loader.delete(c, d.strategy())));
   }
 
   @Override
   public void before(Statement base, Description description) throws Exception {
+    this.setNamespace(description);
     this.loader = SpringUtils.getDataLoader(getApplicationContext(description.getTestClass()));
 
     Method testMethod = description.getTestClass().getDeclaredMethod(description.getMethodName());
 
+    addIsolatedEsEntityClasses(description.getTestClass(), findMergedAnnotation(testMethod, DeleteEsData.class)
+      .flatMap(d -> Stream.of(d.esEntityClasses())));
     findMergedAnnotation(testMethod, DeleteEsData.class)
-      .flatMap(d -> Stream.of(d.esEntityClasses()))//
-      .forEach(c -> this.loader.delete(c));
+      .forEach(d -> Stream.of(d.esEntityClasses()).forEach(c -> this.loader.delete(c, d.strategy())));
+  }
+
+  @Override
+  public void after(Statement base, Description description) throws Exception {
+    this.restoreNamespace(description);// the thread may run other tests next
   }
 
   @Override
   public void afterAll(Statement base, Description description) throws Exception {
-    testContextManagerCache.remove(description.getTestClass());
+    try {
+      // recreated isolated indices are no longer needed
+      Set<Class<?>> isolated = isolatedEsEntityClassesCache.remove(description.getTestClass());
+      if (isolated != null && EsIndexNamespace.setFor(description.getTestClass()))
+        isolated.forEach(c -> this.loader.delete(c, DeleteStrategy.DROP));
+    } finally {
+      testContextManagerCache.remove(description.getTestClass());
+      this.restoreNamespace(description);
+    }
+  }
+
+  /**
+   * Sets the namespace of the current thread to the one of the given test class (if annotated with {@code IsolateEsData}),
+   * recording the previous one to be restored by {@link #restoreNamespace(Description)}.
+   */
+  private void setNamespace(Description description) {
+    this.previousNamespaces.put(description, Optional.ofNullable(EsIndexNamespace.get()));
+    EsIndexNamespace.setFor(description.getTestClass());
+  }
+
+  /**
+   * Restores the namespace the current thread had before the given test class or test: it remains set for the
+   * <code>&#64;AfterClass</code> methods, but not for the tests run by the thread next.
+   */
+  private void restoreNamespace(Description description) {
+    Optional<String> previous = this.previousNamespaces.remove(description);
+    EsIndexNamespace.set(previous != null ? previous.orElse(null) : null);
+  }
+
+  /**
+   * Records the given mapping classes as the ones of indices written in the namespace of the current thread (if any), so that
+   * these isolated indices are dropped after all tests of the given test class.
+   */
+  private static void addIsolatedEsEntityClasses(Class<?> testClass, Stream<Class<?>> esEntityClasses) {
+    if (EsIndexNamespace.get() == null)
+      return;
+    Set<Class<?>> isolated = isolatedEsEntityClassesCache.computeIfAbsent(testClass, c -> ConcurrentHashMap.newKeySet());
+    esEntityClasses.forEach(isolated::add);
   }
 
   private static ApplicationContext getApplicationContext(Class<?> testClass) {
@@ -1,8 +1,13 @@
 package com.github.spring.esdata.loader.junit4;
 
+import com.github.spring.esdata.loader.core.DeleteStrategy;
+import com.github.spring.esdata.loader.core.EsDataCheckpoint;
 import com.github.spring.esdata.loader.core.EsDataLoader;
+import com.github.spring.esdata.loader.core.EsIndexNamespace;
+import com.github.spring.esdata.loader.core.GenerateEsData;
 import com.github.spring.esdata.loader.core.IndexData;
 import com.github.spring.esdata.loader.core.LoadEsData;
+import com.github.spring.esdata.loader.core.RollbackEsData;
 import com.github.spring.esdata.loader.core.SpringUtils;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
@@ -14,9 +19,16 @@ import org.springframework.test.context.TestContextManager;
 import org.springframework.util.Assert;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.springframework.core.annotation.AnnotatedElementUtils.findMergedAnnotation;
 import static org.springframework.core.annotation.AnnotatedElementUtils.findMergedRepeatableAnnotations;
 
 /**
@@ -28,13 +40,20 @@ public class LoadEsDataRule implements JunitJupiterExtensionLikeTestRule {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(LoadEsDataRule.class);
 
-  private EsDataLoader loader;
+  private final EsDataLoader loader;
+
+  private final int concurrency;
 
 	/**
 	 * Cache of {@code TestContextManagers} keyed by test class.
 	 */
 	private static final Map<Class<?>, TestContextManager> testContextManagerCache = new ConcurrentHashMap<>(64);
 
+  /**
+   * Mapping classes of the isolated indices written (see {@code IsolateEsData}), keyed by test class.
+   */
+  private static final Map<Class<?>, Set<Class<?>>> isolatedEsEntityClassesCache = new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Constructor
@@ -49,35 +68,195 @@ public class LoadEsDataRule implements JunitJupiterExtensionLikeTestRule {
    *            the loader
 	 */
   public LoadEsDataRule(final EsDataLoader loader) {
-		this.loader = loader;
+		this(loader, EsDataLoader.DEFAULT_CONCURRENCY);
 	}
 
-	@Override
-	public void beforeAll(Statement base, Description description) throws Exception {
-		this.loader = SpringUtils.getDataLoader(getApplicationContext(description.getTestClass()));
+  /**
+   * Constructor using the given concurrency.
+   * @param concurrency
+   *            maximum number of data loaded concurrently (data targeting the same index are always loaded one after another)
+   */
+  public LoadEsDataRule(final int concurrency) {
+    this(null, concurrency);
+  }
 
-    findMergedRepeatableAnnotations(description.getTestClass(), LoadEsData.class)
-      .stream()
-      .map(IndexData::of)//
-      .forEach(d -> this.loader.load(d));
-	}
+  /**
+   * Constructor using the given loader and concurrency.
+   * @param loader
+   *            the loader
+   * @param concurrency
+   *            maximum number of data loaded concurrently (data targeting the same index are always loaded one after another)
+   */
+  public LoadEsDataRule(final EsDataLoader loader, final int concurrency) {
+    this.loader = loader;
+    this.concurrency = concurrency;
+  }
 
-	@Override
-	public void before(Statement base, Description description) throws Exception {
-		this.loader = SpringUtils.getDataLoader(getApplicationContext(description.getTestClass()));
+  @Override
+  public Statement apply(final Statement base, final Description description) {
+    // the same rule may be used both as a class rule and a test rule: the state of each statement is kept in the statement itself
+    if (description.isTest()) {
+      return new Statement() {
+        @Override
+        public void evaluate() throws Throwable {
+          EsDataLoader dataLoader = LoadEsDataRule.this.getDataLoader(description.getTestClass());
+          String previousNamespace = EsIndexNamespace.get();
+          List<EsDataCheckpoint> checkpoints = Collections.emptyList();
+          try {
+            checkpoints = LoadEsDataRule.this.before(dataLoader, description);
+            base.evaluate();
+            LoadEsDataRule.this.verify(base, description);
+          } finally {
+            after(dataLoader, checkpoints, description, previousNamespace);
+          }
+        }
+      };
+    }
+    if (description.isSuite()) {
+      return new Statement() {
+        @Override
+        public void evaluate() throws Throwable {
+          EsDataLoader dataLoader = LoadEsDataRule.this.getDataLoader(description.getTestClass());
+          String previousNamespace = EsIndexNamespace.get();
+          try {
+            LoadEsDataRule.this.beforeAll(dataLoader, description);
+            base.evaluate();
+            LoadEsDataRule.this.verifyAll(base, description);
+          } finally {
+            afterAll(dataLoader, description, previousNamespace);
+          }
+        }
+      };
+    }
+    return base;
+  }
 
-		Method testMethod = description.getTestClass().getDeclaredMethod(description.getMethodName());
+  private void beforeAll(EsDataLoader dataLoader, Description description) throws Exception {
+    // with @IsolateEsData, the data are loaded into indices of the test class
+    EsIndexNamespace.setFor(description.getTestClass());
+    addIsolatedEsEntityClasses(description.getTestClass(), getEsEntityClasses(description.getTestClass()).stream());
 
-    findMergedRepeatableAnnotations(testMethod, LoadEsData.class)
-      .stream()//
-      .map(IndexData::of)//
-      .forEach(d -> this.loader.load(d));
-	}
+    // with @PreloadEsData, the data are loaded while the Spring context is created: just wait for them
+    if (SpringUtils.awaitPreloadedData(getApplicationContext(description.getTestClass()), description.getTestClass()))
+      return;
 
-	@Override
-	public void afterAll(Statement base, Description description) throws Exception {
-		testContextManagerCache.remove(description.getTestClass());
-	}
+    List<IndexData> data = Stream.concat(
+      findMergedRepeatableAnnotations(description.getTestClass(), LoadEsData.class).stream().map(IndexData::of),
+      findMergedRepeatableAnnotations(description.getTestClass(), GenerateEsData.class).stream().map(IndexData::of))//
+      .collect(Collectors.toList());
+
+    dataLoader.loadAll(data, this.concurrency);
+  }
+
+  /**
+   * Loads the data of the given test, once the indices to roll back after it are recorded.
+   *
+   * @return the checkpoints of the indices to roll back after the test
+   */
+  private List<EsDataCheckpoint> before(EsDataLoader dataLoader, Description description) throws Exception {
+    EsIndexNamespace.setFor(description.getTestClass());
+
+    Method testMethod = description.getTestClass().getDeclaredMethod(description.getMethodName());
+
+    // indices to roll back are recorded before the data of the test method are loaded: they are rolled back too
+    List<Class<?>> rollbackClasses = getRollbackEsEntityClasses(description.getTestClass(), testMethod);
+    List<EsDataCheckpoint> checkpoints = rollbackClasses.stream()//
+      .map(c -> checkpoint(dataLoader, c))//
+      .collect(Collectors.toList());
+    addIsolatedEsEntityClasses(description.getTestClass(), rollbackClasses.stream());
+
+    List<IndexData> data = Stream.concat(
+      findMergedRepeatableAnnotations(testMethod, LoadEsData.class).stream().map(IndexData::of),
+      findMergedRepeatableAnnotations(testMethod, GenerateEsData.class).stream().map(IndexData::of))//
+      .collect(Collectors.toList());
+
+    addIsolatedEsEntityClasses(description.getTestClass(), data.stream().map(IndexData::getEsEntityClass));
+    dataLoader.loadAll(data, this.concurrency);
+    return checkpoints;
+  }
+
+  /**
+   * Rolls back the indices of the given checkpoints, then restores the namespace the thread had before the test: it
+   * remains set for the <code>&#64;AfterClass</code> methods, but not for the tests run by the thread next.
+   */
+  private static void after(EsDataLoader dataLoader, List<EsDataCheckpoint> checkpoints, Description description,
+                            String previousNamespace) {
+    try {
+      EsIndexNamespace.setFor(description.getTestClass());// may have been cleared by another rule
+      checkpoints.forEach(dataLoader::rollback);
+    } finally {
+      EsIndexNamespace.set(previousNamespace);
+    }
+  }
+
+  private static void afterAll(EsDataLoader dataLoader, Description description, String previousNamespace) {
+    try {
+      // isolated indices are no longer needed
+      Set<Class<?>> isolated = isolatedEsEntityClassesCache.remove(description.getTestClass());
+      if (isolated != null && EsIndexNamespace.setFor(description.getTestClass()))
+        isolated.forEach(c -> dataLoader.delete(c, DeleteStrategy.DROP));
+    } finally {
+      EsIndexNamespace.set(previousNamespace);
+      testContextManagerCache.remove(description.getTestClass());
+    }
+  }
+
+  /**
+   * Gets the loader given to the rule, or else the one of the Spring context of the given test class.
+   */
+  private EsDataLoader getDataLoader(Class<?> testClass) {
+    return this.loader != null ? this.loader : SpringUtils.getDataLoader(getApplicationContext(testClass));
+  }
+
+  /**
+   * Records the given mapping classes as the ones of indices written in the namespace of the current thread (if any), so that
+   * these isolated indices are dropped after all tests of the given test class.
+   */
+  private static void addIsolatedEsEntityClasses(Class<?> testClass, Stream<Class<?>> esEntityClasses) {
+    if (EsIndexNamespace.get() == null)
+      return;
+    Set<Class<?>> isolated = isolatedEsEntityClassesCache.computeIfAbsent(testClass, c -> ConcurrentHashMap.newKeySet());
+    esEntityClasses.forEach(isolated::add);
+  }
+
+  /**
+   * Records the current content of the index of the given class, failing (before the test runs) if the loader does not
+   * support rollbacks.
+   */
+  private static EsDataCheckpoint checkpoint(EsDataLoader dataLoader, Class<?> esEntityClass) {
+    try {
+      return dataLoader.checkpoint(esEntityClass);
+    } catch (UnsupportedOperationException e) {
+      throw new IllegalStateException("@RollbackEsData can not be used with loader " + dataLoader.getClass().getName()
+        + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Gets the mapping classes of the indices to roll back after the given test, as defined by the {@link RollbackEsData}
+   * of the test method or else of the test class (if any). By default, these are the ones of the data loaded for the test class.
+   */
+  private static List<Class<?>> getRollbackEsEntityClasses(Class<?> testClass, Method testMethod) {
+    RollbackEsData rollback = findMergedAnnotation(testMethod, RollbackEsData.class);
+    if (rollback == null)
+      rollback = findMergedAnnotation(testClass, RollbackEsData.class);
+    if (rollback == null)
+      return Collections.emptyList();
+    if (rollback.esEntityClasses().length > 0)
+      return Arrays.asList(rollback.esEntityClasses());
+    return getEsEntityClasses(testClass);
+  }
+
+  /**
+   * Gets the mapping classes of the data loaded for the given test class.
+   */
+  private static List<Class<?>> getEsEntityClasses(Class<?> testClass) {
+    return Stream.concat(
+      findMergedRepeatableAnnotations(testClass, LoadEsData.class).stream().map(LoadEsData::esEntityClass),
+      findMergedRepeatableAnnotations(testClass, GenerateEsData.class).stream().map(GenerateEsData::esEntityClass))//
+      .distinct()//
+      .collect(Collectors.toList());
+  }
 
   private static ApplicationContext getApplicationContext(Class<?> testClass) {
 		TestContextManager testContextManager = getTestContextManager(testClass);